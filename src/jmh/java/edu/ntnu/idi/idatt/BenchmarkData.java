@@ -0,0 +1,111 @@
+package edu.ntnu.idi.idatt;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code BenchmarkData} class creates reproducible food storages and cookbooks
+ * of a given size for the benchmarks.
+ */
+final class BenchmarkData {
+  /**
+   * The first expiration date used for generated lots.
+   */
+  static final LocalDate FIRST_DATE = LocalDate.of(2025, 1, 1);
+
+  /**
+   * The number of days expiration dates are spread over.
+   */
+  static final int DAYS = 730;
+
+  /**
+   * The average number of lots per grocery name.
+   */
+  static final int LOTS_PER_NAME = 4;
+
+  private static final String[] UNITS = {"kg", "liters", "amount", "g", "dl"};
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * Retrieves the number of distinct grocery names used for a store of the given size.
+   *
+   * @param lots the number of lots in the store.
+   * @return the number of distinct names.
+   */
+  static int nameCount(int lots) {
+    return Math.max(1, lots / LOTS_PER_NAME);
+  }
+
+  /**
+   * Retrieves the generated name with the given number.
+   *
+   * @param number the number of the name.
+   * @return the grocery name.
+   */
+  static String name(int number) {
+    return "Grocery " + number;
+  }
+
+  /**
+   * Creates a food storage with the given number of lots. Quantities are large, so
+   * benchmarks can remove small amounts many times without emptying a lot.
+   *
+   * @param lots the number of lots.
+   * @param seed the random seed.
+   * @return the new food storage.
+   */
+  static FoodStorage foodStorage(int lots, long seed) {
+    return fill(new FoodStorage(), lots, seed);
+  }
+
+  /**
+   * Fills an empty food storage with the given number of lots, like
+   * {@link #foodStorage(int, long)}.
+   *
+   * @param foodStorage the empty food storage.
+   * @param lots        the number of lots.
+   * @param seed        the random seed.
+   * @param <T>         the type of the food storage.
+   * @return the filled food storage.
+   */
+  static <T extends FoodStorage> T fill(T foodStorage, int lots, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    int names = nameCount(lots);
+    for (int i = 0; i < lots; i++) {
+      int number = i < names ? i : random.nextInt(names);
+      foodStorage.addGrocery(new Grocery(name(number), 1_000_000.0 + random.nextInt(1000),
+          UNITS[number % UNITS.length], FIRST_DATE.plusDays(random.nextInt(DAYS)),
+          1.0 + random.nextInt(100)));
+    }
+    return foodStorage;
+  }
+
+  /**
+   * Creates a cookbook with the given number of recipes, using the grocery names of
+   * a store with the given number of lots as ingredients.
+   *
+   * @param recipes     the number of recipes.
+   * @param ingredients the number of ingredients per recipe.
+   * @param lots        the number of lots in the store the recipes are made for.
+   * @param seed        the random seed.
+   * @return the new cookbook.
+   */
+  static Cookbook cookbook(int recipes, int ingredients, int lots, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    int names = nameCount(lots);
+    Cookbook cookbook = new Cookbook();
+    for (int i = 0; i < recipes; i++) {
+      Recipe recipe = new Recipe("Recipe " + i);
+      recipe.setPortionSize(4);
+      for (int j = 0; j < ingredients; j++) {
+        int number = random.nextInt(names);
+        recipe.addIngredient(name(number), 1.0 + random.nextInt(10),
+            UNITS[number % UNITS.length]);
+      }
+      cookbook.addRecipe(recipe);
+    }
+    return cookbook;
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ntnu.idi.idatt;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@code ConcurrentFoodStorage} with many reading threads and one
+ * writing thread working on the same storage.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class ConcurrentFoodStorageBenchmark {
+  @Param({"10000", "1000000"})
+  public int lots;
+
+  private ConcurrentFoodStorage foodStorage;
+  private int names;
+
+  /**
+   * Creates the food storage once per trial.
+   */
+  @Setup
+  public void setUp() {
+    foodStorage = BenchmarkData.fill(new ConcurrentFoodStorage(), lots, 42);
+    names = BenchmarkData.nameCount(lots);
+  }
+
+  private String randomName() {
+    return BenchmarkData.name(ThreadLocalRandom.current().nextInt(names));
+  }
+
+  private LocalDate randomDate() {
+    return BenchmarkData.FIRST_DATE.plusDays(
+        ThreadLocalRandom.current().nextInt(BenchmarkData.DAYS));
+  }
+
+  @Benchmark
+  @Group("readMostly")
+  @GroupThreads(3)
+  public double getTotalValue() {
+    return foodStorage.getTotalValue(randomDate());
+  }
+
+  @Benchmark
+  @Group("readMostly")
+  @GroupThreads(3)
+  public Grocery getGrocery() {
+    return foodStorage.getGrocery(randomName());
+  }
+
+  @Benchmark
+  @Group("readMostly")
+  @GroupThreads(1)
+  public void removeGroceries() {
+    foodStorage.removeGroceries(randomName(), 0.001);
+  }
+}
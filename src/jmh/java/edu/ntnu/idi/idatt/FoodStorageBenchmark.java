@@ -0,0 +1,81 @@
+package edu.ntnu.idi.idatt;
+
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the lookup, removal, valuation and listing paths of {@code FoodStorage}
+ * at store sizes from a thousand to ten million lots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class FoodStorageBenchmark {
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int lots;
+
+  private FoodStorage foodStorage;
+  private int names;
+
+  /**
+   * Creates the food storage once per trial.
+   */
+  @Setup
+  public void setUp() {
+    foodStorage = BenchmarkData.foodStorage(lots, 42);
+    names = BenchmarkData.nameCount(lots);
+  }
+
+  private String randomName() {
+    return BenchmarkData.name(ThreadLocalRandom.current().nextInt(names));
+  }
+
+  private LocalDate randomDate() {
+    return BenchmarkData.FIRST_DATE.plusDays(
+        ThreadLocalRandom.current().nextInt(BenchmarkData.DAYS));
+  }
+
+  @Benchmark
+  public Grocery getGrocery() {
+    return foodStorage.getGrocery(randomName());
+  }
+
+  @Benchmark
+  public List<Grocery> searchGroceries() {
+    String name = randomName();
+    return foodStorage.searchGroceries(name.substring(0, name.length() - 1),
+        FoodStorage.SEARCH_RESULTS);
+  }
+
+  @Benchmark
+  public void removeGroceries() {
+    foodStorage.removeGroceries(randomName(), 0.001);
+  }
+
+  @Benchmark
+  public double getTotalValue() {
+    return foodStorage.getTotalValue(randomDate());
+  }
+
+  @Benchmark
+  public void listGroceriesPage() {
+    foodStorage.listGroceries(randomDate(), Writer.nullWriter(), 0, 100);
+  }
+}
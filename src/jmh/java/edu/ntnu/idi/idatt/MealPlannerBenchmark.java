@@ -0,0 +1,52 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for planning a week of meals with {@code MealPlanner} at different store and
+ * cookbook sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class MealPlannerBenchmark {
+  @Param({"1000", "10000", "100000"})
+  public int lots;
+
+  @Param({"100", "1000", "5000"})
+  public int recipes;
+
+  @Param({"8"})
+  public int ingredients;
+
+  private MealPlanner planner;
+
+  /**
+   * Creates the food storage, cookbook and planner once per trial.
+   */
+  @Setup
+  public void setUp() {
+    FoodStorage foodStorage = BenchmarkData.foodStorage(lots, 42);
+    Cookbook cookbook = BenchmarkData.cookbook(recipes, ingredients, lots, 7);
+    planner = new MealPlanner(foodStorage, cookbook);
+  }
+
+  @Benchmark
+  public MealPlanner.Plan planWeek() {
+    return planner.plan(BenchmarkData.FIRST_DATE, 7, 4);
+  }
+}
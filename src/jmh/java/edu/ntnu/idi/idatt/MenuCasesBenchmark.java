@@ -0,0 +1,91 @@
+package edu.ntnu.idi.idatt;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the recipe checks in {@code MenuCases} at different store and
+ * cookbook sizes. Console output is discarded while the benchmarks run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class MenuCasesBenchmark {
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int lots;
+
+  @Param({"100", "10000"})
+  public int recipes;
+
+  @Param({"8"})
+  public int ingredients;
+
+  private FoodStorage foodStorage;
+  private Cookbook cookbook;
+  private MenuCases menuCases;
+  private PrintStream console;
+  private int names;
+
+  /**
+   * Creates the food storage, cookbook and menu once per trial.
+   */
+  @Setup
+  public void setUp() {
+    foodStorage = BenchmarkData.foodStorage(lots, 42);
+    cookbook = BenchmarkData.cookbook(recipes, ingredients, lots, 7);
+    menuCases = new MenuCases(foodStorage, cookbook, BenchmarkData.FIRST_DATE, null);
+    names = BenchmarkData.nameCount(lots);
+    console = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  /**
+   * Restores console output after the trial.
+   */
+  @TearDown
+  public void tearDown() {
+    System.setOut(console);
+  }
+
+  @Benchmark
+  public boolean canPrepareRecipe() {
+    return menuCases.canPrepareRecipe(
+        cookbook.getRecipes().get(ThreadLocalRandom.current().nextInt(recipes)));
+  }
+
+  @Benchmark
+  public void suggestRecipes() {
+    menuCases.suggestRecipes();
+  }
+
+  /**
+   * Adds a lot and then suggests recipes, so the cost of keeping the suggestions
+   * up to date after a change is included.
+   */
+  @Benchmark
+  public void addGroceryThenSuggestRecipes() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int number = random.nextInt(names);
+    foodStorage.addGrocery(new Grocery(BenchmarkData.name(number), 1.0, "kg",
+        LocalDate.of(2025, 6, 1), 10.0));
+    menuCases.suggestRecipes();
+  }
+}
@@ -0,0 +1,55 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for scaling the ingredients of a {@code Recipe}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeBenchmark {
+  @Param({"5", "20", "100"})
+  public int ingredients;
+
+  private Recipe recipe;
+
+  /**
+   * Creates the recipe once per trial.
+   */
+  @Setup
+  public void setUp() {
+    recipe = BenchmarkData.cookbook(1, ingredients, 1000, 7).getRecipes().get(0);
+  }
+
+  @Benchmark
+  public List<Grocery> scaleIngredients() {
+    return recipe.scaleIngredients(1 + ThreadLocalRandom.current().nextInt(12));
+  }
+
+  @Benchmark
+  public double scaledView() {
+    ScaledIngredients scaled = recipe.scaled(1 + ThreadLocalRandom.current().nextInt(12));
+    double sum = 0.0;
+    for (int i = 0; i < scaled.size(); i++) {
+      sum += scaled.getQuantity(i);
+    }
+    return sum;
+  }
+}
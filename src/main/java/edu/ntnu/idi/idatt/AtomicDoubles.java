@@ -0,0 +1,51 @@
+package edu.ntnu.idi.idatt;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The {@code AtomicDoubles} class updates elements of {@code double} arrays atomically, so
+ * that running totals can be changed by several threads at once without a lock.
+ */
+final class AtomicDoubles {
+  private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(double[].class);
+
+  private AtomicDoubles() {
+  }
+
+  /**
+   * Atomically adds a value to an array element.
+   *
+   * @param array the array.
+   * @param index the index of the element.
+   * @param value the value to add.
+   */
+  static void add(double[] array, int index, double value) {
+    double current;
+    do {
+      current = (double) ELEMENT.getVolatile(array, index);
+    } while (!ELEMENT.compareAndSet(array, index, current, current + value));
+  }
+
+  /**
+   * Reads an array element, seeing the latest value written by any thread.
+   *
+   * @param array the array.
+   * @param index the index of the element.
+   * @return the value of the element.
+   */
+  static double get(double[] array, int index) {
+    return (double) ELEMENT.getVolatile(array, index);
+  }
+
+  /**
+   * Writes an array element so that other threads see the new value.
+   *
+   * @param array the array.
+   * @param index the index of the element.
+   * @param value the new value.
+   */
+  static void set(double[] array, int index, double value) {
+    ELEMENT.setVolatile(array, index, value);
+  }
+}
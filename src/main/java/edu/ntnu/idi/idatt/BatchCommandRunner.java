@@ -0,0 +1,437 @@
+package edu.ntnu.idi.idatt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code BatchCommandRunner} class runs the menu operations from a stream of commands,
+ * one per line, without prompts or menus, so the application can be driven by a script
+ * or a pipe. For example:
+ *
+ * <pre>
+ * date 2026-10-17
+ * add Milk 1 liter 2026-11-01 10
+ * add "Sliced cheese" 0.4 kg 2026-12-15 120
+ * remove Milk 0.25
+ * recipe Pancakes 2 Milk 0.5 liter Eggs 2 amounts
+ * suggest
+ * list
+ * </pre>
+ *
+ * <p>The commands are:
+ *
+ * <pre>
+ * add &lt;name&gt; &lt;quantity&gt; &lt;unit&gt; &lt;expiration date&gt; &lt;price per unit&gt;
+ * remove &lt;name&gt; &lt;quantity&gt;
+ * delete &lt;name&gt;
+ * list | expired | value
+ * search &lt;name&gt;
+ * date &lt;yyyy-mm-dd&gt;
+ * recipe &lt;name&gt; &lt;portion size&gt; [&lt;ingredient&gt; &lt;quantity&gt; &lt;unit&gt;]...
+ * check &lt;recipe&gt; | show &lt;recipe&gt; | scale &lt;recipe&gt; &lt;portions&gt;
+ * suggest | cookbook
+ * plan &lt;days&gt; &lt;portions per day&gt;
+ * metrics
+ * import &lt;csv file&gt; | export &lt;file&gt;
+ * </pre>
+ *
+ * <p>Words containing spaces are written in double quotes. Blank lines and lines starting
+ * with {@code #} are skipped. A command that fails is reported as {@code Line n: reason},
+ * and the remaining commands still run.
+ *
+ * <p>All output goes through one buffer that is written to the destination a few
+ * kilobytes at a time, so large command files run without waiting on the console.
+ */
+public class BatchCommandRunner {
+  private final FoodStorage foodStorage;
+  private final Cookbook cookbook;
+  private final MenuCases menuCases;
+  private ReportWriter report;
+
+  /**
+   * Constructs a {@code BatchCommandRunner}.
+   *
+   * @param foodStorage the {@code FoodStorage} to run the commands against.
+   * @param cookbook    the {@code Cookbook} to run the commands against.
+   * @param currentDate the current date, until a {@code date} command changes it.
+   */
+  public BatchCommandRunner(FoodStorage foodStorage, Cookbook cookbook,
+      LocalDate currentDate) {
+    this.foodStorage = foodStorage;
+    this.cookbook = cookbook;
+    this.menuCases = new MenuCases(foodStorage, cookbook, currentDate, null);
+  }
+
+  /**
+   * Runs all commands read from a reader.
+   *
+   * @param in  the reader to read commands from. Not closed by this method.
+   * @param out the destination of the output. Flushed, but not closed, when done.
+   * @return the result of the run.
+   * @throws IOException if reading the commands fails.
+   * @throws UncheckedIOException if writing the output fails.
+   */
+  public Result run(BufferedReader in, Appendable out) throws IOException {
+    long start = System.nanoTime();
+    Result result = new Result();
+    report = new ReportWriter(out);
+    try {
+      long lineNumber = 0;
+      String line;
+      while ((line = in.readLine()) != null) {
+        lineNumber++;
+        String trimmed = line.strip();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+          continue;
+        }
+        result.commands++;
+        try {
+          execute(tokenize(trimmed));
+        } catch (UncheckedIOException e) {
+          throw e; // The output can no longer be written
+        } catch (RuntimeException e) {
+          result.failedCommands++;
+          report.append("Line ").append(lineNumber).append(": ")
+              .append(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName())
+              .endLine();
+        }
+      }
+    } finally {
+      report.flush();
+      report = null;
+    }
+    result.elapsedNanos = System.nanoTime() - start;
+    return result;
+  }
+
+  /**
+   * Retrieves the current date, which {@code date} commands change.
+   *
+   * @return the current date.
+   */
+  public LocalDate getCurrentDate() {
+    return menuCases.currentDate;
+  }
+
+  /**
+   * Runs one command.
+   *
+   * @param words the command name and its arguments.
+   * @throws IllegalArgumentException if the command is unknown or its arguments are invalid.
+   */
+  private void execute(List<String> words) {
+    String command = words.get(0).toLowerCase(Locale.ROOT);
+    switch (command) {
+      case "add" -> add(words);
+      case "remove" -> remove(words);
+      case "delete" -> {
+        expectArguments(words, 1, "delete <name>");
+        foodStorage.removeGroceryCompletely(words.get(1));
+        report.line("Grocery " + words.get(1) + " removed from food storage.");
+      }
+      case "list" -> {
+        expectArguments(words, 0, "list");
+        foodStorage.listGroceries(menuCases.currentDate, report);
+      }
+      case "expired" -> {
+        expectArguments(words, 0, "expired");
+        foodStorage.listExpiredGroceries(menuCases.currentDate, report);
+      }
+      case "value" -> {
+        expectArguments(words, 0, "value");
+        report.append("Total value of groceries in storage (excluding expired food): ")
+            .append(menuCases.totalValueNow()).append(" NOK").endLine();
+      }
+      case "search" -> {
+        expectArguments(words, 1, "search <name>");
+        foodStorage.searchGroceryByName(words.get(1), report);
+      }
+      case "date" -> {
+        expectArguments(words, 1, "date <yyyy-mm-dd>");
+        menuCases.setCurrentDate(parseDate(words.get(1)));
+        report.append("Current date updated to: ").append(menuCases.currentDate).endLine();
+      }
+      case "recipe" -> addRecipe(words);
+      case "check" -> {
+        expectArguments(words, 1, "check <recipe>");
+        report.line(menuCases.canPrepareRecipe(findRecipe(words.get(1)))
+            ? "You can prepare this recipe." : "You can't prepare this recipe.");
+      }
+      case "show" -> {
+        expectArguments(words, 1, "show <recipe>");
+        Recipe recipe = findRecipe(words.get(1));
+        report.append("Portion size: ").append(recipe.getPortionSize()).endLine()
+            .append(recipe.getPrettyString());
+      }
+      case "scale" -> scale(words);
+      case "suggest" -> {
+        expectArguments(words, 0, "suggest");
+        suggest();
+      }
+      case "plan" -> {
+        expectArguments(words, 2, "plan <days> <portions per day>");
+        new MealPlanner(foodStorage, cookbook).plan(menuCases.currentDate,
+            parseInteger(words.get(1)), parseInteger(words.get(2))).write(report);
+      }
+      case "metrics" -> {
+        expectArguments(words, 0, "metrics");
+        MetricsRegistry.getDefault().write(report);
+      }
+      case "cookbook" -> {
+        expectArguments(words, 0, "cookbook");
+        for (Recipe recipe : cookbook.getRecipes()) {
+          report.append("- ").append(recipe.getName()).endLine();
+        }
+      }
+      case "import" -> importFile(words);
+      case "export" -> exportFile(words);
+      default -> throw new IllegalArgumentException("Unknown command: " + words.get(0));
+    }
+  }
+
+  private void add(List<String> words) {
+    expectArguments(words, 5, "add <name> <quantity> <unit> <expiration date> <price>");
+    Grocery grocery = MenuCases.createGrocery(words.get(1), parseNumber(words.get(2)),
+        words.get(3), parseDate(words.get(4)), parseNumber(words.get(5)),
+        menuCases.currentDate);
+    foodStorage.addGrocery(grocery);
+    report.append("Grocery added: ").append(grocery.getName()).endLine();
+  }
+
+  private void remove(List<String> words) {
+    expectArguments(words, 2, "remove <name> <quantity>");
+    String name = words.get(1);
+    double amount = parseNumber(words.get(2));
+    // The amount is taken in the unit of the lot that expires soonest, which goes first
+    Grocery first = foodStorage.firstLot(name);
+    if (first == null
+        || menuCases.removeGroceries(name, amount) == FoodStorage.Removal.NOT_FOUND) {
+      throw new IllegalArgumentException("Grocery not found: " + name);
+    }
+    report.append("Removed: ").append(amount).append(" ").append(first.getUnit())
+        .append(" of ").append(name).append(" from food storage.").endLine();
+  }
+
+  private void addRecipe(List<String> words) {
+    if (words.size() < 3 || (words.size() - 3) % 3 != 0) {
+      throw new IllegalArgumentException(
+          "Usage: recipe <name> <portion size> [<ingredient> <quantity> <unit>]...");
+    }
+    String name = words.get(1);
+    if (cookbook.findRecipe(name) != null) {
+      throw new IllegalArgumentException("A recipe named " + name
+          + " already exists in the cookbook.");
+    }
+    Recipe recipe = new Recipe(name);
+    recipe.setPortionSize(parseInteger(words.get(2)));
+    for (int i = 3; i < words.size(); i += 3) {
+      recipe.addIngredient(words.get(i), parseNumber(words.get(i + 1)), words.get(i + 2));
+    }
+    cookbook.addRecipe(recipe);
+    report.append("Recipe added: ").append(recipe.getName()).endLine();
+  }
+
+  private void scale(List<String> words) {
+    expectArguments(words, 2, "scale <recipe> <portions>");
+    Recipe recipe = findRecipe(words.get(1));
+    int portions = parseInteger(words.get(2));
+    report.append("Scaled recipe for ").append(portions).append(" portions of ")
+        .append(recipe.getName()).append(":").endLine();
+    ScaledIngredients scaled = recipe.scaled(portions);
+    for (int i = 0; i < scaled.size(); i++) {
+      report.append("- ").append(scaled.getName(i)).append(": ")
+          .append(scaled.getQuantity(i)).append(" ").append(scaled.getUnit(i)).endLine();
+    }
+  }
+
+  private void suggest() {
+    List<Recipe> suggestedRecipes = menuCases.getSuggestedRecipes();
+    if (suggestedRecipes.isEmpty()) {
+      report.line("No recipes can be prepared with the available ingredients.");
+    } else {
+      report.line("You can prepare the following recipes:");
+      for (Recipe recipe : suggestedRecipes) {
+        report.line(recipe.getName());
+      }
+    }
+  }
+
+  private void importFile(List<String> words) {
+    expectArguments(words, 1, "import <csv file>");
+    GroceryImporter.Result imported;
+    try {
+      imported = new GroceryImporter(foodStorage, menuCases.currentDate,
+          GroceryImporter.DEFAULT_CHUNK_SIZE).importFile(Path.of(words.get(1)));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not read " + words.get(1) + ": "
+          + e.getMessage());
+    }
+    report.append("Imported ").append(imported.getImportedRows()).append(" of ")
+        .append(imported.getRows()).append(" rows.").endLine();
+    for (GroceryImporter.Reject reject : imported.getRejects()) {
+      report.append(reject).endLine();
+    }
+  }
+
+  private void exportFile(List<String> words) {
+    expectArguments(words, 1, "export <file>");
+    Path file = Path.of(words.get(1));
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      foodStorage.listGroceries(menuCases.currentDate, writer);
+    } catch (IOException | UncheckedIOException e) {
+      throw new IllegalArgumentException("Could not write " + file + ": " + e.getMessage());
+    }
+    report.append("Groceries saved to ").append(file).endLine();
+  }
+
+  private Recipe findRecipe(String name) {
+    Recipe recipe = cookbook.findRecipe(name);
+    if (recipe == null) {
+      throw new IllegalArgumentException("Recipe not found in the cookbook: " + name);
+    }
+    return recipe;
+  }
+
+  /**
+   * Checks that a command has the expected number of arguments.
+   *
+   * @param words     the command name and its arguments.
+   * @param arguments the expected number of arguments.
+   * @param usage     how the command is written, for the error message.
+   * @throws IllegalArgumentException if the number of arguments is wrong.
+   */
+  private static void expectArguments(List<String> words, int arguments, String usage) {
+    if (words.size() != arguments + 1) {
+      throw new IllegalArgumentException("Usage: " + usage);
+    }
+  }
+
+  private static double parseNumber(String word) {
+    try {
+      return Double.parseDouble(word);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a number: " + word);
+    }
+  }
+
+  private static int parseInteger(String word) {
+    try {
+      return Integer.parseInt(word);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a whole number: " + word);
+    }
+  }
+
+  private static LocalDate parseDate(String word) {
+    try {
+      return LocalDate.parse(word);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Not a date (yyyy-mm-dd): " + word);
+    }
+  }
+
+  /**
+   * Splits a command line into words at spaces and tabs. A word in double quotes may
+   * contain spaces, and two double quotes inside it stand for one.
+   *
+   * @param line the command line.
+   * @return the words.
+   * @throws IllegalArgumentException if a quoted word is not closed.
+   */
+  static List<String> tokenize(String line) {
+    List<String> words = new ArrayList<>(8);
+    StringBuilder word = new StringBuilder();
+    boolean quoted = false;
+    boolean inWord = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          word.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          word.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+        inWord = true;
+      } else if (c == ' ' || c == '\t') {
+        if (inWord) {
+          words.add(word.toString());
+          word.setLength(0);
+          inWord = false;
+        }
+      } else {
+        word.append(c);
+        inWord = true;
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("Quoted word is not closed.");
+    }
+    if (inWord) {
+      words.add(word.toString());
+    }
+    return words;
+  }
+
+  /**
+   * The outcome of a run.
+   */
+  public static final class Result {
+    private long commands;
+    private long failedCommands;
+    private long elapsedNanos;
+
+    private Result() {
+    }
+
+    /**
+     * Retrieves the number of commands run, not counting blank lines and comments.
+     *
+     * @return the number of commands.
+     */
+    public long getCommands() {
+      return commands;
+    }
+
+    /**
+     * Retrieves the number of commands that failed.
+     *
+     * @return the number of failed commands.
+     */
+    public long getFailedCommands() {
+      return failedCommands;
+    }
+
+    /**
+     * Retrieves the time the run took.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Retrieves the speed of the run.
+     *
+     * @return the number of commands run per second.
+     */
+    public double getCommandsPerSecond() {
+      return elapsedNanos == 0 ? 0.0 : commands * 1e9 / elapsedNanos;
+    }
+  }
+}
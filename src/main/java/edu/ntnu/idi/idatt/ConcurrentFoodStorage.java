@@ -0,0 +1,515 @@
+package edu.ntnu.idi.idatt;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The {@code ConcurrentFoodStorage} class is a {@code FoodStorage} that can be used by many
+ * threads at once. It behaves exactly like {@code FoodStorage}, which remains the class to
+ * use from a single thread.
+ *
+ * <p>All methods are guarded by one {@link StampedLock}. Lookups and valuations, which only
+ * read a few entries of the indexes, use an optimistic read: they run without locking and
+ * are repeated under the read lock only if a write happened at the same time. Listings and
+ * other methods that visit many groceries hold the read lock, so any number of them run in
+ * parallel. Methods that change the storage, including the setters of a stored
+ * {@code Grocery}, hold the write lock.
+ *
+ * <p>{@link #removeGroceries(String, double)} is the exception: when the lot expiring
+ * soonest holds enough, it only holds the read lock, so removals of any names run in
+ * parallel with each other and with readers. The amount is taken from the lot with one
+ * compare-and-set on its quantity, so two removals can never take the same quantity.
+ * A removal that needs more than that lot holds takes the write lock and is made across
+ * the lots like in {@code FoodStorage}. The running totals are updated with atomic
+ * additions. A lot that is used up is left out of lookups and listings at once, and is
+ * unlinked from the indexes by the next thread that gets the write lock, without waiting
+ * for it.
+ *
+ * <p>Such a removal changes several running totals one after another, so the optimistic
+ * reads also check that no such removal started or was in progress during the read: a
+ * valuation never sees a removal half applied, and waits for the removals in progress
+ * only when it overlaps one.
+ *
+ * <p>Listeners are called one at a time and in the order the changes happened. They may
+ * read from and write to the storage from the thread calling them. The events of the
+ * removals made under the read lock are queued before the read lock is released, so they
+ * are always ahead of the events of any later change made under the write lock. They are
+ * then delivered by whichever thread is free to call the listeners, which may be another
+ * thread, shortly after the removal has returned, so removals never wait for each other.
+ * Removals running at the same time took from the same lot, and give the same result
+ * when replayed in any order, so a listener like {@code StorageJournal} can still replay
+ * them exactly.
+ *
+ * <p>The groceries returned by the storage are the stored objects; read them freely, but
+ * change them only through their setters, and not from inside
+ * {@link #forEachGrocery(Consumer)}.
+ */
+public class ConcurrentFoodStorage extends FoodStorage {
+  private final StampedLock lock = new StampedLock();
+
+  /**
+   * Shared by the removals made under the read lock while they update the running
+   * totals, and held exclusively by optimistic reads that could not be validated.
+   */
+  private final StampedLock consumeLock = new StampedLock();
+
+  /**
+   * The number of removals made under the read lock that have started, and that have
+   * finished, updating the running totals. Equal when none is in progress.
+   */
+  private final AtomicLong consumesStarted = new AtomicLong();
+  private final AtomicLong consumesFinished = new AtomicLong();
+
+  /**
+   * Makes sure listeners are called by one thread at a time. Always acquired before
+   * the write lock.
+   */
+  private final ReentrantLock eventLock = new ReentrantLock();
+
+  /**
+   * Lots used up by {@link #removeGroceries(String, double)} that are still in the indexes.
+   */
+  private final Queue<Grocery> usedUp = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The removals made under the read lock whose listeners have not been called yet, in
+   * the order they were queued.
+   */
+  private final Queue<Removed> pendingEvents = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The thread holding the write lock, or {@code null}.
+   */
+  private volatile Thread writer;
+
+  /**
+   * The number of times the writer has entered the write lock. Only used by the writer.
+   */
+  private int writeDepth;
+
+  /**
+   * The stamp of the held write lock. Only used by the writer.
+   */
+  private long writeStamp;
+
+  /**
+   * The thread holding {@link #consumeLock} exclusively, or {@code null}.
+   */
+  private volatile Thread exclusiveReader;
+
+  /**
+   * Constructs an empty {@code ConcurrentFoodStorage}.
+   */
+  public ConcurrentFoodStorage() {
+    super();
+  }
+
+  /**
+   * Acquires the write lock, or enters it again if this thread already holds it.
+   */
+  private void lockWrite() {
+    if (writer == Thread.currentThread()) {
+      writeDepth++;
+      return;
+    }
+    eventLock.lock();
+    long stamp;
+    try {
+      stamp = lock.writeLock();
+    } catch (RuntimeException | Error e) {
+      eventLock.unlock();
+      throw e;
+    }
+    enterWrite(stamp);
+  }
+
+  /**
+   * Records that this thread now holds the write lock, calls the listeners of the queued
+   * removals, which happened before anything this thread changes, and unlinks the used-up
+   * lots.
+   *
+   * @param stamp the stamp of the write lock.
+   */
+  private void enterWrite(long stamp) {
+    writeStamp = stamp;
+    writer = Thread.currentThread();
+    writeDepth = 1;
+    firePending();
+    Grocery grocery;
+    while ((grocery = usedUp.poll()) != null) {
+      if (grocery.getStorage() == this && isUsedUp(grocery)) {
+        removeLot(grocery);
+      }
+    }
+  }
+
+  /**
+   * Leaves the write lock, and releases it when this thread has left it as often as it
+   * entered it.
+   */
+  private void unlockWrite() {
+    if (--writeDepth == 0) {
+      writer = null;
+      lock.unlockWrite(writeStamp);
+      eventLock.unlock();
+      deliverPending();
+    }
+  }
+
+  /**
+   * Calls the listeners of the queued removals, unless another thread is calling
+   * listeners right now, in which case that thread delivers them. Does not wait.
+   */
+  private void deliverPending() {
+    // Checked again after unlocking, for removals queued while the lock was held
+    while (!pendingEvents.isEmpty() && eventLock.tryLock()) {
+      try {
+        firePending();
+      } finally {
+        eventLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Calls the listeners of the queued removals, in order. Must hold {@link #eventLock}.
+   */
+  private void firePending() {
+    Removed removed;
+    while ((removed = pendingEvents.poll()) != null) {
+      fireRemoved(removed.lot, removed.name, removed.amount);
+    }
+  }
+
+  /**
+   * Unlinks the used-up lots if the write lock is free right now. Does not wait.
+   */
+  private void tryRemoveUsedUp() {
+    if (usedUp.isEmpty() || !eventLock.tryLock()) {
+      return;
+    }
+    long stamp = lock.tryWriteLock();
+    if (stamp == 0) {
+      eventLock.unlock();
+      return;
+    }
+    enterWrite(stamp);
+    unlockWrite();
+  }
+
+  /**
+   * Runs a change to the storage under the write lock. Also used to guard other state
+   * that must change together with the storage, such as a shared {@code Cookbook}.
+   *
+   * @param change the change.
+   */
+  void write(Runnable change) {
+    lockWrite();
+    try {
+      change.run();
+    } finally {
+      unlockWrite();
+    }
+  }
+
+  /**
+   * Runs a read under the read lock. A thread holding the write lock reads directly.
+   *
+   * @param reader the read.
+   * @param <T>    the type of the result.
+   * @return the result of the read.
+   */
+  <T> T read(Supplier<T> reader) {
+    if (writer == Thread.currentThread()) {
+      return reader.get();
+    }
+    long stamp = lock.readLock();
+    try {
+      return reader.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Runs a short read optimistically, without locking. If a write, or a removal made
+   * under the read lock, happened during the read, the result is thrown away and the read
+   * is repeated under the read lock once the removals in progress are done.
+   * A read that sees the indexes in the middle of a change may fail with an exception,
+   * which is handled the same way.
+   *
+   * @param reader the read.
+   * @param <T>    the type of the result.
+   * @return the result of the read.
+   */
+  private <T> T readOptimistic(Supplier<T> reader) {
+    Thread current = Thread.currentThread();
+    if (writer == current || exclusiveReader == current) {
+      return reader.get();
+    }
+    long stamp = lock.tryOptimisticRead();
+    // Read in this order, so equal counts mean no removal was in progress
+    long finished = consumesFinished.get();
+    long started = consumesStarted.get();
+    if (stamp != 0 && started == finished) {
+      try {
+        T result = reader.get();
+        if (lock.validate(stamp) && consumesStarted.get() == started) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Saw a change in progress; repeat the read under the locks below
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      // Removals hold the read lock too, so wait for those in progress and keep out others
+      long consuming = consumeLock.writeLock();
+      exclusiveReader = current;
+      try {
+        return reader.get();
+      } finally {
+        exclusiveReader = null;
+        consumeLock.unlockWrite(consuming);
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  void beforeGroceryChange(Grocery grocery) {
+    lockWrite();
+    try {
+      // The grocery may have been removed by another thread before the lock was acquired
+      if (grocery.getStorage() == this) {
+        super.beforeGroceryChange(grocery);
+      }
+    } catch (RuntimeException e) {
+      unlockWrite();
+      throw e;
+    }
+  }
+
+  @Override
+  void afterGroceryChange(Grocery grocery) {
+    try {
+      if (grocery.getStorage() == this) {
+        super.afterGroceryChange(grocery);
+      }
+    } finally {
+      unlockWrite();
+    }
+  }
+
+  @Override
+  void forEachGrocery(Consumer<Grocery> action) {
+    read(() -> {
+      super.forEachGrocery(action);
+      return null;
+    });
+  }
+
+  @Override
+  double getAvailableBaseQuantity(int nameId, int dimension) {
+    return readOptimistic(() -> super.getAvailableBaseQuantity(nameId, dimension));
+  }
+
+  @Override
+  public void addListener(FoodStorageListener listener) {
+    write(() -> super.addListener(listener));
+  }
+
+  @Override
+  public void removeListener(FoodStorageListener listener) {
+    write(() -> super.removeListener(listener));
+  }
+
+  @Override
+  public List<Grocery> getGroceries() {
+    return read(() -> super.getGroceries().stream()
+        .filter(grocery -> !isUsedUp(grocery))
+        .toList());
+  }
+
+  @Override
+  public void addGrocery(Grocery grocery) {
+    write(() -> super.addGrocery(grocery));
+  }
+
+  @Override
+  public void addGroceries(Collection<Grocery> groceries) {
+    write(() -> super.addGroceries(groceries));
+  }
+
+  /**
+   * Removes a specific quantity of a grocery from the food storage, like
+   * {@link FoodStorage#tryRemoveGroceries(String, double)}, without blocking other
+   * removals.
+   *
+   * @param name   the name of the grocery to remove.
+   * @param amount the quantity to remove. Must be greater than 0.
+   * @return {@link FoodStorage.Removal#REMOVED} if the quantity was removed, otherwise the
+   *     reason nothing was changed.
+   * @throws IllegalArgumentException if {@code amount} is less than or equal to 0.
+   */
+  @Override
+  public Removal tryRemoveGroceries(String name, double amount) {
+    if (amount <= 0) {
+      throw new IllegalArgumentException("Quantity to remove must be greater than 0.");
+    }
+    if (writer == Thread.currentThread()) {
+      return super.tryRemoveGroceries(name, amount);
+    }
+    return consume(name, amount);
+  }
+
+  /**
+   * Takes a quantity from the lot of a name that expires soonest, under the read lock.
+   * If that lot holds too little, the removal is made across lots under the write lock.
+   *
+   * @param name   the name of the grocery to remove.
+   * @param amount the quantity to remove.
+   * @return the outcome of the removal.
+   */
+  private Removal consume(String name, double amount) {
+    long start = System.nanoTime();
+    Grocery first;
+    double remaining = -1.0;
+    long stamp = lock.readLock();
+    try {
+      first = firstLot(name);
+      if (first != null) {
+        long consuming = consumeLock.readLock();
+        consumesStarted.incrementAndGet();
+        try {
+          remaining = first.consume(amount);
+          if (remaining >= 0) {
+            consumed(first, amount);
+          }
+        } finally {
+          consumesFinished.incrementAndGet();
+          consumeLock.unlockRead(consuming);
+        }
+        // Queued under the read lock, so ahead of the events of any later write
+        if (remaining >= 0 && hasListeners()) {
+          pendingEvents.add(new Removed(first, name, amount));
+        }
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+
+    if (first == null) {
+      recordRemoval(start, false);
+      return Removal.NOT_FOUND;
+    }
+    if (remaining < 0) {
+      // The first lot holds too little or is used up, so take from the next ones as well,
+      // which records the removal itself
+      lockWrite();
+      try {
+        return super.tryRemoveGroceries(name, amount);
+      } finally {
+        unlockWrite();
+      }
+    }
+    deliverPending();
+    if (remaining == 0) {
+      usedUp.add(first);
+      tryRemoveUsedUp();
+    }
+    recordRemoval(start, true);
+    return Removal.REMOVED;
+  }
+
+  @Override
+  public boolean removeGroceryCompletely(String name) {
+    boolean[] removed = new boolean[1];
+    write(() -> removed[0] = super.removeGroceryCompletely(name));
+    return removed[0];
+  }
+
+  @Override
+  public void listGroceries(LocalDate currentDate, Appendable out, int offset, int limit) {
+    read(() -> {
+      super.listGroceries(currentDate, out, offset, limit);
+      return null;
+    });
+  }
+
+  @Override
+  public void listExpiredGroceries(LocalDate currentDate, Appendable out, int offset,
+      int limit) {
+    read(() -> {
+      super.listExpiredGroceries(currentDate, out, offset, limit);
+      return null;
+    });
+  }
+
+  @Override
+  public void searchGroceryByName(String name, Appendable out, int offset, int limit) {
+    read(() -> {
+      super.searchGroceryByName(name, out, offset, limit);
+      return null;
+    });
+  }
+
+  @Override
+  public List<Grocery> searchGroceries(String query, int limit) {
+    return read(() -> super.searchGroceries(query, limit));
+  }
+
+  @Override
+  public void setCurrentDate(LocalDate currentDate) {
+    write(() -> super.setCurrentDate(currentDate));
+  }
+
+  @Override
+  public double getTotalValue(LocalDate currentDate) {
+    return readOptimistic(() -> super.getTotalValue(currentDate));
+  }
+
+  @Override
+  public double getExpiredValue(LocalDate currentDate) {
+    return readOptimistic(() -> super.getExpiredValue(currentDate));
+  }
+
+  @Override
+  public double getValueExpiringBetween(LocalDate from, LocalDate to) {
+    return readOptimistic(() -> super.getValueExpiringBetween(from, to));
+  }
+
+  @Override
+  public Grocery getGrocery(String name) {
+    return readOptimistic(() -> super.getGrocery(name));
+  }
+
+  @Override
+  public double getAvailableQuantity(String name, Unit unit) {
+    return readOptimistic(() -> super.getAvailableQuantity(name, unit));
+  }
+
+  /**
+   * A removal made under the read lock, waiting for its listeners to be called.
+   */
+  private static final class Removed {
+    private final Grocery lot;
+    private final String name;
+    private final double amount;
+
+    private Removed(Grocery lot, String name, double amount) {
+      this.lot = lot;
+      this.name = name;
+      this.amount = amount;
+    }
+  }
+}
@@ -1,7 +1,10 @@
 package edu.ntnu.idi.idatt;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * The {@code Cookbook} class represents a collection of recipes. It provides functionality
@@ -13,11 +16,23 @@ public class Cookbook {
    */
   private final List<Recipe> recipes;
 
+  /**
+   * Index from case-folded recipe name to the recipe with that name.
+   */
+  private final Map<String, Recipe> recipesByName;
+
+  /**
+   * The listeners that are told when recipes are added or changed.
+   */
+  private final List<CookbookListener> listeners;
+
   /**
    * Constructs an empty {@code Cookbook} with no recipes.
    */
   public Cookbook() {
     this.recipes = new ArrayList<>();
+    this.recipesByName = new HashMap<>();
+    this.listeners = new ArrayList<>();
   }
 
   /**
@@ -33,8 +48,75 @@ public class Cookbook {
    * Adds a new recipe to the cookbook.
    *
    * @param recipe the {@code Recipe} to add to the cookbook. Must not be {@code null}.
+   * @throws IllegalArgumentException if the recipe is already in a cookbook, or if this
+   *                                  cookbook already has a recipe with the same name.
    */
   public void addRecipe(Recipe recipe) {
+    if (recipe.getCookbook() != null) {
+      throw new IllegalArgumentException("Recipe is already in a cookbook");
+    }
+    String key = nameKey(recipe.getName());
+    if (recipesByName.containsKey(key)) {
+      throw new IllegalArgumentException("A recipe named \"" + recipe.getName()
+          + "\" already exists in the cookbook");
+    }
+    recipe.setCookbook(this);
     recipes.add(recipe);
+    recipesByName.put(key, recipe);
+    for (CookbookListener listener : listeners) {
+      listener.recipeAdded(recipe);
+    }
+  }
+
+  /**
+   * Finds a recipe in the cookbook by its name, ignoring case.
+   *
+   * @param name the name of the recipe to find.
+   * @return the {@code Recipe} if found; {@code null} otherwise.
+   */
+  public Recipe findRecipe(String name) {
+    if (name == null) {
+      return null;
+    }
+    return recipesByName.get(nameKey(name));
+  }
+
+  /**
+   * Folds a recipe name into the key used by the name index.
+   *
+   * @param name the recipe name.
+   * @return the case-folded name.
+   */
+  private static String nameKey(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Registers a listener that is told when recipes are added or changed.
+   *
+   * @param listener the listener to add. Must not be {@code null}.
+   */
+  public void addListener(CookbookListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener, so it is no longer told about changes.
+   *
+   * @param listener the listener to remove.
+   */
+  public void removeListener(CookbookListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Called by a recipe in this cookbook after it has changed.
+   *
+   * @param recipe the changed recipe.
+   */
+  void recipeChanged(Recipe recipe) {
+    for (CookbookListener listener : listeners) {
+      listener.recipeChanged(recipe);
+    }
   }
 }
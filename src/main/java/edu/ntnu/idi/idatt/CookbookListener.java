@@ -0,0 +1,27 @@
+package edu.ntnu.idi.idatt;
+
+/**
+ * The {@code CookbookListener} interface is implemented by classes that want to be
+ * told when the recipes in a {@code Cookbook} change.
+ * All methods have empty default implementations, so a listener only needs to
+ * override the events it cares about.
+ */
+public interface CookbookListener {
+
+  /**
+   * Called after a recipe has been added to the cookbook.
+   *
+   * @param recipe the added recipe.
+   */
+  default void recipeAdded(Recipe recipe) {
+  }
+
+  /**
+   * Called after a recipe in the cookbook has changed, for example when an
+   * ingredient has been added to it or its portion size has been changed.
+   *
+   * @param recipe the changed recipe.
+   */
+  default void recipeChanged(Recipe recipe) {
+  }
+}
@@ -0,0 +1,406 @@
+package edu.ntnu.idi.idatt;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The {@code ExpirationValueTree} class keeps the total value of groceries per expiration
+ * day in a Fenwick tree (binary indexed tree). This makes it possible to sum the value
+ * expiring before a date, or between two dates, in logarithmic time.
+ * The range of days covered by the tree grows automatically when needed.
+ *
+ * <p>The tree can also follow a current day, like a timing wheel with one bucket per day.
+ * It keeps a running total of the value expiring before that day, which every change
+ * updates, so the expired value on the current day is read without a tree walk. When the
+ * current day moves, the buckets of the days passed over are added to or taken from the
+ * running total.
+ *
+ * <p>The tree covers at most {@value #MAX_CAPACITY} days. Days outside that range, such as
+ * dates far in the future, are kept one by one in a sorted map instead, so an unusual date
+ * never makes the tree allocate more. Their sums are read from a second, sparse Fenwick tree
+ * over every possible epoch day, whose nodes are created only along the paths of the days
+ * actually used, so summing them is logarithmic too.
+ */
+class ExpirationValueTree {
+  /**
+   * The number of days covered by a new tree.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * The largest number of days passed over one bucket at a time when the current day
+   * moves. Longer jumps are read from the tree.
+   */
+  private static final int MAX_DAYS_WALKED = 64;
+
+  /**
+   * The largest number of days covered by the tree, about 45 years.
+   */
+  private static final int MAX_CAPACITY = 1 << 14;
+
+  /**
+   * The epoch day before {@link LocalDate#MIN}, so every date has a positive position in
+   * {@link #farTree}.
+   */
+  private static final long FAR_ORIGIN = LocalDate.MIN.toEpochDay() - 1;
+
+  /**
+   * The number of positions in {@link #farTree}, a power of two above the number of dates.
+   */
+  private static final long FAR_SIZE =
+      Long.highestOneBit(LocalDate.MAX.toEpochDay() - FAR_ORIGIN) << 1;
+
+  /**
+   * The epoch day stored in slot 0.
+   */
+  private long firstDay;
+
+  /**
+   * The value stored for each day, relative to {@link #firstDay}.
+   * Used to rebuild the tree when the covered range of days grows.
+   */
+  private double[] values;
+
+  /**
+   * The Fenwick tree over {@link #values}, 1-based.
+   */
+  private double[] tree;
+
+  /**
+   * The value of each day outside the range covered by the tree, in an array of one so it
+   * can be updated atomically.
+   */
+  private NavigableMap<Long, double[]> farValues;
+
+  /**
+   * The sparse Fenwick tree over {@link #farValues}, by position from {@link #FAR_ORIGIN}.
+   * Only the nodes on the update paths of the far days are present.
+   */
+  private Map<Long, double[]> farTree;
+
+  /**
+   * The total value of all days, kept in an array so it can be updated atomically.
+   */
+  private double[] total;
+
+  /**
+   * The epoch day followed as the current day, or {@code Long.MIN_VALUE} if none is.
+   */
+  private long currentDay = Long.MIN_VALUE;
+
+  /**
+   * The total value expiring before {@link #currentDay}, kept in an array so it can be
+   * updated atomically.
+   */
+  private double[] expiredTotal;
+
+  /**
+   * Constructs an empty {@code ExpirationValueTree}.
+   */
+  ExpirationValueTree() {
+    clear();
+  }
+
+  /**
+   * Removes all values from the tree.
+   */
+  void clear() {
+    this.firstDay = Long.MIN_VALUE;
+    this.values = new double[INITIAL_CAPACITY];
+    this.tree = new double[INITIAL_CAPACITY + 1];
+    this.farValues = new TreeMap<>();
+    this.farTree = new HashMap<>();
+    this.total = new double[1];
+    this.expiredTotal = new double[1];
+  }
+
+  /**
+   * Adds a value to the given expiration date. Use a negative value to subtract.
+   *
+   * @param date  the expiration date.
+   * @param value the value to add.
+   */
+  void add(LocalDate date, double value) {
+    total[0] += value;
+    if (date.toEpochDay() < currentDay) {
+      expiredTotal[0] += value;
+    }
+    int slot = slotFor(date.toEpochDay());
+    if (slot < 0) {
+      farValues.computeIfAbsent(date.toEpochDay(), day -> new double[1])[0] += value;
+      addFar(date.toEpochDay(), value);
+      return;
+    }
+    values[slot] += value;
+    for (int i = slot + 1; i < tree.length; i += i & -i) {
+      tree[i] += value;
+    }
+  }
+
+  /**
+   * Adds a value to the given expiration date atomically, so several threads can add at
+   * the same time. The date must already be covered by the tree, which is the case for the
+   * expiration date of any grocery whose value has been added. Must not be called at the
+   * same time as the other changing methods.
+   *
+   * @param date  the expiration date, already covered by the tree.
+   * @param value the value to add.
+   */
+  void addConcurrently(LocalDate date, double value) {
+    long day = date.toEpochDay();
+    AtomicDoubles.add(total, 0, value);
+    if (day < currentDay) {
+      AtomicDoubles.add(expiredTotal, 0, value);
+    }
+    if (!covers(day)) {
+      AtomicDoubles.add(farValues.get(day), 0, value);
+      // The nodes on the path of a day already added are all present
+      for (long i = day - FAR_ORIGIN; i <= FAR_SIZE; i += i & -i) {
+        AtomicDoubles.add(farTree.get(i), 0, value);
+      }
+      return;
+    }
+    int slot = (int) (day - firstDay);
+    AtomicDoubles.add(values, slot, value);
+    for (int i = slot + 1; i < tree.length; i += i & -i) {
+      AtomicDoubles.add(tree, i, value);
+    }
+  }
+
+  /**
+   * Sets the value of the given expiration date to exactly zero.
+   * Used when the last lot expiring on a date is removed, so rounding errors
+   * from earlier additions and subtractions do not stay behind.
+   *
+   * @param date the expiration date.
+   */
+  void reset(LocalDate date) {
+    long day = date.toEpochDay();
+    if (covers(day)) {
+      int slot = (int) (day - firstDay);
+      if (values[slot] != 0.0) {
+        add(date, -values[slot]);
+      }
+      return;
+    }
+    double[] far = farValues.get(day);
+    if (far != null) {
+      add(date, -far[0]);
+      farValues.remove(day);
+      if (farValues.isEmpty()) {
+        farTree.clear();
+      }
+    }
+  }
+
+  /**
+   * Retrieves the total value of all expiration dates.
+   *
+   * @return the total value.
+   */
+  double getTotal() {
+    return total[0];
+  }
+
+  /**
+   * Sets the current day. The value expiring before it is then kept up to date, and read
+   * by {@link #valueBefore(LocalDate)} for that day without a tree walk.
+   *
+   * @param date the current date.
+   */
+  void setCurrentDay(LocalDate date) {
+    long day = date.toEpochDay();
+    if (currentDay == Long.MIN_VALUE || Math.abs(day - currentDay) > MAX_DAYS_WALKED) {
+      expiredTotal[0] = sumBefore(day);
+    } else {
+      // Move the boundary one day bucket at a time
+      for (long d = currentDay; d < day; d++) {
+        expiredTotal[0] += valueOn(d);
+      }
+      for (long d = day; d < currentDay; d++) {
+        expiredTotal[0] -= valueOn(d);
+      }
+    }
+    currentDay = day;
+  }
+
+  /**
+   * Retrieves the total value of groceries expiring strictly before the given date.
+   *
+   * @param date the date.
+   * @return the value expiring before {@code date}.
+   */
+  double valueBefore(LocalDate date) {
+    return valueBefore(date.toEpochDay());
+  }
+
+  /**
+   * Retrieves the total value of groceries expiring strictly before an epoch day.
+   *
+   * @param day the epoch day, which may be one past {@link LocalDate#MAX}.
+   * @return the value expiring before {@code day}.
+   */
+  private double valueBefore(long day) {
+    if (day == currentDay) {
+      return expiredTotal[0];
+    }
+    return sumBefore(day);
+  }
+
+  /**
+   * Sums the value of groceries expiring strictly before an epoch day, using the trees.
+   *
+   * @param day the epoch day.
+   * @return the value expiring before {@code day}.
+   */
+  private double sumBefore(long day) {
+    double sum = 0.0;
+    if (firstDay != Long.MIN_VALUE && day > firstDay) {
+      sum = prefixSum((int) Math.min(day - firstDay, values.length));
+    }
+    if (!farTree.isEmpty()) {
+      for (long i = Math.min(day - FAR_ORIGIN - 1, FAR_SIZE); i > 0; i -= i & -i) {
+        double[] node = farTree.get(i);
+        if (node != null) {
+          sum += node[0];
+        }
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Retrieves the total value of groceries expiring between two dates, both inclusive.
+   *
+   * @param from the first date.
+   * @param to   the last date.
+   * @return the value expiring from {@code from} to {@code to}.
+   */
+  double valueBetween(LocalDate from, LocalDate to) {
+    if (to.isBefore(from)) {
+      return 0.0;
+    }
+    // The day after the last is only an epoch day, which exists even after LocalDate.MAX
+    return valueBefore(to.toEpochDay() + 1) - valueBefore(from.toEpochDay());
+  }
+
+  /**
+   * Retrieves the value of one day bucket.
+   *
+   * @param day the epoch day.
+   * @return the value expiring on {@code day}.
+   */
+  private double valueOn(long day) {
+    if (covers(day)) {
+      return values[(int) (day - firstDay)];
+    }
+    double[] far = farValues.get(day);
+    return far == null ? 0.0 : far[0];
+  }
+
+  /**
+   * Adds a value to a far day in the sparse tree, creating the nodes on its path.
+   *
+   * @param day   the epoch day, outside the range covered by the tree.
+   * @param value the value to add.
+   */
+  private void addFar(long day, double value) {
+    for (long i = day - FAR_ORIGIN; i <= FAR_SIZE; i += i & -i) {
+      farTree.computeIfAbsent(i, position -> new double[1])[0] += value;
+    }
+  }
+
+  /**
+   * Checks if an epoch day is in the range covered by the tree.
+   *
+   * @param day the epoch day.
+   * @return {@code true} if the day has a slot in the tree.
+   */
+  private boolean covers(long day) {
+    return firstDay != Long.MIN_VALUE && day >= firstDay && day - firstDay < values.length;
+  }
+
+  /**
+   * Sums the values of the first {@code count} slots.
+   *
+   * @param count the number of slots to sum.
+   * @return the sum of the slots.
+   */
+  private double prefixSum(int count) {
+    double sum = 0.0;
+    for (int i = count; i > 0; i -= i & -i) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Finds the slot for an epoch day, growing the covered range of days if needed.
+   *
+   * @param day the epoch day.
+   * @return the slot index of the day, or -1 if the day is too far from the covered range
+   *     and is kept in {@link #farValues} instead.
+   */
+  private int slotFor(long day) {
+    if (firstDay == Long.MIN_VALUE) {
+      firstDay = day - values.length / 2;
+    }
+    if (!covers(day) && !grow(day)) {
+      return -1;
+    }
+    return (int) (day - firstDay);
+  }
+
+  /**
+   * Doubles the covered range of days until it includes the given day,
+   * and rebuilds the tree, unless that would cover more than {@value #MAX_CAPACITY} days.
+   *
+   * @param day the epoch day that must be covered.
+   * @return {@code true} if the day is now covered.
+   */
+  private boolean grow(long day) {
+    long newFirstDay = firstDay;
+    int capacity = values.length;
+    while (day < newFirstDay || day - newFirstDay >= capacity) {
+      if (capacity >= MAX_CAPACITY) {
+        return false;
+      }
+      if (day < newFirstDay) {
+        newFirstDay -= capacity;
+      }
+      capacity *= 2;
+    }
+
+    double[] newValues = new double[capacity];
+    System.arraycopy(values, 0, newValues, (int) (firstDay - newFirstDay), values.length);
+    // Days kept outside the old range move into the tree once it covers them
+    NavigableMap<Long, double[]> nowCovered =
+        farValues.subMap(newFirstDay, true, newFirstDay + capacity, false);
+    for (Map.Entry<Long, double[]> entry : nowCovered.entrySet()) {
+      newValues[(int) (entry.getKey() - newFirstDay)] += entry.getValue()[0];
+      addFar(entry.getKey(), -entry.getValue()[0]);
+    }
+    nowCovered.clear();
+    if (farValues.isEmpty()) {
+      farTree.clear();
+    }
+
+    // Build the tree in linear time by pushing each node's sum to its parent
+    double[] newTree = new double[capacity + 1];
+    System.arraycopy(newValues, 0, newTree, 1, capacity);
+    for (int i = 1; i <= capacity; i++) {
+      int parent = i + (i & -i);
+      if (parent <= capacity) {
+        newTree[parent] += newTree[i];
+      }
+    }
+
+    this.firstDay = newFirstDay;
+    this.values = newValues;
+    this.tree = newTree;
+    return true;
+  }
+}
@@ -2,8 +2,18 @@ package edu.ntnu.idi.idatt;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 /**
  * The {@code FoodStorage} class manages a collection of groceries.
@@ -12,128 +22,942 @@ import java.util.List;
  */
 public class FoodStorage {
   /**
-   * The list of groceries stored in the food storage system.
+   * The number of names whose lots are listed when a search finds no exact match.
    */
-  private final List<Grocery> groceries;
+  static final int SEARCH_RESULTS = 10;
+
+  /**
+   * How long the changes to a storage take, see {@link MetricsRegistry}.
+   */
+  private static final LatencyHistogram ADD_GROCERY_LATENCY =
+      MetricsRegistry.getDefault().histogram("FoodStorage.addGrocery");
+  private static final LatencyHistogram ADD_GROCERIES_LATENCY =
+      MetricsRegistry.getDefault().histogram("FoodStorage.addGroceries");
+  private static final LatencyHistogram REMOVE_GROCERIES_LATENCY =
+      MetricsRegistry.getDefault().histogram("FoodStorage.removeGroceries");
+  private static final LatencyHistogram REMOVE_COMPLETELY_LATENCY =
+      MetricsRegistry.getDefault().histogram("FoodStorage.removeGroceryCompletely");
+
+  /**
+   * The number of removals refused because too little of the grocery was stored.
+   */
+  private static final MetricsRegistry.Counter REFUSED_REMOVALS =
+      MetricsRegistry.getDefault().counter("FoodStorage.removeGroceries.refused");
+
+  /**
+   * The groceries stored in the food storage system, in the order they were added.
+   * Lots are kept as {@code Grocery} objects rather than in columns of primitives: totals
+   * and listings are answered by the expiration index, the value tree and the per-name
+   * totals below, so no operation scans every lot.
+   */
+  private final Set<Grocery> groceries;
+
+  /**
+   * The slot of each grocery name with lots in the storage, indexing the per-name data
+   * below. Slots are dense and local to this storage, so the per-name data grows with the
+   * names held here rather than with every name id (see {@link IngredientSymbols}).
+   */
+  private final NameSlots nameSlots;
+
+  /**
+   * Index from name slot to all lots with that name, in insertion order, or {@code null}
+   * for free slots. Kept in sync with {@link #groceries} so that name-based lookups avoid a
+   * full scan. The lots are linked hash sets, so a used-up lot is removed in constant time
+   * while the rest keep their order.
+   */
+  private final List<Set<Grocery>> groceriesByName;
+
+  /**
+   * The lots of each name, indexed by name slot like {@link #groceriesByName}, in a heap
+   * with the lot expiring soonest first, so removals take from the oldest lots first.
+   */
+  private final List<LotHeap> heapsByName;
+
+  /**
+   * The number of groceries added to the storage so far, see {@link Grocery#getSequence()}.
+   */
+  private long addedCount;
+
+  /**
+   * Index of the names in {@link #groceriesByName} for searching by part of a name.
+   */
+  private final GroceryNameIndex nameIndex;
+
+  /**
+   * The number of distinct names with lots in the storage.
+   */
+  private int nameCount;
+
+  /**
+   * Index from expiration date to all lots expiring on that date, ordered by date.
+   * A grocery is expired on a date if it expires strictly before that date, so the
+   * expired lots are a head range of this map and the non-expired lots a tail range.
+   */
+  private final NavigableMap<LocalDate, Set<Grocery>> groceriesByExpiration;
+
+  /**
+   * Running total of the value of the stored lots per expiration date.
+   */
+  private final ExpirationValueTree valueByExpiration;
+
+  /**
+   * Total quantity available of each grocery, summed over all lots and indexed by name
+   * slot like {@link #groceriesByName}. Each entry holds the quantity per unit dimension,
+   * converted to the base unit of that dimension (see {@link Unit}), or is {@code null}
+   * for free slots.
+   */
+  private double[][] availableByName;
+
+  /**
+   * The listeners that are told when the contents of the storage change.
+   */
+  private final List<FoodStorageListener> listeners;
 
   /**
    * Constructs an empty {@code FoodStorage}.
    */
   public FoodStorage() {
-    this.groceries = new ArrayList<>();
+    this.groceries = new LinkedHashSet<>();
+    this.nameSlots = new NameSlots();
+    this.groceriesByName = new ArrayList<>();
+    this.heapsByName = new ArrayList<>();
+    this.nameIndex = new GroceryNameIndex();
+    this.groceriesByExpiration = new TreeMap<>();
+    this.valueByExpiration = new ExpirationValueTree();
+    this.availableByName = new double[0][];
+    this.listeners = new ArrayList<>();
+  }
+
+  /**
+   * Retrieves all lots with the given name, ignoring case.
+   *
+   * @param name the name of the grocery.
+   * @return the lots with the given name in insertion order, or an empty set if there are
+   *     none.
+   */
+  Set<Grocery> lotsNamed(String name) {
+    Set<Grocery> lots = lots(IngredientSymbols.find(name));
+    return lots == null ? Set.of() : lots;
+  }
+
+  /**
+   * Retrieves all lots with a name id.
+   *
+   * @param nameId the id of the name, or {@link IngredientSymbols#NONE}.
+   * @return the lots with the name, or {@code null} if there are none.
+   */
+  private Set<Grocery> lots(int nameId) {
+    int slot = nameSlots.get(nameId);
+    return slot == NameSlots.NONE ? null : groceriesByName.get(slot);
+  }
+
+  /**
+   * Retrieves the slot of a grocery's name, giving the name a slot with no lots if it has
+   * none.
+   *
+   * @param grocery the grocery.
+   * @return the slot of the name.
+   */
+  private int slotForAdding(Grocery grocery) {
+    int nameId = grocery.getNameId();
+    int slot = nameSlots.get(nameId);
+    if (slot != NameSlots.NONE) {
+      return slot;
+    }
+    slot = nameSlots.add(nameId);
+    if (slot == groceriesByName.size()) {
+      groceriesByName.add(null);
+      heapsByName.add(null);
+      availableByName = Arrays.copyOf(availableByName,
+          Math.max(slot + 1, availableByName.length * 2));
+    }
+    groceriesByName.set(slot, new LinkedHashSet<>());
+    heapsByName.set(slot, new LotHeap());
+    nameIndex.add(grocery.getSymbol());
+    nameCount++;
+    return slot;
+  }
+
+  /**
+   * Adds a lot to the lots of its name, and gives it its place in the removal order.
+   *
+   * @param grocery the lot.
+   */
+  private void addLot(Grocery grocery) {
+    int slot = slotForAdding(grocery);
+    groceriesByName.get(slot).add(grocery);
+    heapsByName.get(slot).add(grocery);
+  }
+
+  /**
+   * Retrieves the lot of a name that expires soonest, which is the next to be removed
+   * from. It may be used up, see {@link #isUsedUp(Grocery)}.
+   *
+   * @param name the name of the grocery, ignoring case.
+   * @return the lot, or {@code null} if there are no lots with the name.
+   */
+  Grocery firstLot(String name) {
+    int slot = nameSlots.get(IngredientSymbols.find(name));
+    return slot == NameSlots.NONE ? null : heapsByName.get(slot).peek();
+  }
+
+  /**
+   * Forgets all lots and the available quantity of a name id.
+   *
+   * @param nameId the id of the name.
+   */
+  private void forgetName(int nameId) {
+    int slot = nameSlots.get(nameId);
+    groceriesByName.set(slot, null);
+    heapsByName.set(slot, null);
+    availableByName[slot] = null;
+    nameSlots.remove(nameId);
+    nameIndex.remove(nameId);
+    nameCount--;
+  }
+
+  /**
+   * Adds a grocery to the indexes that depend on its mutable fields.
+   *
+   * @param grocery the stored grocery.
+   */
+  private void index(Grocery grocery) {
+    groceriesByExpiration.computeIfAbsent(grocery.getExpirationDate(),
+        date -> new LinkedHashSet<>()).add(grocery);
+    valueByExpiration.add(grocery.getExpirationDate(), grocery.getTotalValue());
+    addAvailable(grocery, grocery.getQuantity());
+  }
+
+  /**
+   * Removes a grocery from the indexes that depend on its mutable fields.
+   *
+   * @param grocery the stored grocery.
+   */
+  private void unindex(Grocery grocery) {
+    LocalDate expirationDate = grocery.getExpirationDate();
+    Set<Grocery> sameDate = groceriesByExpiration.get(expirationDate);
+    sameDate.remove(grocery);
+    if (sameDate.isEmpty()) {
+      groceriesByExpiration.remove(expirationDate);
+      valueByExpiration.reset(expirationDate);
+      if (groceriesByExpiration.isEmpty()) {
+        valueByExpiration.clear();
+      }
+    } else {
+      valueByExpiration.add(expirationDate, -grocery.getTotalValue());
+    }
+    addAvailable(grocery, -grocery.getQuantity());
+  }
+
+  /**
+   * Adds a quantity of a grocery to the available quantity of its name.
+   *
+   * @param grocery  the grocery.
+   * @param quantity the quantity to add, in the grocery's unit. Negative to subtract.
+   */
+  private void addAvailable(Grocery grocery, double quantity) {
+    int slot = slotForAdding(grocery);
+    Unit unit = grocery.getMeasurementUnit();
+    double[] available = availableByName[slot];
+    if (available == null || available.length <= unit.getDimension()) {
+      double[] grown = new double[Unit.dimensionCount()];
+      if (available != null) {
+        System.arraycopy(available, 0, grown, 0, available.length);
+      }
+      available = grown;
+      availableByName[slot] = available;
+    }
+    available[unit.getDimension()] += unit.toBase(quantity);
+  }
+
+  /**
+   * Called by a stored grocery right before one of its indexed fields changes.
+   *
+   * @param grocery the grocery about to change.
+   */
+  void beforeGroceryChange(Grocery grocery) {
+    unindex(grocery);
+  }
+
+  /**
+   * Called by a stored grocery right after one of its indexed fields has changed.
+   *
+   * @param grocery the grocery that changed.
+   */
+  void afterGroceryChange(Grocery grocery) {
+    index(grocery);
+    heapsByName.get(nameSlots.get(grocery.getNameId())).update(grocery);
+    availabilityChanged(grocery.getNameId());
+  }
+
+  /**
+   * Performs an action for every stored grocery. Lots with the same name are visited
+   * in the order they were added, so adding the groceries again in the visited order
+   * gives a storage that behaves the same.
+   *
+   * @param action the action to perform.
+   */
+  void forEachGrocery(Consumer<Grocery> action) {
+    for (Set<Grocery> lots : groceriesByName) {
+      if (lots == null) {
+        continue;
+      }
+      for (Grocery grocery : lots) {
+        if (!isUsedUp(grocery)) {
+          action.accept(grocery);
+        }
+      }
+    }
+  }
+
+  /**
+   * Registers a listener that is told when the contents of the storage change.
+   *
+   * @param listener the listener to add. Must not be {@code null}.
+   */
+  public void addListener(FoodStorageListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener, so it is no longer told about changes.
+   *
+   * @param listener the listener to remove.
+   */
+  public void removeListener(FoodStorageListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Tells the listeners that the available quantity of a grocery has changed.
+   *
+   * @param nameId the id of the grocery's name.
+   */
+  private void availabilityChanged(int nameId) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    for (FoodStorageListener listener : listeners) {
+      listener.availabilityChanged(nameId);
+    }
+  }
+
+  /**
+   * Detaches a removed grocery from the indexes and from this storage.
+   *
+   * @param grocery the grocery being removed.
+   */
+  private void detach(Grocery grocery) {
+    unindex(grocery);
+    groceries.remove(grocery);
+    grocery.setHeapIndex(-1);
+    grocery.setStorage(null);
   }
 
   /**
    * Retrieves the list of groceries currently in the food storage.
+   * The list is a copy, so adding to or removing from it does not change the storage.
    *
-   * @return a {@code List} of {@code Grocery} objects.
+   * @return an unmodifiable {@code List} of {@code Grocery} objects.
    */
   public List<Grocery> getGroceries() {
-    return groceries;
+    return List.copyOf(groceries);
   }
 
   /**
    * Adds a new grocery to the food storage.
    *
    * @param grocery the {@code Grocery} to add. Must not be {@code null}.
+   * @throws IllegalArgumentException if the grocery has no name, unit or expiration date,
+   *                                  or is already stored in a food storage.
    */
   public void addGrocery(Grocery grocery) {
+    long start = System.nanoTime();
+    if (grocery.getName() == null) {
+      throw new IllegalArgumentException("Name cannot be null");
+    }
+    if (grocery.getMeasurementUnit() == null) {
+      throw new IllegalArgumentException("Unit cannot be null");
+    }
+    if (grocery.getExpirationDate() == null) {
+      throw new IllegalArgumentException("Expiration date cannot be null");
+    }
+    if (grocery.getStorage() != null) {
+      throw new IllegalArgumentException("Grocery is already stored in a food storage");
+    }
+    grocery.setStorage(this);
+    grocery.setSequence(addedCount++);
     groceries.add(grocery);
+    index(grocery);
+    addLot(grocery);
+    availabilityChanged(grocery.getNameId());
+    for (FoodStorageListener listener : listeners) {
+      listener.groceryAdded(grocery);
+    }
+    ADD_GROCERY_LATENCY.recordSince(start);
   }
 
   /**
-   * Removes a specific quantity of a grocery from the food storage.
-   * If the remaining quantity is zero, the grocery is removed completely.
+   * Adds many groceries to the food storage at once. The groceries are checked first, and
+   * none are added if any of them is invalid. The expiration and availability indexes are
+   * then updated in one pass, with one update per expiration date and per grocery name
+   * rather than one per grocery, which makes this much faster than calling
+   * {@link #addGrocery(Grocery)} for each of them.
+   *
+   * @param groceries the groceries to add, in order. Must not be or contain {@code null}.
+   * @throws IllegalArgumentException if a grocery has no name, unit or expiration date, or
+   *                                  is already stored in a food storage, or is given
+   *                                  twice.
+   */
+  public void addGroceries(Collection<Grocery> groceries) {
+    long start = System.nanoTime();
+    List<Grocery> added = List.copyOf(groceries);
+    Set<Grocery> checked = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Grocery grocery : added) {
+      if (grocery.getName() == null) {
+        throw new IllegalArgumentException("Name cannot be null");
+      }
+      if (grocery.getMeasurementUnit() == null) {
+        throw new IllegalArgumentException("Unit cannot be null");
+      }
+      if (grocery.getExpirationDate() == null) {
+        throw new IllegalArgumentException("Expiration date cannot be null");
+      }
+      if (grocery.getStorage() != null || !checked.add(grocery)) {
+        throw new IllegalArgumentException("Grocery is already stored in a food storage");
+      }
+    }
+
+    Map<LocalDate, List<Grocery>> byDate = new HashMap<>();
+    Map<Integer, List<Grocery>> byName = new HashMap<>();
+    for (Grocery grocery : added) {
+      grocery.setStorage(this);
+      grocery.setSequence(addedCount++);
+      this.groceries.add(grocery);
+      byDate.computeIfAbsent(grocery.getExpirationDate(), date -> new ArrayList<>())
+          .add(grocery);
+      byName.computeIfAbsent(grocery.getNameId(), nameId -> new ArrayList<>()).add(grocery);
+    }
+
+    for (Map.Entry<LocalDate, List<Grocery>> entry : byDate.entrySet()) {
+      double value = 0.0;
+      for (Grocery grocery : entry.getValue()) {
+        value += grocery.getTotalValue();
+      }
+      groceriesByExpiration.computeIfAbsent(entry.getKey(),
+          date -> LinkedHashSet.newLinkedHashSet(entry.getValue().size()))
+          .addAll(entry.getValue());
+      valueByExpiration.add(entry.getKey(), value);
+    }
+    for (Map.Entry<Integer, List<Grocery>> entry : byName.entrySet()) {
+      for (Grocery grocery : entry.getValue()) {
+        addAvailable(grocery, grocery.getQuantity());
+        addLot(grocery);
+      }
+    }
+
+    for (int nameId : byName.keySet()) {
+      availabilityChanged(nameId);
+    }
+    for (FoodStorageListener listener : listeners) {
+      listener.groceriesAdded(added);
+    }
+    ADD_GROCERIES_LATENCY.recordSince(start);
+  }
+
+  /**
+   * Removes a specific quantity of a grocery from the food storage, first expired first
+   * out: the quantity is taken from the lot with the given name that expires soonest,
+   * then from the next one, and so on. The amount is in the unit of the first lot, and is
+   * only taken from lots in units of the same kind, converted as needed. The removal is
+   * refused if those lots hold less than the amount altogether.
+   * Lots that are emptied are removed completely.
+   *
+   * @param name   the name of the grocery to remove.
+   * @param amount the quantity to remove. Must be greater than 0.
+   * @return {@code true} if the quantity was removed, {@code false} if the removal was
+   *     refused and nothing was changed.
+   * @throws IllegalArgumentException if {@code amount} is less than or equal to 0.
+   */
+  public boolean removeGroceries(String name, double amount) {
+    return tryRemoveGroceries(name, amount) == Removal.REMOVED;
+  }
+
+  /**
+   * Removes a specific quantity of a grocery from the food storage first expired first
+   * out, like {@link #removeGroceries(String, double)}, and tells why a refused removal
+   * was refused, so the caller can report it.
    *
    * @param name   the name of the grocery to remove.
    * @param amount the quantity to remove. Must be greater than 0.
+   * @return {@link Removal#REMOVED} if the quantity was removed, otherwise the reason
+   *     nothing was changed.
    * @throws IllegalArgumentException if {@code amount} is less than or equal to 0.
    */
-  public void removeGroceries(String name, double amount) {
+  public Removal tryRemoveGroceries(String name, double amount) {
     if (amount <= 0) {
       throw new IllegalArgumentException("Quantity to remove must be greater than 0.");
     }
+    long start = System.nanoTime();
+    Removal removal = takeFirstExpired(name, amount);
+    recordRemoval(start, removal == Removal.REMOVED);
+    return removal;
+  }
 
-    Iterator<Grocery> iterator = groceries.iterator();
-    while (iterator.hasNext()) {
-      Grocery grocery = iterator.next();
-      if (grocery.getName().equalsIgnoreCase(name)) {
-        if (amount > grocery.getQuantity()) {
-          System.out.println("Requested removal quantity exceeds available quantity."
-              + " No changes made.");
-          return;
-        }
+  /**
+   * Records how long a removal took, and counts it if it was refused.
+   *
+   * @param startNanos the value of {@link System#nanoTime()} when the removal started.
+   * @param removed    whether the quantity was removed.
+   */
+  static void recordRemoval(long startNanos, boolean removed) {
+    REMOVE_GROCERIES_LATENCY.recordSince(startNanos);
+    if (!removed) {
+      REFUSED_REMOVALS.increment();
+    }
+  }
 
-        double remaining = grocery.getQuantity() - amount;
-        if (remaining > 0) {
-          grocery.setQuantity(remaining);
-          return;
-        }
+  /**
+   * Removes a quantity of a grocery first expired first out, see
+   * {@link #removeGroceries(String, double)}.
+   *
+   * @param name   the name of the grocery to remove.
+   * @param amount the quantity to remove, greater than 0.
+   * @return the outcome of the removal.
+   */
+  private Removal takeFirstExpired(String name, double amount) {
+    int nameId = IngredientSymbols.find(name);
+    int slot = nameSlots.get(nameId);
+    if (slot == NameSlots.NONE) {
+      return Removal.NOT_FOUND;
+    }
+    LotHeap heap = heapsByName.get(slot);
+    Unit unit = heap.peek().getMeasurementUnit();
+    double available = unit.fromBase(getAvailableBaseQuantity(nameId, unit.getDimension()));
+    if (amount > available + tolerance(amount)) {
+      return Removal.NOT_ENOUGH;
+    }
 
-        iterator.remove(); // Remove the grocery completely if remaining is 0
-        return;
+    // Lots in units of another kind are set aside and put back afterwards
+    List<Grocery> skipped = new ArrayList<>();
+    double remaining = amount;
+    boolean changed = false;
+    while (remaining > tolerance(amount)) {
+      Grocery lot = heap.peek();
+      if (lot == null) {
+        break; // Only rounding in the available total is left
+      }
+      Unit lotUnit = lot.getMeasurementUnit();
+      if (lotUnit.getDimension() != unit.getDimension()) {
+        heap.remove(lot);
+        skipped.add(lot);
+        continue;
       }
+      double held = convert(lot.getQuantity(), lotUnit, unit);
+      if (held > remaining + tolerance(amount)) {
+        lot.setQuantity(lot.getQuantity() - convert(remaining, unit, lotUnit));
+        changed = true;
+        break;
+      }
+      remaining -= held;
+      removeLot(lot);
+    }
+    for (Grocery lot : skipped) {
+      heap.add(lot);
+    }
+
+    if (!changed) {
+      availabilityChanged(nameId);
+    }
+    groceriesRemoved(name, amount);
+    return Removal.REMOVED;
+  }
+
+  /**
+   * The outcome of a removal, see {@link #tryRemoveGroceries(String, double)}.
+   */
+  public enum Removal {
+    /**
+     * The quantity was removed.
+     */
+    REMOVED("Removed."),
+
+    /**
+     * No grocery has the name, so nothing was changed.
+     */
+    NOT_FOUND("Grocery not found."),
+
+    /**
+     * The lots with the name hold less than the quantity, so nothing was changed.
+     */
+    NOT_ENOUGH("Requested removal quantity exceeds available quantity. No changes made.");
+
+    private final String message;
+
+    Removal(String message) {
+      this.message = message;
+    }
+
+    /**
+     * Retrieves a message describing the outcome, to be shown to the user.
+     *
+     * @return the message.
+     */
+    public String getMessage() {
+      return message;
+    }
+  }
+
+  /**
+   * Retrieves how far from an amount a quantity may be and still count as equal to it,
+   * so that rounding in unit conversions and sums does not refuse exact removals.
+   *
+   * @param amount the amount.
+   * @return the tolerance.
+   */
+  private static double tolerance(double amount) {
+    return 1e-9 * Math.max(1.0, amount);
+  }
+
+  /**
+   * Converts a quantity between two units of the same kind.
+   *
+   * @param quantity the quantity.
+   * @param from     the unit of the quantity.
+   * @param to       the unit to convert to.
+   * @return the quantity in {@code to}.
+   */
+  private static double convert(double quantity, Unit from, Unit to) {
+    return from == to ? quantity : to.fromBase(from.toBase(quantity));
+  }
+
+  /**
+   * Removes one lot from the storage and its indexes.
+   *
+   * @param grocery the stored lot.
+   */
+  void removeLot(Grocery grocery) {
+    int slot = nameSlots.get(grocery.getNameId());
+    Set<Grocery> lots = groceriesByName.get(slot);
+    heapsByName.get(slot).remove(grocery);
+    detach(grocery);
+    lots.remove(grocery);
+    if (lots.isEmpty()) {
+      forgetName(grocery.getNameId());
     }
+  }
 
-    System.out.println("Grocery not found.");
+  /**
+   * Updates the running totals after an amount has been taken from a stored lot with
+   * {@link Grocery#consume(double)}. Safe to call from several threads at once, as long
+   * as no other change is made to the storage at the same time.
+   *
+   * @param grocery the lot the amount was taken from.
+   * @param amount  the amount taken.
+   */
+  void consumed(Grocery grocery, double amount) {
+    valueByExpiration.addConcurrently(grocery.getExpirationDate(),
+        -amount * grocery.getPricePerUnit());
+    Unit unit = grocery.getMeasurementUnit();
+    AtomicDoubles.add(availableByName[nameSlots.get(grocery.getNameId())], unit.getDimension(),
+        -unit.toBase(amount));
+  }
+
+  /**
+   * Checks if a stored lot has been used up by {@link Grocery#consume(double)} and is
+   * waiting to be removed. Such lots are left out of lookups and listings.
+   *
+   * @param grocery the stored lot.
+   * @return {@code true} if the lot has no quantity left.
+   */
+  static boolean isUsedUp(Grocery grocery) {
+    return grocery.getQuantity() <= 0;
+  }
+
+  /**
+   * Checks if any listeners are registered.
+   *
+   * @return {@code true} if there is at least one listener.
+   */
+  boolean hasListeners() {
+    return !listeners.isEmpty();
+  }
+
+  /**
+   * Tells the listeners that a quantity of a grocery has been removed and that its
+   * available quantity has changed.
+   *
+   * @param grocery the lot the quantity was taken from.
+   * @param name    the name of the grocery, as given to the removal.
+   * @param amount  the removed quantity.
+   */
+  void fireRemoved(Grocery grocery, String name, double amount) {
+    availabilityChanged(grocery.getNameId());
+    groceriesRemoved(name, amount);
+  }
+
+  /**
+   * Tells the listeners that a quantity of a grocery has been removed.
+   *
+   * @param name   the name of the grocery, as given to the removal.
+   * @param amount the removed quantity.
+   */
+  private void groceriesRemoved(String name, double amount) {
+    for (FoodStorageListener listener : listeners) {
+      listener.groceriesRemoved(name, amount);
+    }
   }
 
   /**
    * Removes a grocery completely from the food storage by its name.
    *
    * @param name the name of the grocery to remove.
+   * @return {@code true} if the grocery was stored, {@code false} if nothing was removed.
    */
-  public void removeGroceryCompletely(String name) {
-    groceries.removeIf(grocery -> grocery.getName().equalsIgnoreCase(name));
+  public boolean removeGroceryCompletely(String name) {
+    long start = System.nanoTime();
+    int nameId = IngredientSymbols.find(name);
+    Set<Grocery> lots = lots(nameId);
+    if (lots == null) {
+      return false;
+    }
+    lots.forEach(this::detach);
+    forgetName(nameId);
+    availabilityChanged(nameId);
+    for (FoodStorageListener listener : listeners) {
+      listener.groceryRemovedCompletely(name);
+    }
+    REMOVE_COMPLETELY_LATENCY.recordSince(start);
+    return true;
+  }
+
+  /**
+   * Retrieves the number of lots in the storage, without copying them.
+   *
+   * @return the number of lots.
+   */
+  int getLotCount() {
+    return groceries.size();
+  }
+
+  /**
+   * Retrieves the number of distinct grocery names in the storage, ignoring case.
+   *
+   * @return the number of names.
+   */
+  int getNameCount() {
+    return nameCount;
   }
 
   /**
-   * Lists all non-expired groceries in the food storage.
+   * Lists all non-expired groceries in the food storage, soonest expiring first.
    * If any expired groceries are present, a warning is displayed.
    *
    * @param currentDate the current date to check for expiration.
    */
   public void listGroceries(LocalDate currentDate) {
-    boolean hasExpiredItems = false;
+    listGroceries(currentDate, System.out);
+  }
 
-    for (Grocery grocery : groceries) {
-      if (grocery.isExpired(currentDate)) {
-        hasExpiredItems = true;
-      } else {
-        System.out.println(grocery.getName() + ": " + grocery.getQuantity() + " "
-            + grocery.getUnit() + ", Expiration Date: " + grocery.getExpirationDate()
-            + ", Price per Unit: " + grocery.getPricePerUnit() + " NOK \n");
+  /**
+   * Writes all non-expired groceries in the food storage to a destination, soonest
+   * expiring first, followed by a warning if any expired groceries are present.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @param out         the destination, for example {@code System.out} or a file writer.
+   * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+   */
+  public void listGroceries(LocalDate currentDate, Appendable out) {
+    listGroceries(currentDate, out, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Writes one page of the non-expired groceries in the food storage to a destination,
+   * soonest expiring first, followed by a warning if any expired groceries are present.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @param out         the destination, for example {@code System.out} or a file writer.
+   * @param offset      the number of groceries to skip. Must be 0 or greater.
+   * @param limit       the largest number of groceries to write. Must be 0 or greater.
+   * @throws IllegalArgumentException     if {@code offset} or {@code limit} is negative.
+   * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+   */
+  public void listGroceries(LocalDate currentDate, Appendable out, int offset, int limit) {
+    checkPage(offset, limit);
+    ReportWriter report = new ReportWriter(out);
+    forEachNonExpired(currentDate, offset, limit, grocery -> writeGrocery(report, grocery));
+
+    if (!expired(currentDate).isEmpty()) {
+      report.line("Warning: There are expired food items in the food storage!");
+    }
+    report.flush();
+  }
+
+  /**
+   * Performs an action for one page of the non-expired groceries, soonest expiring first.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @param offset      the number of groceries to skip. Must be 0 or greater.
+   * @param limit       the largest number of groceries to visit. Must be 0 or greater.
+   * @param action      the action to perform.
+   */
+  void forEachNonExpired(LocalDate currentDate, int offset, int limit,
+      Consumer<Grocery> action) {
+    // Skipped lot by lot, since a date may hold used-up lots the listing leaves out
+    int index = 0;
+    for (Set<Grocery> sameDate : nonExpired(currentDate).values()) {
+      for (Grocery grocery : sameDate) {
+        if (isUsedUp(grocery)) {
+          continue;
+        }
+        if (index - offset >= limit) {
+          return;
+        }
+        if (index >= offset) {
+          action.accept(grocery);
+        }
+        index++;
       }
     }
+  }
 
-    if (hasExpiredItems) {
-      System.out.println("Warning: There are expired food items in the food storage!");
+  /**
+   * Performs an action for one page of the expired groceries, oldest first.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @param offset      the number of groceries to skip. Must be 0 or greater.
+   * @param limit       the largest number of groceries to visit. Must be 0 or greater.
+   * @param action      the action to perform.
+   */
+  void forEachExpired(LocalDate currentDate, int offset, int limit,
+      Consumer<Grocery> action) {
+    int index = 0;
+    for (Set<Grocery> sameDate : expired(currentDate).values()) {
+      for (Grocery grocery : sameDate) {
+        if (isUsedUp(grocery)) {
+          continue;
+        }
+        if (index - offset >= limit) {
+          return;
+        }
+        if (index >= offset) {
+          action.accept(grocery);
+        }
+        index++;
+      }
     }
   }
 
   /**
-   * Lists all expired groceries in the food storage along with their total value.
+   * Lists all expired groceries in the food storage along with their total value,
+   * oldest first.
    *
    * @param currentDate the current date to check for expiration.
    */
   public void listExpiredGroceries(LocalDate currentDate) {
+    listExpiredGroceries(currentDate, System.out);
+  }
+
+  /**
+   * Writes all expired groceries in the food storage to a destination, oldest first,
+   * followed by their total value.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @param out         the destination, for example {@code System.out} or a file writer.
+   * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+   */
+  public void listExpiredGroceries(LocalDate currentDate, Appendable out) {
+    listExpiredGroceries(currentDate, out, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Writes one page of the expired groceries in the food storage to a destination,
+   * oldest first, followed by the total value of all expired groceries.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @param out         the destination, for example {@code System.out} or a file writer.
+   * @param offset      the number of groceries to skip. Must be 0 or greater.
+   * @param limit       the largest number of groceries to write. Must be 0 or greater.
+   * @throws IllegalArgumentException     if {@code offset} or {@code limit} is negative.
+   * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+   */
+  public void listExpiredGroceries(LocalDate currentDate, Appendable out, int offset,
+      int limit) {
+    checkPage(offset, limit);
+    ReportWriter report = new ReportWriter(out);
     double totalExpiredValue = 0.0;
     boolean hasExpiredItems = false;
+    int index = 0;
 
-    for (Grocery grocery : groceries) {
-      if (grocery.isExpired(currentDate)) {
+    for (Set<Grocery> sameDate : expired(currentDate).values()) {
+      for (Grocery grocery : sameDate) {
+        if (isUsedUp(grocery)) {
+          continue;
+        }
         hasExpiredItems = true;
-        System.out.println(grocery.getName() + ": " + grocery.getQuantity() + " "
-            + grocery.getUnit() + ", Expired on: " + grocery.getExpirationDate());
+        if (index >= offset && index - offset < limit) {
+          report.append(grocery.getName()).append(": ").append(grocery.getQuantity())
+              .append(" ").append(grocery.getUnit()).append(", Expired on: ")
+              .append(grocery.getExpirationDate()).endLine();
+        }
+        index++;
         totalExpiredValue += grocery.getTotalValue();
       }
     }
 
     if (hasExpiredItems) {
-      System.out.println("Total value of expired groceries: " + totalExpiredValue + " NOK");
+      report.append("Total value of expired groceries: ").append(totalExpiredValue)
+          .append(" NOK").endLine();
     } else {
-      System.out.println("No expired groceries in storage.");
+      report.line("No expired groceries in storage.");
+    }
+    report.flush();
+  }
+
+  /**
+   * Checks the offset and limit of a page of a listing.
+   *
+   * @param offset the number of groceries to skip.
+   * @param limit  the largest number of groceries to write.
+   * @throws IllegalArgumentException if {@code offset} or {@code limit} is negative.
+   */
+  private static void checkPage(int offset, int limit) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("Offset must be 0 or greater.");
+    }
+    if (limit < 0) {
+      throw new IllegalArgumentException("Limit must be 0 or greater.");
+    }
+  }
+
+  /**
+   * Writes the details of a grocery as one entry of a listing.
+   *
+   * @param report  the report to write to.
+   * @param grocery the grocery.
+   */
+  private static void writeGrocery(ReportWriter report, Grocery grocery) {
+    report.append(grocery.getName()).append(": ").append(grocery.getQuantity()).append(" ")
+        .append(grocery.getUnit()).append(", Expiration Date: ")
+        .append(grocery.getExpirationDate()).append(", Price per Unit: ")
+        .append(grocery.getPricePerUnit()).append(" NOK \n").endLine();
+  }
+
+  /**
+   * Tells the storage the application's current date. The value of the groceries expired
+   * on that date is then kept up to date as groceries change, and as the date is moved
+   * forward or back, so {@link #getExpiredValue(LocalDate)} and
+   * {@link #getTotalValue(LocalDate)} answer for that date without summing anything.
+   * Other dates can still be asked for.
+   *
+   * @param currentDate the current date. Must not be {@code null}.
+   * @throws IllegalArgumentException if {@code currentDate} is {@code null}.
+   */
+  public void setCurrentDate(LocalDate currentDate) {
+    if (currentDate == null) {
+      throw new IllegalArgumentException("Date cannot be null");
     }
+    valueByExpiration.setCurrentDay(currentDate);
   }
 
   /**
@@ -143,14 +967,48 @@ public class FoodStorage {
    * @return the total value of non-expired groceries.
    */
   public double getTotalValue(LocalDate currentDate) {
-    double totalValue = 0.0;
+    return valueByExpiration.getTotal() - valueByExpiration.valueBefore(currentDate);
+  }
 
-    for (Grocery grocery : groceries) {
-      if (!grocery.isExpired(currentDate)) {
-        totalValue += grocery.getTotalValue();
-      }
-    }
-    return totalValue;
+  /**
+   * Calculates the total value of all groceries that are expired on the given date.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @return the total value of expired groceries.
+   */
+  public double getExpiredValue(LocalDate currentDate) {
+    return valueByExpiration.valueBefore(currentDate);
+  }
+
+  /**
+   * Calculates the total value of all groceries expiring between two dates.
+   *
+   * @param from the first expiration date to include.
+   * @param to   the last expiration date to include.
+   * @return the total value of groceries expiring from {@code from} to {@code to}.
+   */
+  public double getValueExpiringBetween(LocalDate from, LocalDate to) {
+    return valueByExpiration.valueBetween(from, to);
+  }
+
+  /**
+   * Retrieves the lots that are expired on the given date, grouped by expiration date.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @return a view of the expiration index covering the expired lots, oldest first.
+   */
+  private NavigableMap<LocalDate, Set<Grocery>> expired(LocalDate currentDate) {
+    return groceriesByExpiration.headMap(currentDate, false);
+  }
+
+  /**
+   * Retrieves the lots that are not expired on the given date, grouped by expiration date.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @return a view of the expiration index covering the non-expired lots, soonest first.
+   */
+  private NavigableMap<LocalDate, Set<Grocery>> nonExpired(LocalDate currentDate) {
+    return groceriesByExpiration.tailMap(currentDate, true);
   }
 
   /**
@@ -160,14 +1018,48 @@ public class FoodStorage {
    * @return the {@code Grocery} object if found; {@code null} otherwise.
    */
   public Grocery getGrocery(String name) {
-    for (Grocery grocery : groceries) {
-      if (grocery.getName().equalsIgnoreCase(name)) {
+    for (Grocery grocery : lotsNamed(name)) {
+      if (!isUsedUp(grocery)) {
         return grocery;
       }
     }
     return null;
   }
 
+  /**
+   * Retrieves the total quantity available of a grocery in a given unit, summed over all
+   * lots with that name regardless of expiration. Lots in units of another dimension,
+   * for example "kg" when asking for "liter", are not counted.
+   *
+   * @param name the name of the grocery, ignoring case.
+   * @param unit the unit to express the quantity in.
+   * @return the available quantity, or 0 if the grocery is not in the storage.
+   */
+  public double getAvailableQuantity(String name, Unit unit) {
+    return unit.fromBase(getAvailableBaseQuantity(IngredientSymbols.find(name),
+        unit.getDimension()));
+  }
+
+  /**
+   * Retrieves the total quantity available of a grocery in the base unit of a dimension.
+   *
+   * @param nameId    the id of the grocery's name, see {@link Grocery#getNameId()}.
+   * @param dimension the unit dimension, see {@link Unit#getDimension()}.
+   * @return the available quantity in the base unit of the dimension.
+   */
+  double getAvailableBaseQuantity(int nameId, int dimension) {
+    double[][] byName = availableByName;
+    int slot = nameSlots.get(nameId);
+    if (slot < 0 || slot >= byName.length) {
+      return 0.0;
+    }
+    double[] available = byName[slot];
+    if (available == null || available.length <= dimension) {
+      return 0.0;
+    }
+    return available[dimension];
+  }
+
   /**
    * Searches for a grocery by its name and displays its details.
    * If the grocery is not found, a message is displayed.
@@ -175,19 +1067,92 @@ public class FoodStorage {
    * @param name the name of the grocery to search for.
    */
   public void searchGroceryByName(String name) {
-    boolean found = false;
+    searchGroceryByName(name, System.out);
+  }
 
-    for (Grocery grocery : groceries) {
-      if (grocery.getName().equalsIgnoreCase(name)) {
-        System.out.println(grocery.getName() + ": " + grocery.getQuantity() + " "
-            + grocery.getUnit() + ", Expiration Date: " + grocery.getExpirationDate()
-            + ", Price per Unit: " + grocery.getPricePerUnit() + " NOK \n");
-        found = true;
+  /**
+   * Searches for a grocery by its name and writes the details of all its lots to a
+   * destination. If the grocery is not found, a message is written instead.
+   *
+   * @param name the name of the grocery to search for.
+   * @param out  the destination, for example {@code System.out} or a file writer.
+   * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+   */
+  public void searchGroceryByName(String name, Appendable out) {
+    searchGroceryByName(name, out, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Searches for a grocery by its name and writes the details of one page of its lots to
+   * a destination. If no grocery has exactly that name, the lots of the names best
+   * matching it are written instead, see {@link #searchGroceries(String, int)}, and if
+   * nothing matches, a message is written.
+   *
+   * @param name   the name of the grocery to search for.
+   * @param out    the destination, for example {@code System.out} or a file writer.
+   * @param offset the number of lots to skip. Must be 0 or greater.
+   * @param limit  the largest number of lots to write. Must be 0 or greater.
+   * @throws IllegalArgumentException     if {@code offset} or {@code limit} is negative.
+   * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+   */
+  public void searchGroceryByName(String name, Appendable out, int offset, int limit) {
+    checkPage(offset, limit);
+    Collection<Grocery> lots = lotsNamed(name);
+    ReportWriter report = new ReportWriter(out);
+    if (lots.stream().allMatch(FoodStorage::isUsedUp)) {
+      lots = searchGroceries(name, SEARCH_RESULTS);
+      if (!lots.isEmpty()) {
+        report.append("No grocery found with the name \"").append(name)
+            .append("\". Closest matches:").endLine();
       }
     }
 
+    int index = 0;
+    boolean found = false;
+    for (Grocery grocery : lots) {
+      if (isUsedUp(grocery)) {
+        continue;
+      }
+      found = true;
+      if (index - offset >= limit) {
+        break;
+      }
+      if (index >= offset) {
+        writeGrocery(report, grocery);
+      }
+      index++;
+    }
+
     if (!found) {
-      System.out.println("No grocery found with the name \"" + name + "\" in the storage. \n");
+      report.append("No grocery found with the name \"").append(name)
+          .append("\" in the storage. \n").endLine();
+    }
+    report.flush();
+  }
+
+  /**
+   * Searches for groceries by part of their name, ignoring case, for example "flou" for
+   * flour. Names equal to the query match best, followed by names starting with it,
+   * names containing it, and names within one or two typing mistakes of it.
+   *
+   * @param query the name or part of a name to search for.
+   * @param limit the largest number of names to return lots of. Must be 0 or greater.
+   * @return all lots of the best matching names, best match first.
+   * @throws IllegalArgumentException if {@code limit} is negative.
+   */
+  public List<Grocery> searchGroceries(String query, int limit) {
+    checkPage(0, limit);
+    if (query == null) {
+      return List.of();
+    }
+    List<Grocery> found = new ArrayList<>();
+    for (int nameId : nameIndex.search(query, limit)) {
+      for (Grocery grocery : lots(nameId)) {
+        if (!isUsedUp(grocery)) {
+          found.add(grocery);
+        }
+      }
     }
+    return found;
   }
 }
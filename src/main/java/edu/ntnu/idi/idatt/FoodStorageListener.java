@@ -0,0 +1,63 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.List;
+
+/**
+ * The {@code FoodStorageListener} interface is implemented by classes that want to be
+ * told when the contents of a {@code FoodStorage} change.
+ * All methods have empty default implementations, so a listener only needs to
+ * override the events it cares about.
+ */
+public interface FoodStorageListener {
+
+  /**
+   * Called after a grocery has been added to the storage.
+   *
+   * @param grocery the added grocery.
+   */
+  default void groceryAdded(Grocery grocery) {
+  }
+
+  /**
+   * Called after many groceries have been added to the storage at once.
+   * By default, calls {@link #groceryAdded(Grocery)} for each of them.
+   *
+   * @param groceries the added groceries, in the order they were added.
+   */
+  default void groceriesAdded(List<Grocery> groceries) {
+    for (Grocery grocery : groceries) {
+      groceryAdded(grocery);
+    }
+  }
+
+  /**
+   * Called after a quantity of a grocery has been removed from the storage.
+   * Not called if the removal was refused.
+   *
+   * @param name   the name of the grocery, as given to the removal.
+   * @param amount the removed quantity.
+   */
+  default void groceriesRemoved(String name, double amount) {
+  }
+
+  /**
+   * Called after all lots of a grocery have been removed from the storage.
+   * Not called if there was no grocery with the name.
+   *
+   * @param name the name of the grocery, as given to the removal.
+   */
+  default void groceryRemovedCompletely(String name) {
+  }
+
+  /**
+   * Called after the total available quantity of a grocery has changed.
+   * The new quantity can be read with {@link FoodStorage#getAvailableQuantity(String, Unit)}.
+   * The name is given by its id, so listeners can look up their own data for it without
+   * hashing the name on every change. Listeners that index data by id hold the groceries
+   * with the name, and so keep the id in use, see {@link IngredientSymbols}.
+   *
+   * @param nameId the id of the grocery's case-folded name, the same in every storage.
+   */
+  default void availabilityChanged(int nameId) {
+  }
+}
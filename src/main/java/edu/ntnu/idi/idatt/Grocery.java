@@ -1,5 +1,7 @@
 package edu.ntnu.idi.idatt;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDate;
 
 /**
@@ -8,11 +10,30 @@ import java.time.LocalDate;
  * It includes details such as name, quantity, unit, expiration date, and price per unit.
  */
 public class Grocery {
+  /**
+   * Gives atomic access to {@link #quantity}, see {@link #consume(double)}.
+   */
+  private static final VarHandle QUANTITY;
+
+  static {
+    try {
+      QUANTITY = MethodHandles.lookup().findVarHandle(Grocery.class, "quantity", double.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   /**
    * The name of the grocery item.
    */
   private String name;
 
+  /**
+   * The symbol of the name in the ingredient symbol table, or {@code null} if the name is
+   * {@code null}. Held so the id of the name stays in use, see {@link IngredientSymbols}.
+   */
+  private final IngredientSymbols.Symbol symbol;
+
   /**
    * The quantity of the grocery item.
    */
@@ -20,8 +41,9 @@ public class Grocery {
 
   /**
    * The unit of measurement for the grocery item (e.g., liters, kg, pieces).
+   * Units are shared between groceries, see {@link Unit#of(String)}.
    */
-  private String unit;
+  private Unit unit;
 
   /**
    * The expiration date of the grocery item.
@@ -33,6 +55,36 @@ public class Grocery {
    */
   private double pricePerUnit;
 
+  /**
+   * The food storage this grocery is stored in, or {@code null} if it is not stored.
+   * The storage is told about changes so it can keep its indexes up to date.
+   */
+  private FoodStorage storage;
+
+  /**
+   * The recipe this grocery is an ingredient of, or {@code null} if it is not an
+   * ingredient. The recipe is told about changes so its cached scalings are dropped.
+   */
+  private Recipe recipe;
+
+  /**
+   * Whether this grocery is shared and must not be changed, like the ingredients of a
+   * cached scaling, see {@link Recipe#scaleIngredients(int)}.
+   */
+  private boolean readOnly;
+
+  /**
+   * The position of this grocery in its storage's heap of lots with the same name, or -1
+   * if it is not stored. See {@link LotHeap}.
+   */
+  private int heapIndex = -1;
+
+  /**
+   * The number of groceries added to the storage before this one, used to order lots
+   * expiring on the same date.
+   */
+  private long sequence;
+
   /**
    * Constructs a new {@code Grocery} with the specified details.
    *
@@ -45,8 +97,9 @@ public class Grocery {
   public Grocery(String name, double quantity, String unit,
       LocalDate expirationDate, double pricePerUnit) {
     this.name = name;
+    this.symbol = IngredientSymbols.symbol(name);
     this.quantity = quantity;
-    this.unit = unit;
+    this.unit = Unit.of(unit);
     this.expirationDate = expirationDate;
     this.pricePerUnit = pricePerUnit;
   }
@@ -79,6 +132,26 @@ public class Grocery {
     return name;
   }
 
+  /**
+   * Retrieves the id of the grocery's name, shared by all groceries whose names differ
+   * only in case.
+   *
+   * @return the id of the name, see {@link IngredientSymbols}, or
+   *     {@link IngredientSymbols#NONE} if the name is {@code null}.
+   */
+  int getNameId() {
+    return symbol == null ? IngredientSymbols.NONE : symbol.getId();
+  }
+
+  /**
+   * Retrieves the symbol of the grocery's name, which keeps its id in use while held.
+   *
+   * @return the symbol, or {@code null} if the name is {@code null}.
+   */
+  IngredientSymbols.Symbol getSymbol() {
+    return symbol;
+  }
+
   /**
    * Retrieves the quantity of the grocery item.
    *
@@ -91,14 +164,20 @@ public class Grocery {
   /**
    * Sets the quantity of the grocery item.
    *
-   * @param quantity the new quantity. Must be greater than 0.
-   * @throws IllegalArgumentException if the quantity is less than or equal to 0.
+   * @param quantity the new quantity. Must be greater than 0 and finite.
+   * @throws IllegalArgumentException if the quantity is less than or equal to 0, or is
+   *     not a finite number.
    */
   public void setQuantity(double quantity) {
-    if (quantity <= 0) {
+    if (!(quantity > 0)) {
       throw new IllegalArgumentException("Quantity must be greater than zero");
     }
+    if (!Double.isFinite(quantity)) {
+      throw new IllegalArgumentException("Quantity must be a finite number");
+    }
+    FoodStorage owner = beforeChange();
     this.quantity = quantity;
+    afterChange(owner);
   }
 
   /**
@@ -107,6 +186,16 @@ public class Grocery {
    * @return the unit of measurement.
    */
   public String getUnit() {
+    return unit == null ? null : unit.getName();
+  }
+
+  /**
+   * Retrieves the unit of measurement for the grocery item, with its dimension
+   * and conversion factor.
+   *
+   * @return the shared {@code Unit}.
+   */
+  public Unit getMeasurementUnit() {
     return unit;
   }
 
@@ -120,7 +209,9 @@ public class Grocery {
     if (unit == null) {
       throw new IllegalArgumentException("Unit cannot be null");
     }
-    this.unit = unit;
+    FoodStorage owner = beforeChange();
+    this.unit = Unit.of(unit);
+    afterChange(owner);
   }
 
   /**
@@ -142,7 +233,9 @@ public class Grocery {
     if (expirationDate == null) {
       throw new IllegalArgumentException("Expiration date cannot be null");
     }
+    FoodStorage owner = beforeChange();
     this.expirationDate = expirationDate;
+    afterChange(owner);
   }
 
   /**
@@ -157,13 +250,145 @@ public class Grocery {
   /**
    * Sets the price per unit for the grocery item.
    *
-   * @param pricePerUnit the new price per unit. Must be greater than 0.
-   * @throws IllegalArgumentException if the price per unit is less than or equal to 0.
+   * @param pricePerUnit the new price per unit. Must be greater than 0 and finite.
+   * @throws IllegalArgumentException if the price per unit is less than or equal to 0, or
+   *     is not a finite number.
    */
   public void setPricePerUnit(double pricePerUnit) {
-    if (pricePerUnit <= 0) {
+    if (!(pricePerUnit > 0)) {
       throw new IllegalArgumentException("Price per unit must be greater than zero");
     }
+    if (!Double.isFinite(pricePerUnit)) {
+      throw new IllegalArgumentException("Price per unit must be a finite number");
+    }
+    FoodStorage owner = beforeChange();
     this.pricePerUnit = pricePerUnit;
+    afterChange(owner);
+  }
+
+  /**
+   * Tells the storage that one of the fields is about to change.
+   *
+   * @return the storage told, to be passed to {@link #afterChange(FoodStorage)}, or
+   *         {@code null} if the grocery is not stored.
+   * @throws UnsupportedOperationException if the grocery is read-only.
+   */
+  private FoodStorage beforeChange() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Shared groceries cannot be changed");
+    }
+    FoodStorage owner = storage;
+    if (owner != null) {
+      owner.beforeGroceryChange(this);
+    }
+    return owner;
+  }
+
+  /**
+   * Tells the storage and the recipe that one of the fields has changed.
+   *
+   * @param owner the storage returned by {@link #beforeChange()}.
+   */
+  private void afterChange(FoodStorage owner) {
+    if (owner != null) {
+      owner.afterGroceryChange(this);
+    }
+    if (recipe != null) {
+      recipe.ingredientChanged();
+    }
+  }
+
+  /**
+   * Takes an amount from the quantity of this grocery as one atomic step, so that two
+   * threads taking from the same grocery can never both use the same quantity.
+   * Used by {@code ConcurrentFoodStorage}; unlike {@link #setQuantity(double)}, this can
+   * bring the quantity down to exactly 0 and does not update the storage's indexes.
+   *
+   * @param amount the amount to take. Must be greater than 0.
+   * @return the remaining quantity, or -1 if the quantity is less than {@code amount},
+   *     in which case nothing is taken.
+   */
+  double consume(double amount) {
+    while (true) {
+      double current = (double) QUANTITY.getVolatile(this);
+      if (amount > current) {
+        return -1;
+      }
+      double remaining = current - amount;
+      if (QUANTITY.compareAndSet(this, current, remaining)) {
+        return remaining;
+      }
+    }
+  }
+
+  /**
+   * Retrieves the food storage this grocery is stored in.
+   *
+   * @return the owning {@code FoodStorage}, or {@code null} if the grocery is not stored.
+   */
+  FoodStorage getStorage() {
+    return storage;
+  }
+
+  /**
+   * Sets the food storage this grocery is stored in.
+   *
+   * @param storage the owning {@code FoodStorage}, or {@code null} when the grocery is removed.
+   */
+  void setStorage(FoodStorage storage) {
+    this.storage = storage;
+  }
+
+  /**
+   * Sets the recipe this grocery is an ingredient of.
+   *
+   * @param recipe the owning {@code Recipe}.
+   */
+  void setRecipe(Recipe recipe) {
+    this.recipe = recipe;
+  }
+
+  /**
+   * Makes this grocery read-only, so every setter throws
+   * {@link UnsupportedOperationException}.
+   */
+  void setReadOnly() {
+    this.readOnly = true;
+  }
+
+  /**
+   * Retrieves the position of this grocery in its storage's heap of lots.
+   *
+   * @return the position, or -1 if the grocery is not stored.
+   */
+  int getHeapIndex() {
+    return heapIndex;
+  }
+
+  /**
+   * Sets the position of this grocery in its storage's heap of lots.
+   *
+   * @param heapIndex the position, or -1 when the grocery is removed.
+   */
+  void setHeapIndex(int heapIndex) {
+    this.heapIndex = heapIndex;
+  }
+
+  /**
+   * Retrieves the order in which this grocery was added to its storage.
+   *
+   * @return the number of groceries added to the storage before this one.
+   */
+  long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Sets the order in which this grocery was added to its storage.
+   *
+   * @param sequence the number of groceries added to the storage before this one.
+   */
+  void setSequence(long sequence) {
+    this.sequence = sequence;
   }
 }
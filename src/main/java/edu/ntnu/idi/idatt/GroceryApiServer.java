@@ -0,0 +1,608 @@
+package edu.ntnu.idi.idatt;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code GroceryApiServer} class serves a shared {@code FoodStorage} and {@code Cookbook}
+ * over HTTP, so many kitchen terminals can use the same groceries and recipes at once.
+ * It offers the operations of the text menu as JSON endpoints:
+ *
+ * <pre>
+ * GET    /groceries?date=&amp;offset=&amp;limit=   non-expired groceries, soonest expiring first
+ * POST   /groceries                        add a grocery: {"name", "quantity", "unit",
+ *                                          "expirationDate", "pricePerUnit"}
+ * DELETE /groceries?name=                  remove all groceries with a name
+ * POST   /groceries/remove                 remove a quantity: {"name", "quantity"}
+ * GET    /groceries/expired?date=          expired groceries and their value
+ * GET    /groceries/search?name=           all groceries with a name
+ * GET    /groceries/search?q=&amp;limit=       groceries best matching part of a name
+ * GET    /value?date=                      value of the non-expired and expired groceries
+ * GET    /recipes                          names of all recipes
+ * GET    /recipes?name=&amp;portions=          one recipe, optionally scaled
+ * POST   /recipes                          add a recipe: {"name", "description", "procedure",
+ *                                          "portionSize", "ingredients": [{"name",
+ *                                          "quantity", "unit"}]}
+ * GET    /recipes/check?name=              whether a recipe can be prepared
+ * GET    /recipes/suggestions              the recipes that can be prepared
+ * </pre>
+ *
+ * <p>The {@code date} parameter is the current date used for expiration, and defaults to
+ * today. New groceries are always checked against the server's own date, so a client
+ * cannot add groceries that have already expired. Invalid input is answered with status 400 and {@code {"error": "..."}}.
+ *
+ * <p>The recipes that can be prepared are kept up to date by a {@code RecipeFeasibility}
+ * as groceries and recipes change, so suggesting them does not check the whole cookbook.
+ *
+ * <p>Every request runs on its own virtual thread, so a request waiting for a lock or for
+ * the network does not hold up the others. The storage is a {@code ConcurrentFoodStorage},
+ * and the cookbook is guarded by the same lock, so recipes are read in parallel and
+ * changed one at a time.
+ */
+public class GroceryApiServer {
+  /**
+   * The port used when none is given.
+   */
+  public static final int DEFAULT_PORT = 8080;
+
+  /**
+   * The number of groceries in a page of a listing when no limit is given.
+   */
+  public static final int DEFAULT_PAGE_SIZE = 100;
+
+  /**
+   * The largest request body accepted, in bytes.
+   */
+  private static final int MAX_BODY_SIZE = 1 << 20;
+
+  private final ConcurrentFoodStorage foodStorage;
+  private final Cookbook cookbook;
+  private final RecipeFeasibility feasibility;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Constructs a {@code GroceryApiServer}. The server does not accept requests until
+   * {@link #start()} is called.
+   *
+   * @param foodStorage the {@code ConcurrentFoodStorage} to serve.
+   * @param cookbook    the {@code Cookbook} to serve. Must only be changed through this
+   *                    server, or under the storage's write lock, while the server runs.
+   * @param address     the address to listen on. Port 0 picks a free port.
+   * @throws IOException if the server cannot listen on the address.
+   */
+  public GroceryApiServer(ConcurrentFoodStorage foodStorage, Cookbook cookbook,
+      InetSocketAddress address) throws IOException {
+    this.foodStorage = foodStorage;
+    this.cookbook = cookbook;
+    // Created under the write lock, so no change is reported while it starts tracking
+    RecipeFeasibility[] created = new RecipeFeasibility[1];
+    foodStorage.write(() -> created[0] = RecipeFeasibility.create(foodStorage, cookbook));
+    this.feasibility = created[0];
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    this.server = HttpServer.create(address, 0);
+    this.server.setExecutor(executor);
+    route("/groceries", this::groceries);
+    route("/groceries/remove", this::removeGroceries);
+    route("/groceries/expired", this::expiredGroceries);
+    route("/groceries/search", this::searchGroceries);
+    route("/value", this::value);
+    route("/recipes", this::recipes);
+    route("/recipes/check", this::checkRecipe);
+    route("/recipes/suggestions", this::suggestRecipes);
+  }
+
+  /**
+   * Starts a server on the given port with the groceries and recipes saved in the data
+   * directory, and saves every change made through it. The directory is given by the
+   * {@value TextUserInterface#DATA_DIRECTORY_PROPERTY} system property, like for the text
+   * interface. The operation metrics are published as JMX MBeans, see
+   * {@link MetricsRegistry}. The server runs until the process is stopped.
+   *
+   * @param port the port to listen on.
+   * @throws IOException if the saved data cannot be loaded or the port cannot be used.
+   */
+  public static void run(int port) throws IOException {
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    Cookbook cookbook = new Cookbook();
+    Path directory = Path.of(System.getProperty(TextUserInterface.DATA_DIRECTORY_PROPERTY,
+        "foodwaste-data"));
+    StorageJournal journal = StorageJournal.open(directory, foodStorage, cookbook);
+    MetricsRegistry.getDefault().watch(foodStorage, cookbook);
+    MetricsRegistry.getDefault().registerMBeans();
+    GroceryApiServer server = new GroceryApiServer(foodStorage, cookbook,
+        new InetSocketAddress(port));
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      server.stop();
+      journal.close();
+    }));
+    server.start();
+    System.out.println("Serving groceries on http://localhost:" + server.getPort()
+        + "/ (press Ctrl+C to stop)");
+  }
+
+  /**
+   * Starts accepting requests.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stops accepting requests, lets the requests in progress finish for up to a second,
+   * and stops the server. The storage and cookbook are no longer tracked after this.
+   */
+  public void stop() {
+    server.stop(1);
+    executor.shutdown();
+    foodStorage.write(feasibility::close);
+  }
+
+  /**
+   * Retrieves the port the server listens on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Handles the requests of one endpoint.
+   */
+  @FunctionalInterface
+  private interface Endpoint {
+    Response handle(Request request) throws IOException;
+  }
+
+  /**
+   * Registers an endpoint for an exact path. Requests for other paths under it are
+   * answered with status 404.
+   *
+   * @param path     the path.
+   * @param endpoint the endpoint.
+   */
+  private void route(String path, Endpoint endpoint) {
+    server.createContext(path, exchange -> {
+      Response response;
+      try {
+        if (!exchange.getRequestURI().getPath().equals(path)) {
+          response = Response.error(404, "Not found.");
+        } else {
+          response = endpoint.handle(new Request(exchange));
+        }
+      } catch (IllegalArgumentException e) {
+        response = Response.error(400, e.getMessage());
+      } catch (RuntimeException e) {
+        response = Response.error(500, "Internal error.");
+      }
+      send(exchange, response);
+    });
+  }
+
+  /**
+   * Writes a response and ends the exchange.
+   *
+   * @param exchange the exchange.
+   * @param response the response.
+   * @throws IOException if the client cannot be written to.
+   */
+  private static void send(HttpExchange exchange, Response response) throws IOException {
+    byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(response.status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private Response groceries(Request request) throws IOException {
+    switch (request.method) {
+      case "GET": {
+        LocalDate date = request.date();
+        int offset = request.intParameter("offset", 0);
+        int limit = request.intParameter("limit", DEFAULT_PAGE_SIZE);
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("date").value(date)
+            .name("offset").value(offset)
+            .name("limit").value(limit)
+            .name("groceries").beginArray();
+        foodStorage.read(() -> {
+          foodStorage.forEachNonExpired(date, offset, limit, json::grocery);
+          return null;
+        });
+        return Response.ok(json.endArray().endObject());
+      }
+      case "POST": {
+        Map<String, Object> body = request.body();
+        Grocery grocery = MenuCases.createGrocery(stringField(body, "name"),
+            numberField(body, "quantity"), stringField(body, "unit"),
+            dateField(body, "expirationDate"), numberField(body, "pricePerUnit"),
+            LocalDate.now());
+        foodStorage.addGrocery(grocery);
+        return new Response(201, new JsonWriter().grocery(grocery).toString());
+      }
+      case "DELETE": {
+        String name = request.requiredParameter("name");
+        // Checked and removed in one step, so a concurrent delete cannot come in between
+        if (!foodStorage.removeGroceryCompletely(name)) {
+          return Response.error(404, "No grocery named \"" + name + "\".");
+        }
+        return Response.ok(new JsonWriter().beginObject()
+            .name("removed").value(name)
+            .endObject());
+      }
+      default:
+        return Response.methodNotAllowed();
+    }
+  }
+
+  private Response removeGroceries(Request request) throws IOException {
+    if (!request.method.equals("POST")) {
+      return Response.methodNotAllowed();
+    }
+    Map<String, Object> body = request.body();
+    String name = stringField(body, "name");
+    double quantity = numberField(body, "quantity");
+    if (quantity <= 0) {
+      throw new IllegalArgumentException("Quantity must be greater than 0.");
+    }
+    FoodStorage.Removal removal = foodStorage.tryRemoveGroceries(name, quantity);
+    if (removal == FoodStorage.Removal.NOT_FOUND) {
+      return Response.error(404, "No grocery named \"" + name + "\".");
+    }
+    if (removal == FoodStorage.Removal.NOT_ENOUGH) {
+      return Response.error(409, "The storage does not hold " + quantity + " of \""
+          + name + "\" in total.");
+    }
+    return Response.ok(new JsonWriter().beginObject()
+        .name("name").value(name)
+        .name("removed").value(quantity)
+        .endObject());
+  }
+
+  private Response expiredGroceries(Request request) {
+    if (!request.method.equals("GET")) {
+      return Response.methodNotAllowed();
+    }
+    LocalDate date = request.date();
+    int offset = request.intParameter("offset", 0);
+    int limit = request.intParameter("limit", DEFAULT_PAGE_SIZE);
+    JsonWriter json = new JsonWriter().beginObject()
+        .name("date").value(date)
+        .name("offset").value(offset)
+        .name("limit").value(limit);
+    foodStorage.read(() -> {
+      json.name("value").value(foodStorage.getExpiredValue(date))
+          .name("groceries").beginArray();
+      foodStorage.forEachExpired(date, offset, limit, json::grocery);
+      return json.endArray();
+    });
+    return Response.ok(json.endObject());
+  }
+
+  private Response searchGroceries(Request request) {
+    if (!request.method.equals("GET")) {
+      return Response.methodNotAllowed();
+    }
+    String query = request.parameters.get("q");
+    if (query != null) {
+      int limit = request.intParameter("limit", FoodStorage.SEARCH_RESULTS);
+      JsonWriter json = new JsonWriter().beginObject()
+          .name("q").value(query)
+          .name("groceries").beginArray();
+      foodStorage.searchGroceries(query, limit).forEach(json::grocery);
+      return Response.ok(json.endArray().endObject());
+    }
+    String name = request.requiredParameter("name");
+    JsonWriter json = new JsonWriter().beginObject()
+        .name("name").value(name)
+        .name("groceries").beginArray();
+    foodStorage.read(() -> {
+      for (Grocery grocery : foodStorage.lotsNamed(name)) {
+        if (!FoodStorage.isUsedUp(grocery)) {
+          json.grocery(grocery);
+        }
+      }
+      return null;
+    });
+    return Response.ok(json.endArray().endObject());
+  }
+
+  private Response value(Request request) {
+    if (!request.method.equals("GET")) {
+      return Response.methodNotAllowed();
+    }
+    LocalDate date = request.date();
+    return Response.ok(foodStorage.read(() -> new JsonWriter().beginObject()
+        .name("date").value(date)
+        .name("totalValue").value(foodStorage.getTotalValue(date))
+        .name("expiredValue").value(foodStorage.getExpiredValue(date))
+        .endObject()));
+  }
+
+  private Response recipes(Request request) throws IOException {
+    switch (request.method) {
+      case "GET": {
+        String name = request.parameters.get("name");
+        if (name == null) {
+          return Response.ok(foodStorage.read(() -> {
+            JsonWriter json = new JsonWriter().beginObject().name("recipes").beginArray();
+            for (Recipe recipe : cookbook.getRecipes()) {
+              json.value(recipe.getName());
+            }
+            return json.endArray().endObject();
+          }));
+        }
+        int portions = request.intParameter("portions", 0);
+        JsonWriter json = foodStorage.read(() -> {
+          Recipe recipe = cookbook.findRecipe(name);
+          return recipe == null ? null : recipe(recipe, portions);
+        });
+        return json == null ? Response.error(404, "No recipe named \"" + name + "\".")
+            : Response.ok(json);
+      }
+      case "POST": {
+        Recipe recipe = parseRecipe(request.body());
+        boolean[] added = new boolean[1];
+        foodStorage.write(() -> {
+          if (cookbook.findRecipe(recipe.getName()) == null) {
+            cookbook.addRecipe(recipe);
+            added[0] = true;
+          }
+        });
+        if (!added[0]) {
+          return Response.error(409, "A recipe named \"" + recipe.getName()
+              + "\" already exists.");
+        }
+        return new Response(201, recipe(recipe, 0).toString());
+      }
+      default:
+        return Response.methodNotAllowed();
+    }
+  }
+
+  private Response checkRecipe(Request request) {
+    if (!request.method.equals("GET")) {
+      return Response.methodNotAllowed();
+    }
+    String name = request.requiredParameter("name");
+    JsonWriter json = foodStorage.read(() -> {
+      Recipe recipe = cookbook.findRecipe(name);
+      return recipe == null ? null : new JsonWriter().beginObject()
+          .name("name").value(recipe.getName())
+          .name("canPrepare").value(feasibility.canPrepare(recipe))
+          .endObject();
+    });
+    return json == null ? Response.error(404, "No recipe named \"" + name + "\".")
+        : Response.ok(json);
+  }
+
+  private Response suggestRecipes(Request request) {
+    if (!request.method.equals("GET")) {
+      return Response.methodNotAllowed();
+    }
+    JsonWriter json = new JsonWriter().beginObject().name("recipes").beginArray();
+    for (Recipe recipe : feasibility.getPreparableRecipes()) {
+      json.value(recipe.getName());
+    }
+    return Response.ok(json.endArray().endObject());
+  }
+
+  /**
+   * Writes a recipe as an object.
+   *
+   * @param recipe   the recipe.
+   * @param portions the number of portions to scale the ingredients to, or 0 to keep
+   *                 the recipe's own portion size.
+   * @return the JSON of the recipe.
+   */
+  private static JsonWriter recipe(Recipe recipe, int portions) {
+    ScaledIngredients ingredients = recipe.scaled(
+        portions > 0 ? portions : recipe.getPortionSize());
+    JsonWriter json = new JsonWriter().beginObject()
+        .name("name").value(recipe.getName())
+        .name("description").value(recipe.getDescription())
+        .name("procedure").value(recipe.getProcedure())
+        .name("portionSize").value(portions > 0 ? portions : recipe.getPortionSize())
+        .name("ingredients").beginArray();
+    for (int i = 0; i < ingredients.size(); i++) {
+      json.beginObject()
+          .name("name").value(ingredients.getName(i))
+          .name("quantity").value(ingredients.getQuantity(i))
+          .name("unit").value(ingredients.getUnit(i))
+          .endObject();
+    }
+    return json.endArray().endObject();
+  }
+
+  /**
+   * Creates a recipe from a request body.
+   *
+   * @param body the fields of the request body.
+   * @return the recipe.
+   * @throws IllegalArgumentException if a field is missing or invalid.
+   */
+  private static Recipe parseRecipe(Map<String, Object> body) {
+    Recipe recipe = new Recipe(stringField(body, "name"));
+    if (body.get("description") != null) {
+      recipe.setDescription(stringField(body, "description"));
+    }
+    if (body.get("procedure") != null) {
+      recipe.setProcedure(stringField(body, "procedure"));
+    }
+    if (body.get("portionSize") != null) {
+      recipe.setPortionSize(intField(body, "portionSize"));
+    }
+    if (!(body.get("ingredients") instanceof List<?> ingredients)) {
+      throw new IllegalArgumentException("Field \"ingredients\" must be an array.");
+    }
+    for (Object element : ingredients) {
+      if (!(element instanceof Map<?, ?> ingredient)) {
+        throw new IllegalArgumentException("Every ingredient must be an object.");
+      }
+      @SuppressWarnings("unchecked")
+      Map<String, Object> fields = (Map<String, Object>) ingredient;
+      recipe.addIngredient(stringField(fields, "name"), numberField(fields, "quantity"),
+          stringField(fields, "unit"));
+    }
+    return recipe;
+  }
+
+  private static String stringField(Map<String, Object> body, String name) {
+    if (!(body.get(name) instanceof String value)) {
+      throw new IllegalArgumentException("Field \"" + name + "\" must be a string.");
+    }
+    return value;
+  }
+
+  private static double numberField(Map<String, Object> body, String name) {
+    if (!(body.get(name) instanceof Double value)) {
+      throw new IllegalArgumentException("Field \"" + name + "\" must be a number.");
+    }
+    return value;
+  }
+
+  private static int intField(Map<String, Object> body, String name) {
+    double value = numberField(body, name);
+    if (value != Math.rint(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Field \"" + name + "\" must be a whole number.");
+    }
+    return (int) value;
+  }
+
+  private static LocalDate dateField(Map<String, Object> body, String name) {
+    return parseDate(stringField(body, name), name);
+  }
+
+  private static LocalDate parseDate(String text, String name) {
+    try {
+      return LocalDate.parse(text);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("\"" + name + "\" must be a date like 2026-11-01.");
+    }
+  }
+
+  /**
+   * The parts of a request the endpoints use.
+   */
+  private static final class Request {
+    private final HttpExchange exchange;
+    private final String method;
+    private final Map<String, String> parameters;
+
+    private Request(HttpExchange exchange) {
+      this.exchange = exchange;
+      this.method = exchange.getRequestMethod();
+      this.parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+      Map<String, String> parameters = new HashMap<>();
+      if (query == null || query.isEmpty()) {
+        return parameters;
+      }
+      for (String pair : query.split("&")) {
+        int equals = pair.indexOf('=');
+        String name = equals < 0 ? pair : pair.substring(0, equals);
+        String value = equals < 0 ? "" : pair.substring(equals + 1);
+        parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+            URLDecoder.decode(value, StandardCharsets.UTF_8));
+      }
+      return parameters;
+    }
+
+    private String requiredParameter(String name) {
+      String value = parameters.get(name);
+      if (value == null || value.isBlank()) {
+        throw new IllegalArgumentException("Parameter \"" + name + "\" is required.");
+      }
+      return value;
+    }
+
+    private int intParameter(String name, int defaultValue) {
+      String value = parameters.get(name);
+      if (value == null) {
+        return defaultValue;
+      }
+      try {
+        int number = Integer.parseInt(value);
+        if (number < 0) {
+          throw new IllegalArgumentException("\"" + name + "\" must be 0 or greater.");
+        }
+        return number;
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("\"" + name + "\" must be a whole number.");
+      }
+    }
+
+    /**
+     * Retrieves the current date of the request.
+     *
+     * @return the {@code date} parameter, or today if it is not given.
+     */
+    private LocalDate date() {
+      String value = parameters.get("date");
+      return value == null ? LocalDate.now() : parseDate(value, "date");
+    }
+
+    /**
+     * Reads the request body as a JSON object.
+     *
+     * @return the fields of the object.
+     * @throws IOException              if the body cannot be read.
+     * @throws IllegalArgumentException if the body is too large or not a JSON object.
+     */
+    private Map<String, Object> body() throws IOException {
+      byte[] bytes;
+      try (InputStream in = exchange.getRequestBody()) {
+        bytes = in.readNBytes(MAX_BODY_SIZE + 1);
+      }
+      if (bytes.length > MAX_BODY_SIZE) {
+        throw new IllegalArgumentException("The request body is too large.");
+      }
+      return JsonReader.parseObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * A status code and JSON body to send.
+   */
+  private static final class Response {
+    private final int status;
+    private final String body;
+
+    private Response(int status, String body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    private static Response ok(JsonWriter json) {
+      return new Response(200, json.toString());
+    }
+
+    private static Response error(int status, String message) {
+      return new Response(status, new JsonWriter().beginObject()
+          .name("error").value(message)
+          .endObject().toString());
+    }
+
+    private static Response methodNotAllowed() {
+      return error(405, "Method not allowed.");
+    }
+  }
+}
@@ -0,0 +1,422 @@
+package edu.ntnu.idi.idatt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The {@code GroceryImporter} class adds groceries to a {@code FoodStorage} from a CSV file,
+ * such as a supplier feed. Each line holds one grocery:
+ *
+ * <pre>
+ * name,quantity,unit,expirationDate,pricePerUnit
+ * Milk,1.0,liters,2026-11-01,10.0
+ * "Cheese, sliced",0.4,kg,2026-12-15,120.0
+ * </pre>
+ *
+ * <p>A first line starting with {@code name,} is treated as a header and skipped, as are
+ * blank lines. Fields containing commas can be quoted with double quotes.
+ *
+ * <p>The file is read as a stream and split into chunks of lines, which are parsed and
+ * checked in parallel with the same rules as {@code MenuCases.addGrocery}. Only a few
+ * chunks are in progress at a time, so the lines of a large file are never all in memory.
+ * The accepted groceries are added with one call to {@link FoodStorage#addGroceries}, and
+ * lines that are rejected are reported with the reason, without stopping the import.
+ */
+public class GroceryImporter {
+  /**
+   * The number of lines parsed together as one task.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  /**
+   * The largest number of rejected lines kept in a result. Lines rejected after this
+   * are only counted.
+   */
+  public static final int MAX_REPORTED_REJECTS = 1000;
+
+  private final FoodStorage foodStorage;
+  private final LocalDate today;
+  private final int chunkSize;
+  private final int threads;
+
+  /**
+   * Constructs a {@code GroceryImporter} that checks expiration dates against today's date.
+   *
+   * @param foodStorage the {@code FoodStorage} to add the groceries to.
+   */
+  public GroceryImporter(FoodStorage foodStorage) {
+    this(foodStorage, LocalDate.now(), DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructs a {@code GroceryImporter}.
+   *
+   * @param foodStorage the {@code FoodStorage} to add the groceries to.
+   * @param today       the date that expiration dates must not be before.
+   * @param chunkSize   the number of lines parsed together as one task. Must be greater than 0.
+   * @throws IllegalArgumentException if {@code chunkSize} is not greater than 0.
+   */
+  public GroceryImporter(FoodStorage foodStorage, LocalDate today, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be greater than 0.");
+    }
+    this.foodStorage = foodStorage;
+    this.today = today;
+    this.chunkSize = chunkSize;
+    this.threads = Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Imports the groceries in a UTF-8 encoded CSV file.
+   *
+   * @param file the file to import.
+   * @return the result of the import.
+   * @throws IOException if the file cannot be read.
+   */
+  public Result importFile(Path file) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return importFrom(reader);
+    }
+  }
+
+  /**
+   * Imports the groceries in CSV lines read from a reader.
+   *
+   * @param reader the reader to read lines from. Not closed by this method.
+   * @return the result of the import.
+   * @throws IOException if reading fails.
+   */
+  public Result importFrom(BufferedReader reader) throws IOException {
+    long start = System.nanoTime();
+    Result result = new Result();
+    List<Grocery> groceries = new ArrayList<>();
+    Deque<Future<Chunk>> inProgress = new ArrayDeque<>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "grocery-import");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      long lineNumber = 0;
+      List<String> lines = new ArrayList<>(chunkSize);
+      long firstLine = 1;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (lineNumber == 1 && line.regionMatches(true, 0, "name,", 0, 5)) {
+          firstLine = 2;
+          continue;
+        }
+        lines.add(line);
+        if (lines.size() == chunkSize) {
+          inProgress.add(submit(executor, lines, firstLine));
+          lines = new ArrayList<>(chunkSize);
+          firstLine = lineNumber + 1;
+          if (inProgress.size() > 2 * threads) {
+            collect(inProgress.remove(), groceries, result);
+          }
+        }
+      }
+      if (!lines.isEmpty()) {
+        inProgress.add(submit(executor, lines, firstLine));
+      }
+      while (!inProgress.isEmpty()) {
+        collect(inProgress.remove(), groceries, result);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    foodStorage.addGroceries(groceries);
+    result.importedRows = groceries.size();
+    result.elapsedNanos = System.nanoTime() - start;
+    return result;
+  }
+
+  /**
+   * Starts parsing a chunk of lines.
+   *
+   * @param executor  the executor to parse on.
+   * @param lines     the lines of the chunk.
+   * @param firstLine the line number of the first line in the chunk.
+   * @return the parsed chunk, when it is ready.
+   */
+  private Future<Chunk> submit(ExecutorService executor, List<String> lines, long firstLine) {
+    return executor.submit(() -> parse(lines, firstLine));
+  }
+
+  /**
+   * Waits for a chunk to be parsed and adds its groceries and rejects to the result.
+   *
+   * @param future    the chunk being parsed.
+   * @param groceries the accepted groceries so far.
+   * @param result    the result so far.
+   * @throws IOException if parsing the chunk failed unexpectedly.
+   */
+  private static void collect(Future<Chunk> future, List<Grocery> groceries, Result result)
+      throws IOException {
+    Chunk chunk;
+    try {
+      chunk = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Import was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Import failed", e.getCause());
+    }
+    groceries.addAll(chunk.groceries);
+    result.rows += chunk.rows;
+    result.rejectedRows += chunk.rejects.size();
+    for (Reject reject : chunk.rejects) {
+      if (result.rejects.size() < MAX_REPORTED_REJECTS) {
+        result.rejects.add(reject);
+      }
+    }
+  }
+
+  /**
+   * Parses and checks a chunk of lines.
+   *
+   * @param lines     the lines of the chunk.
+   * @param firstLine the line number of the first line in the chunk.
+   * @return the accepted groceries and rejected lines of the chunk.
+   */
+  private Chunk parse(List<String> lines, long firstLine) {
+    Chunk chunk = new Chunk(lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.isBlank()) {
+        continue;
+      }
+      chunk.rows++;
+      try {
+        chunk.groceries.add(parseLine(line));
+      } catch (IllegalArgumentException e) {
+        chunk.rejects.add(new Reject(firstLine + i, line, e.getMessage()));
+      }
+    }
+    return chunk;
+  }
+
+  /**
+   * Parses one line into a grocery.
+   *
+   * @param line the line.
+   * @return the grocery.
+   * @throws IllegalArgumentException if the line is not a valid grocery.
+   */
+  private Grocery parseLine(String line) {
+    List<String> fields = splitFields(line);
+    if (fields.size() != 5) {
+      throw new IllegalArgumentException("Expected 5 fields but found " + fields.size() + ".");
+    }
+    double quantity;
+    try {
+      quantity = Double.parseDouble(fields.get(1).trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid quantity: " + fields.get(1));
+    }
+    if (!Double.isFinite(quantity)) {
+      throw new IllegalArgumentException("Invalid quantity: " + fields.get(1));
+    }
+    LocalDate expirationDate;
+    try {
+      expirationDate = LocalDate.parse(fields.get(3).trim());
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid expiration date: " + fields.get(3));
+    }
+    double pricePerUnit;
+    try {
+      pricePerUnit = Double.parseDouble(fields.get(4).trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid price per unit: " + fields.get(4));
+    }
+    if (!Double.isFinite(pricePerUnit)) {
+      throw new IllegalArgumentException("Invalid price per unit: " + fields.get(4));
+    }
+    return MenuCases.createGrocery(fields.get(0).trim(), quantity, fields.get(2).trim(),
+        expirationDate, pricePerUnit, today);
+  }
+
+  /**
+   * Splits a CSV line into fields. A field in double quotes may contain commas, and two
+   * double quotes inside it stand for one.
+   *
+   * @param line the line.
+   * @return the fields.
+   * @throws IllegalArgumentException if a quoted field is not closed.
+   */
+  static List<String> splitFields(String line) {
+    List<String> fields = new ArrayList<>(5);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("Quoted field is not closed.");
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * The groceries and rejected lines of one parsed chunk.
+   */
+  private static final class Chunk {
+    private final List<Grocery> groceries;
+    private final List<Reject> rejects = new ArrayList<>();
+    private long rows;
+
+    private Chunk(int size) {
+      this.groceries = new ArrayList<>(size);
+    }
+  }
+
+  /**
+   * A line that could not be imported.
+   */
+  public static final class Reject {
+    private final long lineNumber;
+    private final String line;
+    private final String reason;
+
+    private Reject(long lineNumber, String line, String reason) {
+      this.lineNumber = lineNumber;
+      this.line = line;
+      this.reason = reason;
+    }
+
+    /**
+     * Retrieves the line number in the file, counting from 1.
+     *
+     * @return the line number.
+     */
+    public long getLineNumber() {
+      return lineNumber;
+    }
+
+    /**
+     * Retrieves the rejected line.
+     *
+     * @return the line as it was read.
+     */
+    public String getLine() {
+      return line;
+    }
+
+    /**
+     * Retrieves the reason the line was rejected.
+     *
+     * @return the reason.
+     */
+    public String getReason() {
+      return reason;
+    }
+
+    @Override
+    public String toString() {
+      return "Line " + lineNumber + ": " + reason;
+    }
+  }
+
+  /**
+   * The outcome of an import.
+   */
+  public static final class Result {
+    private final List<Reject> rejects = new ArrayList<>();
+    private long rows;
+    private long importedRows;
+    private long rejectedRows;
+    private long elapsedNanos;
+
+    private Result() {
+    }
+
+    /**
+     * Retrieves the number of rows read, not counting the header and blank lines.
+     *
+     * @return the number of rows.
+     */
+    public long getRows() {
+      return rows;
+    }
+
+    /**
+     * Retrieves the number of rows added to the storage.
+     *
+     * @return the number of imported rows.
+     */
+    public long getImportedRows() {
+      return importedRows;
+    }
+
+    /**
+     * Retrieves the number of rows that were rejected.
+     *
+     * @return the number of rejected rows.
+     */
+    public long getRejectedRows() {
+      return rejectedRows;
+    }
+
+    /**
+     * Retrieves the rejected rows, in file order. At most {@link #MAX_REPORTED_REJECTS}
+     * are kept.
+     *
+     * @return an unmodifiable list of the rejected rows.
+     */
+    public List<Reject> getRejects() {
+      return Collections.unmodifiableList(rejects);
+    }
+
+    /**
+     * Retrieves the time the import took, including adding the groceries to the storage.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Retrieves the import speed.
+     *
+     * @return the number of rows read per second.
+     */
+    public double getRowsPerSecond() {
+      return elapsedNanos == 0 ? 0.0 : rows * 1e9 / elapsedNanos;
+    }
+  }
+}
@@ -0,0 +1,339 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The {@code GroceryNameIndex} class finds grocery names from part of a name, for searches
+ * typed in a hurry. A query matches a name that starts with it, that contains it, or that
+ * is within a small number of typing mistakes (inserted, missing, wrong or swapped
+ * letters) of it, and matches are ranked in that order.
+ *
+ * <p>Names are indexed by their case-folded form (see {@link IngredientSymbols}) in two
+ * ways: in sorted order, so the names starting with a query are one range, and by the
+ * three-letter sequences they contain, so only names sharing enough of them with a query
+ * are checked for containing it or being close to it. The index is updated one name at a
+ * time as names are added and removed, and never rebuilt.
+ */
+final class GroceryNameIndex {
+  /**
+   * Marks the start and end of a name, so the first and last letters are part of as many
+   * three-letter sequences as the others.
+   */
+  private static final char START = '\u0002';
+  private static final char END = '\u0003';
+
+  /**
+   * The length of the letter sequences indexed.
+   */
+  private static final int GRAM = 3;
+
+  /**
+   * The id of every indexed name, keyed and sorted by folded name.
+   */
+  private final NavigableMap<String, Integer> idsByKey;
+
+  /**
+   * The folded name of every indexed id.
+   */
+  private final Map<Integer, String> keysById;
+
+  /**
+   * The ids of the names containing each three-letter sequence, start and end marks
+   * included.
+   */
+  private final Map<String, Set<Integer>> idsByGram;
+
+  /**
+   * Constructs an empty {@code GroceryNameIndex}.
+   */
+  GroceryNameIndex() {
+    this.idsByKey = new TreeMap<>();
+    this.keysById = new HashMap<>();
+    this.idsByGram = new HashMap<>();
+  }
+
+  /**
+   * Adds a name to the index.
+   *
+   * @param symbol the symbol of the name, see {@link IngredientSymbols}.
+   */
+  void add(IngredientSymbols.Symbol symbol) {
+    String key = symbol.getKey();
+    int nameId = symbol.getId();
+    if (idsByKey.putIfAbsent(key, nameId) != null) {
+      return;
+    }
+    keysById.put(nameId, key);
+    for (String gram : grams(key)) {
+      idsByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(nameId);
+    }
+  }
+
+  /**
+   * Removes a name from the index.
+   *
+   * @param nameId the id of the name, see {@link IngredientSymbols}.
+   */
+  void remove(int nameId) {
+    String key = keysById.remove(nameId);
+    if (key == null) {
+      return;
+    }
+    idsByKey.remove(key);
+    for (String gram : grams(key)) {
+      Set<Integer> ids = idsByGram.get(gram);
+      ids.remove(nameId);
+      if (ids.isEmpty()) {
+        idsByGram.remove(gram);
+      }
+    }
+  }
+
+  /**
+   * Finds the names best matching a query, ignoring case. Names equal to the query come
+   * first, then names starting with it (shortest first), then names containing it
+   * (earliest first), then names within {@link #maxDistance(int)} typing mistakes of it
+   * (fewest first). Ties are broken alphabetically.
+   *
+   * @param query the query, for example "flou".
+   * @param limit the largest number of names to return.
+   * @return the ids of the matching names, best match first.
+   */
+  List<Integer> search(String query, int limit) {
+    String key = IngredientSymbols.fold(query);
+    if (key.isEmpty() || limit == 0) {
+      return List.of();
+    }
+    Map<Integer, Match> matches = new HashMap<>();
+
+    // Names starting with the query are one range of the sorted names
+    for (Map.Entry<String, Integer> entry
+        : idsByKey.subMap(key, true, key + Character.MAX_VALUE, false).entrySet()) {
+      int tier = entry.getKey().length() == key.length() ? 0 : 1;
+      matches.put(entry.getValue(),
+          new Match(entry.getValue(), entry.getKey(), tier, entry.getKey().length()));
+    }
+
+    // Later tiers rank below every match found so far, so stop once there are enough
+    if (matches.size() < limit) {
+      addContaining(key, matches);
+    }
+    if (matches.size() < limit) {
+      addNear(key, matches);
+    }
+
+    List<Match> ranked = new ArrayList<>(matches.values());
+    ranked.sort(Comparator.comparingInt((Match match) -> match.tier)
+        .thenComparingInt(match -> match.rank)
+        .thenComparing(match -> match.key));
+    List<Integer> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+    for (int i = 0; i < ranked.size() && i < limit; i++) {
+      ids.add(ranked.get(i).nameId);
+    }
+    return ids;
+  }
+
+  /**
+   * Adds the names containing a query, but not starting with it, to the matches.
+   *
+   * @param key     the folded query.
+   * @param matches the matches so far, by name id.
+   */
+  private void addContaining(String key, Map<Integer, Match> matches) {
+    for (Map.Entry<String, Integer> entry : containing(key).entrySet()) {
+      int position = entry.getKey().indexOf(key);
+      if (position > 0) {
+        matches.putIfAbsent(entry.getValue(),
+            new Match(entry.getValue(), entry.getKey(), 2, position));
+      }
+    }
+  }
+
+  /**
+   * Adds the names within a few typing mistakes of a query, and not yet matched, to the
+   * matches.
+   *
+   * @param key     the folded query.
+   * @param matches the matches so far, by name id.
+   */
+  private void addNear(String key, Map<Integer, Match> matches) {
+    int maxDistance = maxDistance(key.length());
+    for (Map.Entry<String, Integer> entry : near(key, maxDistance).entrySet()) {
+      if (matches.containsKey(entry.getValue())) {
+        continue;
+      }
+      int distance = distance(key, entry.getKey(), maxDistance);
+      if (distance <= maxDistance) {
+        matches.put(entry.getValue(),
+            new Match(entry.getValue(), entry.getKey(), 3, distance));
+      }
+    }
+  }
+
+  /**
+   * Retrieves the names that may contain a query. For queries of at least three letters
+   * only the names having the query's rarest three-letter sequence are returned.
+   *
+   * @param key the folded query.
+   * @return the candidate names and their ids, all of which contain the query.
+   */
+  private Map<String, Integer> containing(String key) {
+    Map<String, Integer> candidates = new HashMap<>();
+    if (key.length() < GRAM) {
+      for (Map.Entry<String, Integer> entry : idsByKey.entrySet()) {
+        if (entry.getKey().contains(key)) {
+          candidates.put(entry.getKey(), entry.getValue());
+        }
+      }
+      return candidates;
+    }
+    Set<Integer> rarest = null;
+    for (int i = 0; i + GRAM <= key.length(); i++) {
+      Set<Integer> ids = idsByGram.get(key.substring(i, i + GRAM));
+      if (ids == null) {
+        return candidates;
+      }
+      if (rarest == null || ids.size() < rarest.size()) {
+        rarest = ids;
+      }
+    }
+    for (int nameId : rarest) {
+      String name = keysById.get(nameId);
+      if (name.contains(key)) {
+        candidates.put(name, nameId);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Retrieves the names that may be within a number of typing mistakes of a query.
+   * A mistake changes at most four of the three-letter sequences of a name (a swap of two
+   * letters touches the most), so a close name shares all but that many of the query's
+   * sequences. When the query is too short
+   * for that to rule anything out, every name of a close enough length is returned.
+   *
+   * @param key         the folded query.
+   * @param maxDistance the largest number of mistakes.
+   * @return the candidate names and their ids.
+   */
+  private Map<String, Integer> near(String key, int maxDistance) {
+    Map<String, Integer> candidates = new HashMap<>();
+    List<String> queryGrams = grams(key);
+    int needed = queryGrams.size() - (GRAM + 1) * maxDistance;
+    if (needed <= 0) {
+      for (Map.Entry<String, Integer> entry : idsByKey.entrySet()) {
+        if (Math.abs(entry.getKey().length() - key.length()) <= maxDistance) {
+          candidates.put(entry.getKey(), entry.getValue());
+        }
+      }
+      return candidates;
+    }
+    Map<Integer, Integer> shared = new HashMap<>();
+    for (String gram : queryGrams) {
+      for (int nameId : idsByGram.getOrDefault(gram, Set.of())) {
+        if (shared.merge(nameId, 1, Integer::sum) == needed) {
+          candidates.put(keysById.get(nameId), nameId);
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Retrieves the number of typing mistakes allowed in a query of a given length.
+   *
+   * @param length the length of the query.
+   * @return 0 for queries shorter than 3 letters, 1 up to 5 letters, and 2 otherwise.
+   */
+  static int maxDistance(int length) {
+    if (length < 3) {
+      return 0;
+    }
+    return length <= 5 ? 1 : 2;
+  }
+
+  /**
+   * Calculates the edit distance between two strings, giving up once it exceeds a bound.
+   * Swapping two neighbouring letters, a common typing mistake, counts as one edit.
+   *
+   * @param a           the first string.
+   * @param b           the second string.
+   * @param maxDistance the bound.
+   * @return the number of insertions, deletions, substitutions and swaps turning
+   *     {@code a} into {@code b}, or {@code maxDistance + 1} if more are needed.
+   */
+  static int distance(String a, String b, int maxDistance) {
+    if (Math.abs(a.length() - b.length()) > maxDistance) {
+      return maxDistance + 1;
+    }
+    int[] beforePrevious = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMin = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1,
+            previous[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+            && a.charAt(i - 2) == b.charAt(j - 1)) {
+          current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+        }
+        rowMin = Math.min(rowMin, current[j]);
+      }
+      if (rowMin > maxDistance) {
+        return maxDistance + 1;
+      }
+      int[] swap = beforePrevious;
+      beforePrevious = previous;
+      previous = current;
+      current = swap;
+    }
+    return Math.min(previous[b.length()], maxDistance + 1);
+  }
+
+  /**
+   * Splits a folded name into its three-letter sequences, with start and end marks.
+   *
+   * @param key the folded name.
+   * @return the distinct sequences, one per letter of the name.
+   */
+  private static List<String> grams(String key) {
+    String marked = START + key + END;
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + GRAM <= marked.length(); i++) {
+      grams.add(marked.substring(i, i + GRAM));
+    }
+    return new ArrayList<>(grams);
+  }
+
+  /**
+   * A matching name and how well it matches.
+   */
+  private static final class Match {
+    private final int nameId;
+    private final String key;
+    private final int tier;
+    private final int rank;
+
+    private Match(int nameId, String key, int tier, int rank) {
+      this.nameId = nameId;
+      this.key = key;
+      this.tier = tier;
+      this.rank = rank;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package edu.ntnu.idi.idatt;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code IngredientSymbols} class is the global symbol table of grocery and ingredient
+ * names. Each name is case-folded once and given a dense int id, shared by every name that
+ * differs from it only in case, so "Milk" and "milk" have the same id.
+ *
+ * <p>{@code Grocery} looks up the {@link Symbol} of its name when it is made and keeps it,
+ * so storages and recipes can match names by comparing ids and index per-name data by id,
+ * instead of folding and hashing strings on every lookup.
+ *
+ * <p>The table only holds its symbols weakly. A name is forgotten once no grocery or
+ * ingredient with it is left, and its id is then given to a later name, so names that
+ * clients only passed through, like those of refused requests, do not stay in memory.
+ * An id is therefore only meaningful while something holds its symbol; storages and
+ * recipes hold their groceries, and so the symbols of the ids they index.
+ *
+ * <p>The table is safe to use from several threads and takes no lock of its own, so
+ * storages in different threads never wait for each other to add names.
+ */
+final class IngredientSymbols {
+  /**
+   * Returned by {@link #find(String)} for names that have no id.
+   */
+  static final int NONE = -1;
+
+  /**
+   * The symbol of every name in use, keyed by folded name.
+   */
+  private static final ConcurrentHashMap<String, Entry> SYMBOLS = new ConcurrentHashMap<>();
+
+  /**
+   * The entries whose symbols are no longer used by anything, to be removed.
+   */
+  private static final ReferenceQueue<Symbol> COLLECTED = new ReferenceQueue<>();
+
+  /**
+   * The ids of forgotten names, given out again before new ones.
+   */
+  private static final Queue<Integer> FREE_IDS = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The number of ids given out at least once. Every id is less than this number.
+   */
+  private static final AtomicInteger ID_COUNT = new AtomicInteger();
+
+  private IngredientSymbols() {
+  }
+
+  /**
+   * Retrieves the symbol of a name, giving it a new id if no name differing from it only
+   * in case is in use.
+   *
+   * @param name the name.
+   * @return the symbol of the name, or {@code null} if {@code name} is {@code null}.
+   */
+  static Symbol symbol(String name) {
+    if (name == null) {
+      return null;
+    }
+    forgetCollected();
+    String key = fold(name);
+    while (true) {
+      Entry entry = SYMBOLS.get(key);
+      Symbol symbol = entry == null ? null : entry.get();
+      if (symbol != null) {
+        return symbol;
+      }
+      Integer free = FREE_IDS.poll();
+      Symbol created = new Symbol(free != null ? free : ID_COUNT.getAndIncrement(), key);
+      Entry fresh = new Entry(created);
+      if (entry == null ? SYMBOLS.putIfAbsent(key, fresh) == null
+          : SYMBOLS.replace(key, entry, fresh)) {
+        return created;
+      }
+      // Another thread gave the name a symbol first; nobody has seen this id
+      FREE_IDS.add(created.id);
+    }
+  }
+
+  /**
+   * Retrieves the id of a name in use without giving it one. Used for lookups, so
+   * searching for names that were never stored does not grow the table.
+   *
+   * @param name the name.
+   * @return the id of the name, or {@link #NONE} if it has none or is {@code null}.
+   */
+  static int find(String name) {
+    if (name == null) {
+      return NONE;
+    }
+    Entry entry = SYMBOLS.get(fold(name));
+    Symbol symbol = entry == null ? null : entry.get();
+    return symbol == null ? NONE : symbol.id;
+  }
+
+  /**
+   * Retrieves the number of names in the table, including forgotten names whose entries
+   * have not been removed yet.
+   *
+   * @return the number of names.
+   */
+  static int count() {
+    return SYMBOLS.size();
+  }
+
+  /**
+   * Removes the entries of forgotten names and frees their ids.
+   */
+  private static void forgetCollected() {
+    Object collected;
+    while ((collected = COLLECTED.poll()) != null) {
+      Entry entry = (Entry) collected;
+      // A name given a new symbol since keeps its new entry
+      SYMBOLS.remove(entry.key, entry);
+      FREE_IDS.add(entry.id);
+    }
+  }
+
+  /**
+   * Folds a name so that names differing only in case are equal. Names fold to the same
+   * key exactly when {@link String#equalsIgnoreCase(String)} finds them equal, which
+   * compares each character after converting it to upper case and back to lower case.
+   * This differs from {@code toLowerCase(Locale.ROOT)}, which may change the length of
+   * a name, for example for the dotted capital I.
+   *
+   * @param name the name.
+   * @return the case-folded name.
+   */
+  static String fold(String name) {
+    int i = 0;
+    while (i < name.length()) {
+      char c = name.charAt(i);
+      if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+        break;
+      }
+      i++;
+    }
+    if (i == name.length()) {
+      return name; // Already folded, as most names are
+    }
+    StringBuilder folded = new StringBuilder(name.length()).append(name, 0, i);
+    while (i < name.length()) {
+      int codePoint = name.codePointAt(i);
+      folded.appendCodePoint(Character.toLowerCase(Character.toUpperCase(codePoint)));
+      i += Character.charCount(codePoint);
+    }
+    return folded.toString();
+  }
+
+  /**
+   * A name in use and its id. Kept by every grocery with the name, so the id stays given
+   * to the name until the last of them is gone.
+   */
+  static final class Symbol {
+    private final int id;
+    private final String key;
+
+    private Symbol(int id, String key) {
+      this.id = id;
+      this.key = key;
+    }
+
+    /**
+     * Retrieves the id of the name.
+     *
+     * @return the id.
+     */
+    int getId() {
+      return id;
+    }
+
+    /**
+     * Retrieves the case-folded name.
+     *
+     * @return the folded name.
+     */
+    String getKey() {
+      return key;
+    }
+  }
+
+  /**
+   * The table's weak reference to a symbol, which remembers the name and id so they can
+   * be freed after the symbol is gone.
+   */
+  private static final class Entry extends WeakReference<Symbol> {
+    private final String key;
+    private final int id;
+
+    private Entry(Symbol symbol) {
+      super(symbol, COLLECTED);
+      this.key = symbol.key;
+      this.id = symbol.id;
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code JsonReader} class parses the JSON request bodies of the HTTP API.
+ * Objects become a {@code Map<String, Object>}, arrays a {@code List<Object>}, numbers a
+ * {@code Double}, and strings, booleans and {@code null} the matching Java values.
+ */
+final class JsonReader {
+  private final String text;
+  private int position;
+
+  private JsonReader(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Parses a JSON object.
+   *
+   * @param text the JSON text.
+   * @return the fields of the object, in the order they appear.
+   * @throws IllegalArgumentException if the text is not a single valid JSON object.
+   */
+  static Map<String, Object> parseObject(String text) {
+    JsonReader reader = new JsonReader(text);
+    reader.skipWhitespace();
+    if (reader.peek() != '{') {
+      throw reader.error("Expected an object");
+    }
+    Map<String, Object> object = reader.readObject();
+    reader.skipWhitespace();
+    if (reader.position < text.length()) {
+      throw reader.error("Unexpected text after the object");
+    }
+    return object;
+  }
+
+  private Object readValue() {
+    skipWhitespace();
+    char c = peek();
+    switch (c) {
+      case '{':
+        return readObject();
+      case '[':
+        return readArray();
+      case '"':
+        return readString();
+      case 't':
+        expect("true");
+        return Boolean.TRUE;
+      case 'f':
+        expect("false");
+        return Boolean.FALSE;
+      case 'n':
+        expect("null");
+        return null;
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          return readNumber();
+        }
+        throw error("Unexpected character '" + c + "'");
+    }
+  }
+
+  private Map<String, Object> readObject() {
+    Map<String, Object> object = new LinkedHashMap<>();
+    position++;
+    skipWhitespace();
+    if (peek() == '}') {
+      position++;
+      return object;
+    }
+    while (true) {
+      skipWhitespace();
+      if (peek() != '"') {
+        throw error("Expected a field name");
+      }
+      String name = readString();
+      skipWhitespace();
+      if (next() != ':') {
+        throw error("Expected ':' after a field name");
+      }
+      object.put(name, readValue());
+      skipWhitespace();
+      char c = next();
+      if (c == '}') {
+        return object;
+      }
+      if (c != ',') {
+        throw error("Expected ',' or '}' in an object");
+      }
+    }
+  }
+
+  private List<Object> readArray() {
+    List<Object> array = new ArrayList<>();
+    position++;
+    skipWhitespace();
+    if (peek() == ']') {
+      position++;
+      return array;
+    }
+    while (true) {
+      array.add(readValue());
+      skipWhitespace();
+      char c = next();
+      if (c == ']') {
+        return array;
+      }
+      if (c != ',') {
+        throw error("Expected ',' or ']' in an array");
+      }
+    }
+  }
+
+  private String readString() {
+    position++;
+    StringBuilder value = new StringBuilder();
+    while (true) {
+      char c = next();
+      if (c == '"') {
+        return value.toString();
+      }
+      if (c != '\\') {
+        value.append(c);
+        continue;
+      }
+      char escaped = next();
+      switch (escaped) {
+        case 'b' -> value.append('\b');
+        case 'f' -> value.append('\f');
+        case 'n' -> value.append('\n');
+        case 'r' -> value.append('\r');
+        case 't' -> value.append('\t');
+        case 'u' -> {
+          if (position + 4 > text.length()) {
+            throw error("Incomplete unicode escape");
+          }
+          try {
+            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+          } catch (NumberFormatException e) {
+            throw error("Invalid unicode escape");
+          }
+          position += 4;
+        }
+        case '"', '\\', '/' -> value.append(escaped);
+        default -> throw error("Invalid escape '\\" + escaped + "'");
+      }
+    }
+  }
+
+  private Double readNumber() {
+    int start = position;
+    while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+      position++;
+    }
+    try {
+      return Double.valueOf(text.substring(start, position));
+    } catch (NumberFormatException e) {
+      throw error("Invalid number");
+    }
+  }
+
+  private void expect(String word) {
+    if (!text.startsWith(word, position)) {
+      throw error("Expected " + word);
+    }
+    position += word.length();
+  }
+
+  private void skipWhitespace() {
+    while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+      position++;
+    }
+  }
+
+  private char peek() {
+    if (position >= text.length()) {
+      throw error("Unexpected end of the text");
+    }
+    return text.charAt(position);
+  }
+
+  private char next() {
+    char c = peek();
+    position++;
+    return c;
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException("Invalid JSON at position " + position + ": "
+        + message + ".");
+  }
+}
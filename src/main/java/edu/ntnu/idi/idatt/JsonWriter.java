@@ -0,0 +1,157 @@
+package edu.ntnu.idi.idatt;
+
+/**
+ * The {@code JsonWriter} class builds the JSON responses of the HTTP API. Commas between
+ * fields and array elements are added automatically.
+ */
+final class JsonWriter {
+  private final StringBuilder json = new StringBuilder(256);
+
+  /**
+   * Whether the object or array being written already has an element, so the next one
+   * needs a comma. Bit {@code n} is for nesting level {@code n}.
+   */
+  private long hasElement;
+  private int depth;
+
+  /**
+   * Whether a field name was just written, so the next value needs no comma.
+   */
+  private boolean afterName;
+
+  JsonWriter beginObject() {
+    beginValue();
+    json.append('{');
+    depth++;
+    return this;
+  }
+
+  JsonWriter endObject() {
+    hasElement &= ~(1L << depth);
+    depth--;
+    json.append('}');
+    return this;
+  }
+
+  JsonWriter beginArray() {
+    beginValue();
+    json.append('[');
+    depth++;
+    return this;
+  }
+
+  JsonWriter endArray() {
+    hasElement &= ~(1L << depth);
+    depth--;
+    json.append(']');
+    return this;
+  }
+
+  /**
+   * Writes the name of the next field of the current object.
+   *
+   * @param name the field name.
+   * @return this writer.
+   */
+  JsonWriter name(String name) {
+    beginValue();
+    quote(name);
+    json.append(':');
+    afterName = true;
+    return this;
+  }
+
+  JsonWriter value(String value) {
+    beginValue();
+    if (value == null) {
+      json.append("null");
+    } else {
+      quote(value);
+    }
+    return this;
+  }
+
+  JsonWriter value(double value) {
+    beginValue();
+    if (Double.isFinite(value)) {
+      json.append(value);
+    } else {
+      json.append("null");
+    }
+    return this;
+  }
+
+  JsonWriter value(long value) {
+    beginValue();
+    json.append(value);
+    return this;
+  }
+
+  JsonWriter value(boolean value) {
+    beginValue();
+    json.append(value);
+    return this;
+  }
+
+  JsonWriter value(Object value) {
+    return value(value == null ? null : value.toString());
+  }
+
+  /**
+   * Writes a grocery as an object.
+   *
+   * @param grocery the grocery.
+   * @return this writer.
+   */
+  JsonWriter grocery(Grocery grocery) {
+    return beginObject()
+        .name("name").value(grocery.getName())
+        .name("quantity").value(grocery.getQuantity())
+        .name("unit").value(grocery.getUnit())
+        .name("expirationDate").value(grocery.getExpirationDate())
+        .name("pricePerUnit").value(grocery.getPricePerUnit())
+        .endObject();
+  }
+
+  /**
+   * Adds the comma before a value or field name if it is not the first in its parent.
+   */
+  private void beginValue() {
+    if (afterName) {
+      afterName = false;
+      return;
+    }
+    long bit = 1L << depth;
+    if ((hasElement & bit) != 0) {
+      json.append(',');
+    }
+    hasElement |= bit;
+  }
+
+  private void quote(String text) {
+    json.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '"' -> json.append("\\\"");
+        case '\\' -> json.append("\\\\");
+        case '\n' -> json.append("\\n");
+        case '\r' -> json.append("\\r");
+        case '\t' -> json.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+        }
+      }
+    }
+    json.append('"');
+  }
+
+  @Override
+  public String toString() {
+    return json.toString();
+  }
+}
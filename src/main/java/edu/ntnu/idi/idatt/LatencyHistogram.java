@@ -0,0 +1,187 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code LatencyHistogram} class counts how long an operation takes, so percentiles
+ * such as the median and the 99th percentile can be reported without keeping every
+ * measurement.
+ *
+ * <p>Durations are counted in buckets whose width grows with the duration: each power of
+ * two is split into {@value #SUB_BUCKETS} buckets of equal width, so a percentile is off
+ * by at most about 6 % whatever the duration, and the histogram has a fixed size from one
+ * nanosecond to centuries. Recording a duration is a few shifts and atomic increments,
+ * without locks or allocation, so operations can be measured from many threads at once.
+ */
+public final class LatencyHistogram implements MetricsRegistry.HistogramMBean {
+  /**
+   * The number of bits of a duration, after its highest set bit, that pick its bucket.
+   */
+  private static final int SUB_BUCKET_BITS = 4;
+
+  /**
+   * The number of buckets per power of two.
+   */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * The number of buckets needed for every non-negative {@code long}.
+   */
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final String name;
+  private final AtomicLongArray counts;
+  private final LongAdder totalNanos;
+  private final LongAccumulator maxNanos;
+
+  /**
+   * Constructs an empty {@code LatencyHistogram}.
+   *
+   * @param name the name of the measured operation, for example
+   *             {@code "MenuCases.canPrepareRecipe"}.
+   */
+  LatencyHistogram(String name) {
+    this.name = name;
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.totalNanos = new LongAdder();
+    this.maxNanos = new LongAccumulator(Math::max, 0L);
+  }
+
+  /**
+   * Records one run of the operation.
+   *
+   * @param nanos how long it took, in nanoseconds. Negative durations count as 0.
+   */
+  public void record(long nanos) {
+    long duration = Math.max(0L, nanos);
+    counts.incrementAndGet(bucket(duration));
+    totalNanos.add(duration);
+    maxNanos.accumulate(duration);
+  }
+
+  /**
+   * Records one run of the operation that started at a given time.
+   *
+   * @param startNanos the value of {@link System#nanoTime()} when the operation started.
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Retrieves the name of the measured operation.
+   *
+   * @return the name.
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long getCount() {
+    long runs = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      runs += counts.get(i);
+    }
+    return runs;
+  }
+
+  @Override
+  public double getMeanMicros() {
+    long runs = getCount();
+    return runs == 0 ? 0.0 : totalNanos.sum() / 1000.0 / runs;
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return maxNanos.get() / 1000.0;
+  }
+
+  @Override
+  public double getP50Micros() {
+    return getPercentileNanos(0.5) / 1000.0;
+  }
+
+  @Override
+  public double getP99Micros() {
+    return getPercentileNanos(0.99) / 1000.0;
+  }
+
+  @Override
+  public double getP999Micros() {
+    return getPercentileNanos(0.999) / 1000.0;
+  }
+
+  /**
+   * Retrieves the duration that a given share of the runs took at most. The duration is
+   * the upper end of the bucket holding that run, but never more than the longest run.
+   *
+   * @param share the share of the runs, from 0 to 1, for example 0.99.
+   * @return the duration in nanoseconds, or 0 if nothing has been recorded.
+   * @throws IllegalArgumentException if {@code share} is not between 0 and 1.
+   */
+  public long getPercentileNanos(double share) {
+    if (!(share >= 0.0 && share <= 1.0)) {
+      throw new IllegalArgumentException("Share must be between 0 and 1");
+    }
+    long[] snapshot = new long[BUCKETS];
+    long runs = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      runs += snapshot[i];
+    }
+    if (runs == 0) {
+      return 0L;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(share * runs));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), maxNanos.get());
+      }
+    }
+    return maxNanos.get();
+  }
+
+  /**
+   * Retrieves the bucket of a duration.
+   *
+   * @param nanos the duration, not negative.
+   * @return the index of the bucket.
+   */
+  static int bucket(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+    int subBucket = (int) (nanos >>> shift) - SUB_BUCKETS;
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Retrieves the shortest duration counted in a bucket.
+   *
+   * @param bucket the index of the bucket.
+   * @return the duration in nanoseconds.
+   */
+  static long lowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+  }
+
+  /**
+   * Retrieves the longest duration counted in a bucket.
+   *
+   * @param bucket the index of the bucket.
+   * @return the duration in nanoseconds.
+   */
+  static long upperBound(int bucket) {
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(bucket + 1) - 1;
+  }
+}
@@ -0,0 +1,134 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.Arrays;
+
+/**
+ * The {@code LotHeap} class holds the lots of one grocery name in a {@code FoodStorage} as a
+ * binary min-heap ordered by expiration date, so the lot expiring soonest is always at the
+ * top. Lots expiring on the same date are ordered by when they were added to the storage,
+ * see {@link Grocery#getSequence()}.
+ *
+ * <p>Each lot knows its position in the heap, so a lot can be removed, or moved after its
+ * expiration date has changed, in logarithmic time without searching for it.
+ */
+final class LotHeap {
+  /**
+   * The number of lots a new heap has room for.
+   */
+  private static final int INITIAL_CAPACITY = 4;
+
+  private Grocery[] lots;
+  private int size;
+
+  /**
+   * Constructs an empty {@code LotHeap}.
+   */
+  LotHeap() {
+    this.lots = new Grocery[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Retrieves the lot expiring soonest.
+   *
+   * @return the first lot, or {@code null} if the heap is empty.
+   */
+  Grocery peek() {
+    return size == 0 ? null : lots[0];
+  }
+
+  /**
+   * Retrieves the number of lots in the heap.
+   *
+   * @return the number of lots.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds a lot to the heap.
+   *
+   * @param grocery the lot, not already in a heap.
+   */
+  void add(Grocery grocery) {
+    if (size == lots.length) {
+      lots = Arrays.copyOf(lots, size * 2);
+    }
+    place(grocery, size++);
+    siftUp(grocery.getHeapIndex());
+  }
+
+  /**
+   * Removes a lot from the heap.
+   *
+   * @param grocery the lot, which must be in this heap.
+   */
+  void remove(Grocery grocery) {
+    int index = grocery.getHeapIndex();
+    Grocery last = lots[--size];
+    lots[size] = null;
+    grocery.setHeapIndex(-1);
+    if (last != grocery) {
+      place(last, index);
+      siftDown(index);
+      siftUp(last.getHeapIndex());
+    }
+  }
+
+  /**
+   * Moves a lot to its place after its expiration date has changed.
+   *
+   * @param grocery the lot, which must be in this heap.
+   */
+  void update(Grocery grocery) {
+    siftDown(grocery.getHeapIndex());
+    siftUp(grocery.getHeapIndex());
+  }
+
+  private void siftUp(int index) {
+    Grocery grocery = lots[index];
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (!before(grocery, lots[parent])) {
+        break;
+      }
+      place(lots[parent], index);
+      index = parent;
+    }
+    place(grocery, index);
+  }
+
+  private void siftDown(int index) {
+    Grocery grocery = lots[index];
+    while (2 * index + 1 < size) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && before(lots[child + 1], lots[child])) {
+        child++;
+      }
+      if (!before(lots[child], grocery)) {
+        break;
+      }
+      place(lots[child], index);
+      index = child;
+    }
+    place(grocery, index);
+  }
+
+  private void place(Grocery grocery, int index) {
+    lots[index] = grocery;
+    grocery.setHeapIndex(index);
+  }
+
+  /**
+   * Checks if a lot comes before another: it expires sooner, or on the same date but was
+   * added to the storage earlier.
+   *
+   * @param a the first lot.
+   * @param b the second lot.
+   * @return {@code true} if {@code a} comes before {@code b}.
+   */
+  private static boolean before(Grocery a, Grocery b) {
+    int order = a.getExpirationDate().compareTo(b.getExpirationDate());
+    return order < 0 || (order == 0 && a.getSequence() < b.getSequence());
+  }
+}
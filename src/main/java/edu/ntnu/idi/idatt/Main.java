@@ -1,12 +1,63 @@
 package edu.ntnu.idi.idatt;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
 
 public class Main {
 
-  public static void main(String[] args) {
+  /**
+   * Starts the text user interface. With {@code --http [port]} the HTTP API is started
+   * instead, and with {@code --batch [file]} the commands in the file, or read from
+   * standard input, are run without the menu.
+   *
+   * @param args the command line arguments.
+   * @throws IOException if the HTTP API cannot be started or the commands cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equals("--http")) {
+      int port = args.length > 1 ? Integer.parseInt(args[1]) : GroceryApiServer.DEFAULT_PORT;
+      GroceryApiServer.run(port);
+      return;
+    }
     TextUserInterface system = new TextUserInterface();
     system.init();
+    if (args.length > 0 && args[0].equals("--batch")) {
+      runBatch(system, args.length > 1 ? Path.of(args[1]) : null);
+      return;
+    }
     system.start();
   }
 
-}
\ No newline at end of file
+  /**
+   * Runs a batch of commands and writes a summary to standard error.
+   *
+   * @param system the initialized user interface.
+   * @param file   the file with the commands, or {@code null} for standard input.
+   * @throws IOException if the commands cannot be read.
+   */
+  private static void runBatch(TextUserInterface system, Path file) throws IOException {
+    // Writes straight to the console in large blocks, bypassing System.out's line flushing
+    Writer out = new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16);
+    try (BufferedReader in = file == null
+        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+        : Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      BatchCommandRunner.Result result = system.runBatch(in, out);
+      System.err.printf(Locale.US, "Ran %d commands (%d failed) in %.2f s (%.0f commands/s).%n",
+          result.getCommands(), result.getFailedCommands(), result.getElapsedNanos() / 1e9,
+          result.getCommandsPerSecond());
+    }
+  }
+
+}
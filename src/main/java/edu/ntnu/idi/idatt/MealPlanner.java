@@ -0,0 +1,604 @@
+package edu.ntnu.idi.idatt;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code MealPlanner} class plans meals from a {@code Cookbook} for a number of days,
+ * choosing recipes and portions so that as little as possible of the food in a
+ * {@code FoodStorage} expires before it is eaten.
+ *
+ * <p>Planning works on a copy of the stock, and the storage is not changed. Ingredients are
+ * always taken from the lots expiring soonest. First, each day is filled in order with the
+ * recipe and number of portions that use the most value of lots expiring during the plan,
+ * per portion, where lots expiring sooner count a little more. This greedy plan is then
+ * improved by a bounded local search: swapping the meals of two days, and replacing the
+ * meals of a day with one of the other recipes that fitted that day, keeping any change
+ * that serves more portions or lets less value expire. The search stops when no change
+ * helps, or after {@link #MAX_EVALUATIONS} plans have been tried, so planning stays fast
+ * with thousands of recipes and lots.
+ */
+public class MealPlanner {
+  /**
+   * The largest number of plans the local search tries.
+   */
+  static final int MAX_EVALUATIONS = 2000;
+
+  /**
+   * The number of other recipes per day the local search may replace that day's meals with.
+   */
+  private static final int ALTERNATIVES = 5;
+
+  /**
+   * Quantities and values within this of each other are treated as equal.
+   */
+  private static final double EPSILON = 1e-9;
+
+  private final FoodStorage foodStorage;
+  private final Cookbook cookbook;
+
+  /**
+   * Constructs a {@code MealPlanner}.
+   *
+   * @param foodStorage the {@code FoodStorage} to take the ingredients from.
+   * @param cookbook    the {@code Cookbook} with the recipes to choose from.
+   */
+  public MealPlanner(FoodStorage foodStorage, Cookbook cookbook) {
+    this.foodStorage = foodStorage;
+    this.cookbook = cookbook;
+  }
+
+  /**
+   * Plans the meals for a number of days.
+   *
+   * @param start          the first day of the plan.
+   * @param days           the number of days. Must be greater than 0.
+   * @param servingsPerDay the number of portions to serve each day. Must be greater than 0.
+   * @return the plan.
+   * @throws IllegalArgumentException if {@code start} is {@code null}, or {@code days} or
+   *                                  {@code servingsPerDay} is less than or equal to 0.
+   */
+  public Plan plan(LocalDate start, int days, int servingsPerDay) {
+    if (start == null) {
+      throw new IllegalArgumentException("Start date cannot be null");
+    }
+    if (days <= 0) {
+      throw new IllegalArgumentException("Number of days must be greater than 0.");
+    }
+    if (servingsPerDay <= 0) {
+      throw new IllegalArgumentException("Servings per day must be greater than 0.");
+    }
+    long startTime = System.nanoTime();
+    Stock stock = new Stock(foodStorage, start, days);
+    Search search = new Search(stock, dishes(stock), servingsPerDay);
+    search.fillGreedily();
+    search.improve();
+    return search.toPlan(start, System.nanoTime() - startTime);
+  }
+
+  /**
+   * Turns the recipes that use only groceries in the stock into dishes. Recipes without
+   * ingredients use nothing from the storage, and are left out.
+   *
+   * @param stock the stock.
+   * @return the dishes, in cookbook order.
+   */
+  private List<Dish> dishes(Stock stock) {
+    List<Dish> dishes = new ArrayList<>();
+    recipes:
+    for (Recipe recipe : cookbook.getRecipes()) {
+      if (recipe.getIngredients().isEmpty()) {
+        continue;
+      }
+      Map<Integer, Double> perPortion = new LinkedHashMap<>();
+      for (Grocery ingredient : recipe.getIngredients()) {
+        Unit unit = ingredient.getMeasurementUnit();
+        Integer pool = stock.pools.get(Stock.poolKey(ingredient.getNameId(), unit));
+        if (pool == null) {
+          continue recipes;
+        }
+        perPortion.merge(pool, unit.toBase(ingredient.getQuantity()) / recipe.getPortionSize(),
+            Double::sum);
+      }
+      int[] pools = new int[perPortion.size()];
+      double[] quantities = new double[perPortion.size()];
+      int i = 0;
+      for (Map.Entry<Integer, Double> entry : perPortion.entrySet()) {
+        pools[i] = entry.getKey();
+        quantities[i] = entry.getValue();
+        i++;
+      }
+      dishes.add(new Dish(recipe, pools, quantities));
+    }
+    return dishes;
+  }
+
+  /**
+   * A copy of the lots in the storage that are not expired on the first day of the plan.
+   * Lots are grouped into pools, one per grocery name and unit dimension, and each pool
+   * is sorted by expiration date, soonest first.
+   */
+  private static final class Stock {
+    private final long firstDay;
+    private final long endDay;
+    private final int days;
+    private final Map<Long, Integer> pools;
+    private final int[] poolStarts;
+    private final long[] expirationDays;
+    private final double[] valuesPerBase;
+    private final double[] quantities;
+    private double expiringValue;
+
+    private Stock(FoodStorage foodStorage, LocalDate start, int days) {
+      this.firstDay = start.toEpochDay();
+      this.endDay = firstDay + days;
+      this.days = days;
+      Map<Long, List<double[]>> lotsByPool = new HashMap<>();
+      // Read everything needed inside the visit, which a shared storage guards
+      foodStorage.forEachGrocery(grocery -> {
+        long expirationDay = grocery.getExpirationDate().toEpochDay();
+        if (expirationDay < firstDay || FoodStorage.isUsedUp(grocery)) {
+          return;
+        }
+        if (expirationDay < endDay) {
+          expiringValue += grocery.getTotalValue();
+        }
+        Unit unit = grocery.getMeasurementUnit();
+        double base = unit.toBase(grocery.getQuantity());
+        lotsByPool.computeIfAbsent(poolKey(grocery.getNameId(), unit), k -> new ArrayList<>())
+            .add(new double[] {expirationDay, base, grocery.getTotalValue() / base});
+      });
+
+      this.pools = new HashMap<>();
+      int lots = 0;
+      for (List<double[]> pool : lotsByPool.values()) {
+        lots += pool.size();
+      }
+      this.poolStarts = new int[lotsByPool.size() + 1];
+      this.expirationDays = new long[lots];
+      this.valuesPerBase = new double[lots];
+      this.quantities = new double[lots];
+      int lot = 0;
+      for (Map.Entry<Long, List<double[]>> entry : lotsByPool.entrySet()) {
+        List<double[]> pool = entry.getValue();
+        pool.sort(Comparator.comparingDouble(values -> values[0]));
+        poolStarts[pools.size()] = lot;
+        pools.put(entry.getKey(), pools.size());
+        for (double[] values : pool) {
+          expirationDays[lot] = (long) values[0];
+          quantities[lot] = values[1];
+          valuesPerBase[lot] = values[2];
+          lot++;
+        }
+      }
+      poolStarts[pools.size()] = lot;
+    }
+
+    /**
+     * Retrieves the key of the pool of a grocery name and unit dimension.
+     *
+     * @param nameId the id of the grocery name.
+     * @param unit   the unit.
+     * @return the pool key.
+     */
+    private static long poolKey(int nameId, Unit unit) {
+      return (long) nameId << Integer.SIZE | unit.getDimension();
+    }
+
+    /**
+     * Retrieves how much a lot taken on a day is worth to the plan: nothing if it would
+     * not expire during the plan anyway, and otherwise its value per base unit, counted
+     * up to twice as high the sooner it expires when {@code urgent} is set.
+     *
+     * @param lot    the lot.
+     * @param urgent whether lots expiring sooner count more.
+     * @return the worth per base unit.
+     */
+    private double worth(int lot, boolean urgent) {
+      if (expirationDays[lot] >= endDay) {
+        return 0.0;
+      }
+      double weight = urgent ? 1.0 + (double) (endDay - expirationDays[lot]) / days : 1.0;
+      return valuesPerBase[lot] * weight;
+    }
+
+    /**
+     * Retrieves the largest number of portions of a dish the remaining lots allow on a day.
+     *
+     * @param remaining the quantity left of each lot.
+     * @param dish      the dish.
+     * @param day       the day, as an epoch day.
+     * @param most      the largest number of portions wanted.
+     * @return the number of portions, from 0 to {@code most}.
+     */
+    private int portions(double[] remaining, Dish dish, long day, int most) {
+      int portions = most;
+      for (int i = 0; i < dish.pools.length && portions > 0; i++) {
+        double available = 0.0;
+        for (int lot = poolStarts[dish.pools[i]]; lot < poolStarts[dish.pools[i] + 1]; lot++) {
+          if (expirationDays[lot] >= day) {
+            available += remaining[lot];
+          }
+        }
+        portions = Math.min(portions,
+            (int) Math.floor(available / dish.quantities[i] + EPSILON));
+      }
+      return portions;
+    }
+
+    /**
+     * Takes the ingredients of a number of portions of a dish on a day, soonest expiring
+     * lots first.
+     *
+     * @param remaining the quantity left of each lot, changed only if {@code apply} is set.
+     * @param dish      the dish.
+     * @param portions  the number of portions.
+     * @param day       the day, as an epoch day.
+     * @param urgent    whether lots expiring sooner count more, see {@link #worth}.
+     * @param apply     whether to take the ingredients or only to work out their worth.
+     * @return the worth of the lots taken, or -1 if there is not enough.
+     */
+    private double take(double[] remaining, Dish dish, int portions, long day,
+        boolean urgent, boolean apply) {
+      double worth = 0.0;
+      for (int i = 0; i < dish.pools.length; i++) {
+        double needed = dish.quantities[i] * portions;
+        int lot = poolStarts[dish.pools[i]];
+        int end = poolStarts[dish.pools[i] + 1];
+        for (; lot < end && needed > EPSILON; lot++) {
+          if (expirationDays[lot] < day || remaining[lot] <= 0) {
+            continue;
+          }
+          double taken = Math.min(needed, remaining[lot]);
+          worth += taken * worth(lot, urgent);
+          needed -= taken;
+          if (apply) {
+            remaining[lot] -= taken;
+          }
+        }
+        if (needed > EPSILON) {
+          return -1.0;
+        }
+      }
+      return worth;
+    }
+  }
+
+  /**
+   * A recipe and the quantity of each pool one portion of it takes, in base units.
+   */
+  private static final class Dish {
+    private final Recipe recipe;
+    private final int[] pools;
+    private final double[] quantities;
+
+    private Dish(Recipe recipe, int[] pools, double[] quantities) {
+      this.recipe = recipe;
+      this.pools = pools;
+      this.quantities = quantities;
+    }
+  }
+
+  /**
+   * The greedy plan and its local search.
+   */
+  private static final class Search {
+    private final Stock stock;
+    private final List<Dish> dishes;
+    private final int servingsPerDay;
+    private final List<List<Meal>> days;
+    private final List<List<Dish>> alternatives;
+    private int evaluations;
+
+    private Search(Stock stock, List<Dish> dishes, int servingsPerDay) {
+      this.stock = stock;
+      this.dishes = dishes;
+      this.servingsPerDay = servingsPerDay;
+      this.days = new ArrayList<>();
+      this.alternatives = new ArrayList<>();
+    }
+
+    /**
+     * Fills each day in order with the dishes that use the most worth per portion.
+     */
+    private void fillGreedily() {
+      double[] remaining = stock.quantities.clone();
+      for (int index = 0; index < stock.days; index++) {
+        long day = stock.firstDay + index;
+        List<Meal> meals = new ArrayList<>();
+        List<Dish> fits = new ArrayList<>();
+        Map<Dish, Double> scores = new HashMap<>();
+        int left = servingsPerDay;
+        while (left > 0) {
+          Dish best = null;
+          int bestPortions = 0;
+          double bestScore = -1.0;
+          for (Dish dish : dishes) {
+            int portions = stock.portions(remaining, dish, day, left);
+            if (portions == 0) {
+              continue;
+            }
+            double score = stock.take(remaining, dish, portions, day, true, false) / portions;
+            if (portions == servingsPerDay) {
+              fits.add(dish);
+              scores.put(dish, score);
+            }
+            if (score > bestScore + EPSILON
+                || (score > bestScore - EPSILON && portions > bestPortions)) {
+              best = dish;
+              bestPortions = portions;
+              bestScore = score;
+            }
+          }
+          if (best == null) {
+            break;
+          }
+          stock.take(remaining, best, bestPortions, day, true, true);
+          meals.add(new Meal(best.recipe, best, bestPortions));
+          left -= bestPortions;
+        }
+        fits.sort(Comparator.comparingDouble((Dish dish) -> scores.get(dish)).reversed());
+        days.add(meals);
+        alternatives.add(List.copyOf(fits.subList(0, Math.min(ALTERNATIVES, fits.size()))));
+      }
+    }
+
+    /**
+     * Improves the plan by swapping days and replacing the meals of a day, keeping each
+     * change that makes the plan better, until no change helps or the budget is spent.
+     */
+    private void improve() {
+      double best = evaluate();
+      int served = served();
+      boolean improved = true;
+      while (improved && evaluations < MAX_EVALUATIONS) {
+        improved = false;
+        for (int i = 0; i < days.size() && evaluations < MAX_EVALUATIONS; i++) {
+          for (int j = i + 1; j < days.size() && evaluations < MAX_EVALUATIONS; j++) {
+            Collections.swap(days, i, j);
+            double value = evaluate();
+            if (value > best + EPSILON) {
+              best = value;
+              improved = true;
+            } else {
+              Collections.swap(days, i, j);
+            }
+          }
+        }
+        for (int i = 0; i < days.size() && evaluations < MAX_EVALUATIONS; i++) {
+          for (Dish dish : alternatives.get(i)) {
+            if (evaluations >= MAX_EVALUATIONS) {
+              break;
+            }
+            List<Meal> meals = days.get(i);
+            if (meals.size() == 1 && meals.get(0).dish == dish) {
+              continue;
+            }
+            days.set(i, List.of(new Meal(dish.recipe, dish, servingsPerDay)));
+            double value = evaluate();
+            int replacedServed = served();
+            if (value >= 0 && (replacedServed > served
+                || (replacedServed == served && value > best + EPSILON))) {
+              best = value;
+              served = replacedServed;
+              improved = true;
+            } else {
+              days.set(i, meals);
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * Works out the value of the lots expiring during the plan that the plan uses.
+     *
+     * @return the used value, or -1 if some meal cannot be made on its day.
+     */
+    private double evaluate() {
+      evaluations++;
+      double[] remaining = stock.quantities.clone();
+      double used = 0.0;
+      for (int index = 0; index < days.size(); index++) {
+        for (Meal meal : days.get(index)) {
+          double value = stock.take(remaining, meal.dish, meal.portions,
+              stock.firstDay + index, false, true);
+          if (value < 0) {
+            return -1.0;
+          }
+          used += value;
+        }
+      }
+      return used;
+    }
+
+    /**
+     * Counts the portions served by the plan.
+     *
+     * @return the number of portions.
+     */
+    private int served() {
+      int served = 0;
+      for (List<Meal> meals : days) {
+        for (Meal meal : meals) {
+          served += meal.portions;
+        }
+      }
+      return served;
+    }
+
+    private Plan toPlan(LocalDate start, long elapsedNanos) {
+      double used = evaluate();
+      return new Plan(start, servingsPerDay, List.copyOf(days.stream().map(List::copyOf)
+          .toList()), stock.expiringValue, stock.expiringValue - used, evaluations,
+          elapsedNanos);
+    }
+  }
+
+  /**
+   * A number of portions of a recipe served on one day of a plan.
+   */
+  public static final class Meal {
+    private final Recipe recipe;
+    private final Dish dish;
+    private final int portions;
+
+    private Meal(Recipe recipe, Dish dish, int portions) {
+      this.recipe = recipe;
+      this.dish = dish;
+      this.portions = portions;
+    }
+
+    /**
+     * Retrieves the recipe of the meal.
+     *
+     * @return the recipe.
+     */
+    public Recipe getRecipe() {
+      return recipe;
+    }
+
+    /**
+     * Retrieves the number of portions of the meal.
+     *
+     * @return the number of portions.
+     */
+    public int getPortions() {
+      return portions;
+    }
+  }
+
+  /**
+   * The result of planning: the meals of each day, the value expiring with and without the
+   * plan, and how long planning took.
+   */
+  public static final class Plan {
+    private final LocalDate start;
+    private final int servingsPerDay;
+    private final List<List<Meal>> days;
+    private final double expiringValue;
+    private final double wastedValue;
+    private final int evaluations;
+    private final long elapsedNanos;
+
+    private Plan(LocalDate start, int servingsPerDay, List<List<Meal>> days,
+        double expiringValue, double wastedValue, int evaluations, long elapsedNanos) {
+      this.start = start;
+      this.servingsPerDay = servingsPerDay;
+      this.days = days;
+      this.expiringValue = expiringValue;
+      this.wastedValue = wastedValue;
+      this.evaluations = evaluations;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Retrieves the number of days planned.
+     *
+     * @return the number of days.
+     */
+    public int getDayCount() {
+      return days.size();
+    }
+
+    /**
+     * Retrieves the meals of one day.
+     *
+     * @param day the day, counting from 0 for the first day of the plan.
+     * @return the meals of the day, empty if nothing could be made.
+     * @throws IndexOutOfBoundsException if {@code day} is not a day of the plan.
+     */
+    public List<Meal> getMeals(int day) {
+      return days.get(day);
+    }
+
+    /**
+     * Retrieves the number of portions that could not be planned because there were not
+     * enough ingredients.
+     *
+     * @return the number of unplanned portions.
+     */
+    public int getUnplannedServings() {
+      int unplanned = 0;
+      for (List<Meal> meals : days) {
+        unplanned += servingsPerDay;
+        for (Meal meal : meals) {
+          unplanned -= meal.portions;
+        }
+      }
+      return unplanned;
+    }
+
+    /**
+     * Retrieves the value of the groceries that expire during the plan if none are eaten.
+     *
+     * @return the expiring value.
+     */
+    public double getExpiringValue() {
+      return expiringValue;
+    }
+
+    /**
+     * Retrieves the value of the groceries that still expire during the plan when the
+     * planned meals are made.
+     *
+     * @return the wasted value.
+     */
+    public double getWastedValue() {
+      return wastedValue;
+    }
+
+    /**
+     * Retrieves the number of plans tried by the local search.
+     *
+     * @return the number of plans evaluated.
+     */
+    public int getEvaluations() {
+      return evaluations;
+    }
+
+    /**
+     * Retrieves the time planning took.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Writes the plan, the value it saves and the time it took to a destination.
+     *
+     * @param out the destination, for example {@code System.out} or a file writer.
+     * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+     */
+    public void write(Appendable out) {
+      ReportWriter report = new ReportWriter(out);
+      report.append("Meal plan for ").append(days.size()).append(" days, ")
+          .append(servingsPerDay).append(" portions per day:").endLine();
+      for (int day = 0; day < days.size(); day++) {
+        report.append(start.plusDays(day)).append(": ");
+        List<Meal> meals = days.get(day);
+        if (meals.isEmpty()) {
+          report.append("nothing can be prepared");
+        }
+        for (int i = 0; i < meals.size(); i++) {
+          report.append(i == 0 ? "" : ", ").append(meals.get(i).recipe.getName())
+              .append(" (").append(meals.get(i).portions).append(" portions)");
+        }
+        report.endLine();
+      }
+      report.append("Value expiring during the plan: ").append(expiringValue)
+          .append(" NOK without it, ").append(wastedValue).append(" NOK with it.").endLine();
+      report.append("Planned in ").append(elapsedNanos / 1_000_000).append(" ms (")
+          .append(evaluations).append(" plans evaluated).").endLine();
+      report.flush();
+    }
+  }
+}
@@ -1,8 +1,14 @@
 package edu.ntnu.idi.idatt;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
 
 
@@ -12,8 +18,20 @@ import java.util.Scanner;
  * and recipes in a {@code Cookbook}.
  */
 public class MenuCases {
+  /**
+   * How long the storage queries behind the menu take, see {@link MetricsRegistry}. Only
+   * the query is measured, not writing its result to the console.
+   */
+  private static final LatencyHistogram CAN_PREPARE_LATENCY =
+      MetricsRegistry.getDefault().histogram("MenuCases.canPrepareRecipe");
+  private static final LatencyHistogram SUGGEST_LATENCY =
+      MetricsRegistry.getDefault().histogram("MenuCases.suggestRecipes");
+  private static final LatencyHistogram TOTAL_VALUE_LATENCY =
+      MetricsRegistry.getDefault().histogram("MenuCases.getTotalValue");
+
   private final FoodStorage foodStorage;
   private final Cookbook cookbook;
+  private final RecipeFeasibility recipeFeasibility;
   LocalDate currentDate;
   Scanner scanner;
 
@@ -29,8 +47,10 @@ public class MenuCases {
       Scanner scanner) {
     this.foodStorage = foodStorage;
     this.cookbook = cookbook;
+    this.recipeFeasibility = RecipeFeasibility.create(foodStorage, cookbook);
     this.currentDate = currentDate;
     this.scanner = scanner;
+    foodStorage.setCurrentDate(currentDate);
   }
 
 
@@ -46,6 +66,7 @@ public class MenuCases {
       throw new IllegalArgumentException("Date cannot be null");
     }
     this.currentDate = newDate;
+    foodStorage.setCurrentDate(newDate);
   }
 
   /**
@@ -77,6 +98,56 @@ public class MenuCases {
 
     System.out.println("Grocery added: " + name);
   }
+  /**
+   * Allows the user to add groceries from a CSV file, and shows how many were added
+   * and which lines were rejected.
+   *
+   * @param scanner the {@code Scanner} for reading user input.
+   */
+  public void importGroceries(Scanner scanner) {
+    System.out.println("Enter the path of the CSV file "
+        + "(name,quantity,unit,expirationDate,pricePerUnit): ");
+    Path file = Path.of(scanner.nextLine().trim());
+
+    GroceryImporter.Result result;
+    try {
+      result = new GroceryImporter(foodStorage).importFile(file);
+    } catch (IOException e) {
+      System.out.println("Could not read " + file + ": " + e.getMessage() + "\n");
+      return;
+    }
+
+    System.out.printf(Locale.US, "Imported %d of %d rows in %.2f s (%.0f rows/s).%n",
+        result.getImportedRows(), result.getRows(), result.getElapsedNanos() / 1e9,
+        result.getRowsPerSecond());
+    List<GroceryImporter.Reject> rejects = result.getRejects();
+    for (int i = 0; i < Math.min(rejects.size(), 10); i++) {
+      System.out.println(rejects.get(i));
+    }
+    if (result.getRejectedRows() > 10) {
+      System.out.println("... and " + (result.getRejectedRows() - 10) + " more rejected rows.");
+    }
+    System.out.println();
+  }
+
+  /**
+   * Allows the user to save the list of non-expired groceries to a text file.
+   *
+   * @param scanner the {@code Scanner} for reading user input.
+   */
+  public void exportGroceries(Scanner scanner) {
+    System.out.println("Enter the path of the file to save the list to: ");
+    Path file = Path.of(scanner.nextLine().trim());
+
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      foodStorage.listGroceries(currentDate, writer);
+    } catch (IOException | UncheckedIOException e) {
+      System.out.println("Could not write " + file + ": " + e.getMessage() + "\n");
+      return;
+    }
+    System.out.println("Groceries saved to " + file + "\n");
+  }
+
   /**
    * Allows the user to remove a specific quantity of a grocery from the food storage.
    *
@@ -88,25 +159,45 @@ public class MenuCases {
     System.out.println("Enter grocery name: ");
     String name = scanner.nextLine();
 
-    Grocery grocery = foodStorage.getGrocery(name);
-    if (grocery == null) {
+    // The amount is taken in the unit of the lot that expires soonest, which goes first
+    Grocery first = foodStorage.firstLot(name);
+    if (first == null) {
       System.out.println("Grocery not found. ");
       return;
     }
 
-    System.out.println("Enter quantity to remove (e.g, grams, liters): ");
+    System.out.println("Enter quantity to remove (in " + first.getUnit() + "): ");
     double amount = scanner.nextDouble();
     scanner.nextLine();
 
-    foodStorage.removeGroceries(name, amount);
+    if (removeGroceries(name, amount) == FoodStorage.Removal.NOT_FOUND) {
+      System.out.println(FoodStorage.Removal.NOT_FOUND.getMessage() + " \n");
+      return;
+    }
+    System.out.println("Removed: " + amount + " "
+        + first.getUnit() + " of " + name + " from food storage. \n");
+  }
+
+  /**
+   * Removes a quantity of a grocery from the food storage, taking it from the lots that
+   * expire soonest first. The storage checks the amount and removes it in one step.
+   *
+   * @param name   the name of the grocery.
+   * @param amount the quantity to remove, in the unit of the lot that expires soonest.
+   * @return {@link FoodStorage.Removal#REMOVED}, or {@link FoodStorage.Removal#NOT_FOUND}
+   *         if no lot of the grocery is stored.
+   * @throws IllegalArgumentException if {@code amount} is not greater than 0, or more than
+   *                                  the stored total.
+   */
+  public FoodStorage.Removal removeGroceries(String name, double amount) {
     if (amount <= 0) {
       throw new IllegalArgumentException("Amount must be greater than zero");
     }
-    if (amount > grocery.getQuantity()) {
-      throw new IllegalArgumentException("Amount must be less than grocery quantity");
+    FoodStorage.Removal removal = foodStorage.tryRemoveGroceries(name, amount);
+    if (removal == FoodStorage.Removal.NOT_ENOUGH) {
+      throw new IllegalArgumentException("Amount must not be more than the stored total");
     }
-    System.out.println("Removed: " + amount + " "
-        + grocery.getUnit() + " of " + name + " from food storage. \n");
+    return removal;
   }
 
   /**
@@ -158,6 +249,10 @@ public class MenuCases {
   public void createNewRecipe() {
     System.out.println("Enter the name of the recipe:");
     String recipeName = scanner.nextLine();
+    if (cookbook.findRecipe(recipeName) != null) {
+      System.out.println("A recipe named " + recipeName + " already exists in the cookbook.\n");
+      return;
+    }
     Recipe recipe = new Recipe(recipeName);
 
     System.out.println("Enter a short description of the recipe:");
@@ -206,13 +301,7 @@ public class MenuCases {
     System.out.println("Enter the name of the recipe to check:");
     String recipeName = scanner.nextLine();
 
-    Recipe recipeToCheck = null;
-    for (Recipe recipe : cookbook.getRecipes()) {
-      if (recipe.getName().equalsIgnoreCase(recipeName)) {
-        recipeToCheck = recipe;
-        break;
-      }
-    }
+    Recipe recipeToCheck = cookbook.findRecipe(recipeName);
     if (recipeToCheck == null) {
       System.out.println("Recipe not found in the cookbook.");
       return;
@@ -230,13 +319,7 @@ public class MenuCases {
    */
 
   public void suggestRecipes() {
-    List<Recipe> suggestedRecipes = new ArrayList<>();
-    for (Recipe recipe : cookbook.getRecipes()) {
-      if (canPrepareRecipe(recipe)) {
-        suggestedRecipes.add(recipe);
-      }
-    }
-
+    List<Recipe> suggestedRecipes = getSuggestedRecipes();
     if (suggestedRecipes.isEmpty()) {
       System.out.println("No recipes can be prepared with the available ingredients.");
     } else {
@@ -246,6 +329,43 @@ public class MenuCases {
       }
     }
   }
+  /**
+   * Retrieves the recipes in the cookbook that can be prepared with the groceries in the
+   * food storage, as kept up to date by {@link RecipeFeasibility}.
+   *
+   * @return a new list of the preparable recipes.
+   */
+  public List<Recipe> getSuggestedRecipes() {
+    long start = System.nanoTime();
+    List<Recipe> suggestedRecipes = recipeFeasibility.getPreparableRecipes();
+    SUGGEST_LATENCY.recordSince(start);
+    return suggestedRecipes;
+  }
+  /**
+   * Plans meals for a number of days from the recipes in the cookbook, using the
+   * groceries that expire soonest first, and displays the plan.
+   */
+  public void planMeals() {
+    System.out.println("Enter the number of days to plan:");
+    int days = scanner.nextInt();
+    System.out.println("Enter the number of portions per day:");
+    int servingsPerDay = scanner.nextInt();
+    scanner.nextLine(); // Clear newline
+
+    if (days <= 0 || servingsPerDay <= 0) {
+      System.out.println("Invalid number. Please enter a positive integer. \n");
+      return;
+    }
+    new MealPlanner(foodStorage, cookbook).plan(currentDate, days, servingsPerDay)
+        .write(System.out);
+  }
+  /**
+   * Displays the operation metrics: how often the storage operations ran and how long
+   * they took, and the current size of the storage and cookbook.
+   */
+  public void showMetrics() {
+    MetricsRegistry.getDefault().write(System.out);
+  }
   /**
   *enables the user to pick a recipe from the cookbook and scale the ingredients
   *to the wanted portion size.
@@ -267,14 +387,7 @@ public class MenuCases {
     System.out.println("Enter the name of the recipe you want to scale:");
     String recipeName = scanner.nextLine();
 
-    Recipe chosenRecipe = null;
-    for (Recipe recipe : cookbook.getRecipes()) {
-      if (recipe.getName().equalsIgnoreCase(recipeName)) {
-        chosenRecipe = recipe;
-        break;
-      }
-    }
-
+    Recipe chosenRecipe = cookbook.findRecipe(recipeName);
     if (chosenRecipe == null) {
       System.out.println("Recipe not found in the cookbook. \n");
       return;
@@ -291,12 +404,12 @@ public class MenuCases {
     }
 
     // Step 4: Scale the recipe and display
-    List<Grocery> scaledIngredients = chosenRecipe.scaleIngredients(newPortionSize);
+    ScaledIngredients scaledIngredients = chosenRecipe.scaled(newPortionSize);
     System.out.println("Scaled recipe for " + newPortionSize + " portions of "
         + chosenRecipe.getName() + ":");
-    for (Grocery ingredient : scaledIngredients) {
-      System.out.println("- " + ingredient.getName() + ": " + ingredient.getQuantity() + " "
-          + ingredient.getUnit());
+    for (int i = 0; i < scaledIngredients.size(); i++) {
+      System.out.println("- " + scaledIngredients.getName(i) + ": "
+          + scaledIngredients.getQuantity(i) + " " + scaledIngredients.getUnit(i));
     }
   }
   /**
@@ -336,9 +449,20 @@ public class MenuCases {
    */
 
   public void getTotalValue() {
-    double totalValue = foodStorage.getTotalValue(currentDate);
     System.out.println("Total value of groceries in storage (excluding expired food): "
-        + totalValue + " NOK \n");
+        + totalValueNow() + " NOK \n");
+  }
+
+  /**
+   * Retrieves the total value of the groceries that have not expired by the current date.
+   *
+   * @return the total value in NOK.
+   */
+  public double totalValueNow() {
+    long start = System.nanoTime();
+    double totalValue = foodStorage.getTotalValue(currentDate);
+    TOTAL_VALUE_LATENCY.recordSince(start);
+    return totalValue;
   }
   /**
   *case 13 method adds a couple pre-set groceries and recipes to
@@ -385,7 +509,7 @@ public class MenuCases {
     pancakes.addIngredient("Baking Soda", 0.005, "kg");
     pancakes.addIngredient("Salt", 0.001, "kg");
     pancakes.addIngredient("Sugar", 0.01, "kg");
-    cookbook.addRecipe(pancakes);
+    addDemoRecipe(pancakes);
 
     Recipe omelette = new Recipe("Omelette");
     omelette.setDescription("A quick and nutritious egg dish perfect for breakfast"
@@ -401,7 +525,7 @@ public class MenuCases {
     omelette.addIngredient("Salt", 0.002, "kg");
     omelette.addIngredient("Pepper", 0.002, "kg");
     omelette.addIngredient("Butter", 0.0015, "kg");
-    cookbook.addRecipe(omelette);
+    addDemoRecipe(omelette);
 
     Recipe pyttIPanne = new Recipe("Pytt i Panne");
     pyttIPanne.setDescription("A traditional Scandinavian dish made with diced potatoes and meat.");
@@ -419,8 +543,20 @@ public class MenuCases {
     pyttIPanne.addIngredient("Onions", 0.5, "amount");
     pyttIPanne.addIngredient("Salt", 0.002, "kg");
     pyttIPanne.addIngredient("Pepper", 0.002, "kg");
-    cookbook.addRecipe(pyttIPanne);
+    addDemoRecipe(pyttIPanne);
+  }
+  /**
+   * Adds a demo recipe to the cookbook unless a recipe with the same name is already there,
+   * so demo data can be added more than once.
+   *
+   * @param recipe the demo recipe to add.
+   */
+  private void addDemoRecipe(Recipe recipe) {
+    if (cookbook.findRecipe(recipe.getName()) == null) {
+      cookbook.addRecipe(recipe);
+    }
   }
+
   /**
   *prints out all info on chosen recipe.
    */
@@ -429,32 +565,42 @@ public class MenuCases {
     System.out.println("Choose recipe to show:");
     String recipeName = scanner.nextLine();
 
-    for (Recipe recipe : cookbook.getRecipes()) {
-      if (recipe.getName().equalsIgnoreCase(recipeName)) {
-        System.out.println("Portion size: " + recipe.getPortionSize()
-            + "\n" + recipe.getPrettyString());
-        return;
-      }
+    Recipe recipe = cookbook.findRecipe(recipeName);
+    if (recipe == null) {
+      System.out.println("Recipe Name: " + recipeName + " doesn't exist");
+      return;
     }
-    System.out.println("Recipe Name: " + recipeName + " doesn't exist");
+    System.out.println("Portion size: " + recipe.getPortionSize()
+        + "\n" + recipe.getPrettyString());
   }
 
   /**
   *checks if chosen recipe can be prepared with
   *the current groceries in the food storage.
+  *Quantities are compared in the base unit of the ingredient's unit, so only
+  *groceries stored in a unit of the same kind (mass, volume or count) are counted.
    */
 
   public boolean canPrepareRecipe(Recipe recipe) {
+    long start = System.nanoTime();
+    boolean canPrepare = canPrepare(foodStorage, recipe);
+    CAN_PREPARE_LATENCY.recordSince(start);
+    return canPrepare;
+  }
+
+  /**
+   * Checks if a recipe can be prepared with the groceries in a food storage.
+   *
+   * @param foodStorage the food storage to take the ingredients from.
+   * @param recipe      the recipe to check.
+   * @return {@code true} if every ingredient is available in sufficient quantity.
+   */
+  static boolean canPrepare(FoodStorage foodStorage, Recipe recipe) {
     for (Grocery ingredient : recipe.getIngredients()) {
-      double requiredQuantity = ingredient.getQuantity();
-      double availableQuantity = 0;
-
-      // Sum up quantities of matching items in FoodStorage
-      for (Grocery storedItem : foodStorage.getGroceries()) {
-        if (storedItem.getName().equalsIgnoreCase(ingredient.getName())) {
-          availableQuantity += storedItem.getQuantity();
-        }
-      }
+      Unit unit = ingredient.getMeasurementUnit();
+      double requiredQuantity = unit.toBase(ingredient.getQuantity());
+      double availableQuantity = foodStorage.getAvailableBaseQuantity(
+          ingredient.getNameId(), unit.getDimension());
 
       if (availableQuantity < requiredQuantity) {
         return false; // Not enough of this ingredient
@@ -485,24 +631,47 @@ public class MenuCases {
 
   public void addGrocery(String name, double quantity, String unit,
       LocalDate expirationDate, double pricePerUnit) {
+    foodStorage.addGrocery(
+        createGrocery(name, quantity, unit, expirationDate, pricePerUnit, LocalDate.now()));
+  }
+
+  /**
+   * Checks the fields of a new grocery and creates it. These are the rules for groceries
+   * added by the user, shared with {@code GroceryImporter}.
+   *
+   * @param name           the name of the grocery. Must not be {@code null} or blank.
+   * @param quantity       the quantity. Must be finite and greater than 0.
+   * @param unit           the unit. Must not be {@code null} or blank.
+   * @param expirationDate the expiration date. Must not be before {@code today}.
+   * @param pricePerUnit   the price per unit. Must be finite and 0 or greater.
+   * @param today          the date to check the expiration date against.
+   * @return the new grocery.
+   * @throws IllegalArgumentException if any of the fields is invalid.
+   */
+  static Grocery createGrocery(String name, double quantity, String unit,
+      LocalDate expirationDate, double pricePerUnit, LocalDate today) {
     if (name == null || name.isBlank()) {
       throw new IllegalArgumentException("Grocery name must not be null or empty.");
     }
+    if (!Double.isFinite(quantity)) {
+      throw new IllegalArgumentException("Quantity must be a finite number.");
+    }
     if (quantity <= 0) {
       throw new IllegalArgumentException("Quantity must be greater than 0.");
     }
     if (unit == null || unit.isBlank()) {
       throw new IllegalArgumentException("Unit must not be null or empty.");
     }
-    if (expirationDate == null || expirationDate.isBefore(LocalDate.now())) {
+    if (expirationDate == null || expirationDate.isBefore(today)) {
       throw new IllegalArgumentException("Expiration date must not be null or in the past.");
     }
+    if (!Double.isFinite(pricePerUnit)) {
+      throw new IllegalArgumentException("Price per unit must be a finite number.");
+    }
     if (pricePerUnit < 0) {
       throw new IllegalArgumentException("Price per unit must be 0 or greater.");
     }
-
-    Grocery grocery = new Grocery(name, quantity, unit, expirationDate, pricePerUnit);
-    foodStorage.addGrocery(grocery);
+    return new Grocery(name, quantity, unit, expirationDate, pricePerUnit);
   }
 
 
@@ -0,0 +1,306 @@
+package edu.ntnu.idi.idatt;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * The {@code MetricsRegistry} class keeps the operation metrics of the application:
+ * counters of events, gauges reading a current size, and latency histograms of how long
+ * operations take (see {@link LatencyHistogram}). Metrics are made on first use and kept
+ * by name, so a class can look up its metrics once and record into them on every call.
+ *
+ * <p>The metrics can be written as text with {@link #write(Appendable)}, and published
+ * as JMX MBeans with {@link #registerMBeans()}, so tools such as JConsole can watch them
+ * while the application runs. Each metric is one MBean named
+ * {@code edu.ntnu.idi.idatt:type=<kind>,name=<metric name>}.
+ *
+ * <p>The registry is safe to use from several threads.
+ */
+public final class MetricsRegistry {
+  /**
+   * The JMX domain of the MBeans.
+   */
+  static final String DOMAIN = "edu.ntnu.idi.idatt";
+
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  private final Map<String, LatencyHistogram> histograms;
+  private final Map<String, Counter> counters;
+  private final Map<String, Gauge> gauges;
+
+  /**
+   * Whether the metrics are published as MBeans, so metrics made later are published too.
+   */
+  private volatile boolean published;
+
+  /**
+   * Constructs an empty {@code MetricsRegistry}.
+   */
+  MetricsRegistry() {
+    this.histograms = new ConcurrentHashMap<>();
+    this.counters = new ConcurrentHashMap<>();
+    this.gauges = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Retrieves the registry the application records its metrics in.
+   *
+   * @return the default registry.
+   */
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Retrieves the latency histogram with a name, making it if there is none.
+   *
+   * @param name the name of the measured operation.
+   * @return the histogram.
+   */
+  public LatencyHistogram histogram(String name) {
+    return histograms.computeIfAbsent(name, n -> publish("Histogram", n,
+        new LatencyHistogram(n), HistogramMBean.class));
+  }
+
+  /**
+   * Retrieves the counter with a name, making it if there is none.
+   *
+   * @param name the name of the counted event.
+   * @return the counter.
+   */
+  public Counter counter(String name) {
+    return counters.computeIfAbsent(name, n -> publish("Counter", n, new Counter(),
+        CounterMBean.class));
+  }
+
+  /**
+   * Sets the gauge with a name to read from a function, replacing any earlier gauge with
+   * that name. The function is called each time the gauge is read, from any thread, so it
+   * should be cheap and must not block.
+   *
+   * @param name  the name of the gauge, for example {@code "storage.lots"}.
+   * @param value the function reading the current value.
+   */
+  public void gauge(String name, LongSupplier value) {
+    gauges.put(name, publish("Gauge", name, new Gauge(value), GaugeMBean.class));
+  }
+
+  /**
+   * Sets the gauges of the size of a food storage and a cookbook: the number of lots
+   * ({@code FoodStorage.lots}), of distinct grocery names ({@code FoodStorage.names}) and
+   * of recipes ({@code Cookbook.recipes}). The sizes are read without locking, so a value
+   * read during a change may be off by that change.
+   *
+   * @param foodStorage the food storage to watch.
+   * @param cookbook    the cookbook to watch.
+   */
+  public void watch(FoodStorage foodStorage, Cookbook cookbook) {
+    gauge("FoodStorage.lots", foodStorage::getLotCount);
+    gauge("FoodStorage.names", foodStorage::getNameCount);
+    gauge("Cookbook.recipes", () -> cookbook.getRecipes().size());
+  }
+
+  /**
+   * Publishes every metric, and every metric made later, as an MBean on the platform MBean
+   * server. Publishing again replaces the earlier MBeans.
+   *
+   * @throws IllegalStateException if an MBean cannot be registered.
+   */
+  public void registerMBeans() {
+    published = true;
+    histograms.forEach((name, histogram) ->
+        publish("Histogram", name, histogram, HistogramMBean.class));
+    counters.forEach((name, counter) -> publish("Counter", name, counter, CounterMBean.class));
+    gauges.forEach((name, gauge) -> publish("Gauge", name, gauge, GaugeMBean.class));
+  }
+
+  /**
+   * Retrieves the JMX name of a metric.
+   *
+   * @param kind the kind of metric: {@code Histogram}, {@code Counter} or {@code Gauge}.
+   * @param name the name of the metric.
+   * @return the object name of its MBean.
+   * @throws JMException if the name cannot be part of an object name.
+   */
+  static ObjectName objectName(String kind, String name) throws JMException {
+    return new ObjectName(DOMAIN + ":type=" + kind + ",name=" + ObjectName.quote(name));
+  }
+
+  /**
+   * Registers a metric as an MBean if the metrics are published.
+   *
+   * @param kind          the kind of metric.
+   * @param name          the name of the metric.
+   * @param metric        the metric.
+   * @param interfaceType the MBean interface of the metric.
+   * @return the metric.
+   * @throws IllegalStateException if the MBean cannot be registered.
+   */
+  private <T> T publish(String kind, String name, T metric, Class<? super T> interfaceType) {
+    if (!published) {
+      return metric;
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    synchronized (this) {
+      try {
+        ObjectName objectName = objectName(kind, name);
+        try {
+          server.unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+          // Not registered before
+        }
+        server.registerMBean(new StandardMBean(metric, interfaceType), objectName);
+      } catch (JMException e) {
+        throw new IllegalStateException("Could not publish metric " + name, e);
+      }
+    }
+    return metric;
+  }
+
+  /**
+   * Writes every metric as text, one per line and sorted by name: the latency histograms
+   * as a table in microseconds, then the counters and the gauges.
+   *
+   * @param out the destination, such as {@code System.out}.
+   * @throws java.io.UncheckedIOException if writing to {@code out} fails.
+   */
+  public void write(Appendable out) {
+    ReportWriter report = new ReportWriter(out);
+    report.line("Operation latencies (microseconds):");
+    report.line(String.format(Locale.ROOT, "%-36s %10s %10s %10s %10s %10s %10s",
+        "Operation", "Count", "Mean", "p50", "p99", "p99.9", "Max"));
+    for (LatencyHistogram histogram : new TreeMap<>(histograms).values()) {
+      report.line(String.format(Locale.ROOT,
+          "%-36s %10d %10.2f %10.2f %10.2f %10.2f %10.2f",
+          histogram.getName(), histogram.getCount(), histogram.getMeanMicros(),
+          histogram.getP50Micros(), histogram.getP99Micros(), histogram.getP999Micros(),
+          histogram.getMaxMicros()));
+    }
+    report.line("Counters:");
+    new TreeMap<>(counters).forEach((name, counter) ->
+        report.append("  ").append(name).append(": ").append(counter.getCount()).endLine());
+    report.line("Gauges:");
+    new TreeMap<>(gauges).forEach((name, gauge) ->
+        report.append("  ").append(name).append(": ").append(gauge.getValue()).endLine());
+    report.flush();
+  }
+
+  /**
+   * The JMX view of a {@link LatencyHistogram}.
+   */
+  public interface HistogramMBean {
+    /**
+     * Retrieves the number of recorded runs.
+     *
+     * @return the number of runs.
+     */
+    long getCount();
+
+    /**
+     * Retrieves the mean duration of a run.
+     *
+     * @return the mean in microseconds.
+     */
+    double getMeanMicros();
+
+    /**
+     * Retrieves the longest run.
+     *
+     * @return the duration in microseconds.
+     */
+    double getMaxMicros();
+
+    /**
+     * Retrieves the duration half of the runs took at most.
+     *
+     * @return the duration in microseconds.
+     */
+    double getP50Micros();
+
+    /**
+     * Retrieves the duration 99 % of the runs took at most.
+     *
+     * @return the duration in microseconds.
+     */
+    double getP99Micros();
+
+    /**
+     * Retrieves the duration 99.9 % of the runs took at most.
+     *
+     * @return the duration in microseconds.
+     */
+    double getP999Micros();
+  }
+
+  /**
+   * The JMX view of a {@link Counter}.
+   */
+  public interface CounterMBean {
+    /**
+     * Retrieves the number of counted events.
+     *
+     * @return the count.
+     */
+    long getCount();
+  }
+
+  /**
+   * The JMX view of a {@link Gauge}.
+   */
+  public interface GaugeMBean {
+    /**
+     * Retrieves the current value.
+     *
+     * @return the value.
+     */
+    long getValue();
+  }
+
+  /**
+   * A count of events, such as refused removals, that many threads can increase at once.
+   */
+  public static final class Counter implements CounterMBean {
+    private final LongAdder count = new LongAdder();
+
+    private Counter() {
+    }
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+      count.increment();
+    }
+
+    @Override
+    public long getCount() {
+      return count.sum();
+    }
+  }
+
+  /**
+   * A value, such as the number of stored lots, read when the metrics are.
+   */
+  public static final class Gauge implements GaugeMBean {
+    private final LongSupplier value;
+
+    private Gauge(LongSupplier value) {
+      this.value = value;
+    }
+
+    @Override
+    public long getValue() {
+      return value.getAsLong();
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.Arrays;
+
+/**
+ * The {@code NameSlots} class gives the grocery names one storage holds dense slots of its
+ * own, so that per-name data can be kept in arrays sized by the names in that storage
+ * rather than by every name the process has seen (see {@link IngredientSymbols}).
+ *
+ * <p>Name ids are mapped to slots by an open-addressing hash table of primitive ints, so
+ * looking up a slot neither boxes nor allocates. The slots of removed names are reused
+ * by the names added after them, so the number of slots never exceeds the largest number
+ * of names held at once.
+ *
+ * <p>Lookups read the table through a single array reference and probe it at most once
+ * around, so a lookup racing with a change returns a wrong slot or none, but always
+ * returns. Callers that read optimistically, like {@code ConcurrentFoodStorage}, validate
+ * the result afterwards.
+ */
+final class NameSlots {
+  /**
+   * Returned by {@link #get(int)} for names that have no slot.
+   */
+  static final int NONE = -1;
+
+  /**
+   * The number of entries in a new table, a power of two.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * The name id and slot of each entry, interleaved, or {@link #NONE} as the id of a free
+   * entry. The length is twice a power of two.
+   */
+  private int[] table;
+
+  /**
+   * The number of names with a slot.
+   */
+  private int size;
+
+  /**
+   * The number of slots handed out, used or freed.
+   */
+  private int slotCount;
+
+  /**
+   * The freed slots, to be handed out again first.
+   */
+  private int[] freeSlots;
+  private int freeCount;
+
+  /**
+   * Constructs an empty {@code NameSlots}.
+   */
+  NameSlots() {
+    this.table = emptyTable(INITIAL_CAPACITY);
+    this.freeSlots = new int[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Retrieves the slot of a name.
+   *
+   * @param nameId the id of the name, or {@link IngredientSymbols#NONE}.
+   * @return the slot, or {@link #NONE} if the name has none.
+   */
+  int get(int nameId) {
+    if (nameId < 0) {
+      return NONE;
+    }
+    int[] entries = table;
+    int mask = entries.length / 2 - 1;
+    for (int probe = 0, i = hash(nameId) & mask; probe <= mask; probe++, i = (i + 1) & mask) {
+      int id = entries[2 * i];
+      if (id == nameId) {
+        return entries[2 * i + 1];
+      }
+      if (id == NONE) {
+        return NONE;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Gives a name a slot if it has none.
+   *
+   * @param nameId the id of the name, not negative.
+   * @return the slot of the name.
+   */
+  int add(int nameId) {
+    int slot = get(nameId);
+    if (slot != NONE) {
+      return slot;
+    }
+    if ((size + 1) * 4 > table.length / 2 * 3) {
+      rehash(table.length);
+    }
+    slot = freeCount > 0 ? freeSlots[--freeCount] : slotCount++;
+    put(table, nameId, slot);
+    size++;
+    return slot;
+  }
+
+  /**
+   * Takes the slot of a name away, so it can be given to another name.
+   *
+   * @param nameId the id of the name.
+   */
+  void remove(int nameId) {
+    int mask = table.length / 2 - 1;
+    int i = hash(nameId) & mask;
+    while (table[2 * i] != nameId) {
+      if (table[2 * i] == NONE) {
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    }
+    freeSlots[freeCount++] = table[2 * i + 1];
+    size--;
+
+    // Shift later entries of the same probe run back, so lookups need no tombstones
+    int hole = i;
+    for (int j = (i + 1) & mask; table[2 * j] != NONE; j = (j + 1) & mask) {
+      int home = hash(table[2 * j]) & mask;
+      if (((j - home) & mask) >= ((j - hole) & mask)) {
+        table[2 * hole] = table[2 * j];
+        table[2 * hole + 1] = table[2 * j + 1];
+        hole = j;
+      }
+    }
+    table[2 * hole] = NONE;
+  }
+
+  /**
+   * Retrieves the number of slots handed out, which is one more than the largest slot.
+   *
+   * @return the number of slots.
+   */
+  int slotCount() {
+    return slotCount;
+  }
+
+  /**
+   * Moves the entries to a table with twice as many entries.
+   *
+   * @param length the length of the current table.
+   */
+  private void rehash(int length) {
+    int[] grown = emptyTable(length);
+    for (int i = 0; i < table.length; i += 2) {
+      if (table[i] != NONE) {
+        put(grown, table[i], table[i + 1]);
+      }
+    }
+    table = grown;
+  }
+
+  /**
+   * Adds an entry to a table that has room for it and does not hold the name.
+   *
+   * @param entries the table.
+   * @param nameId  the id of the name.
+   * @param slot    the slot of the name.
+   */
+  private static void put(int[] entries, int nameId, int slot) {
+    int mask = entries.length / 2 - 1;
+    int i = hash(nameId) & mask;
+    while (entries[2 * i] != NONE) {
+      i = (i + 1) & mask;
+    }
+    entries[2 * i + 1] = slot;
+    entries[2 * i] = nameId;
+  }
+
+  /**
+   * Makes a table without entries.
+   *
+   * @param capacity the number of entries it has room for, a power of two.
+   * @return the table.
+   */
+  private static int[] emptyTable(int capacity) {
+    int[] entries = new int[2 * capacity];
+    Arrays.fill(entries, NONE);
+    return entries;
+  }
+
+  /**
+   * Spreads the dense name ids over the table.
+   *
+   * @param nameId the id of the name.
+   * @return the hash of the id.
+   */
+  private static int hash(int nameId) {
+    return nameId * 0x9E3779B9 >>> 7;
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ntnu.idi.idatt;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -8,6 +9,10 @@ import java.util.List;
  * portion size, and a list of ingredients. It provides methods to manage and scale recipes.
  */
 public class Recipe {
+  /**
+   * The scalings of all recipes, shared so that the most recently used ones are kept.
+   */
+  private static final ScalingCache SCALINGS = new ScalingCache(1024);
 
   /**
    * The name of the recipe.
@@ -35,6 +40,17 @@ public class Recipe {
    */
   private List<Grocery> ingredients;
 
+  /**
+   * The cookbook this recipe is in, or {@code null} if it is not in a cookbook.
+   * The cookbook is told about changes so it can notify its listeners.
+   */
+  private Cookbook cookbook;
+
+  /**
+   * Counts the changes to the recipe, so cached scalings made before a change are not used.
+   */
+  private int version;
+
   /**
    * Constructs a {@code Recipe} with the specified name.
    * Initializes description and procedure as empty strings,
@@ -73,7 +89,9 @@ public class Recipe {
       throw new IllegalArgumentException("Ingredient unit must not be null or blank.");
     }
     Grocery ingredient = new Grocery(ingredientName, quantity, unit, null, 0);
+    ingredient.setRecipe(this);
     ingredients.add(ingredient);
+    changed();
   }
 
   /**
@@ -95,6 +113,7 @@ public class Recipe {
       throw new IllegalArgumentException("Portion size must be greater than zero.");
     }
     this.portionSize = portionSize;
+    changed();
   }
 
   /**
@@ -113,6 +132,25 @@ public class Recipe {
    */
   public void setDescription(String description) {
     this.description = description;
+    changed();
+  }
+
+  /**
+   * Retrieves the description of the recipe.
+   *
+   * @return the description of the recipe.
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Retrieves the procedure for preparing the recipe.
+   *
+   * @return the procedure or steps to prepare the recipe.
+   */
+  public String getProcedure() {
+    return procedure;
   }
 
   /**
@@ -122,38 +160,77 @@ public class Recipe {
    */
   public void setProcedure(String procedure) {
     this.procedure = procedure;
+    changed();
   }
 
   /**
-   * Retrieves the list of ingredients in the recipe.
+   * Retrieves the list of ingredients in the recipe. Ingredients are added with
+   * {@link #addIngredient(String, double, String)}; changes made to an ingredient
+   * through its setters count as changes to the recipe.
    *
-   * @return a {@code List} of {@code Grocery} objects representing the ingredients.
+   * @return an unmodifiable {@code List} of {@code Grocery} objects representing the
+   *         ingredients.
    */
   public List<Grocery> getIngredients() {
-    return ingredients;
+    return Collections.unmodifiableList(ingredients);
   }
 
   /**
    * Scales the ingredients in the recipe based on a new portion size.
+   * The scalings last used are cached, so asking for the same portion size again
+   * returns the same list until the recipe changes. The list and its groceries are
+   * shared, so neither can be changed.
    *
    * @param newPortionSize the new portion size. Must be greater than 0.
-   * @return a scaled list of ingredients where
+   * @return an unmodifiable scaled list of read-only ingredients where
    * quantities are adjusted according to the new portion size.
    * @throws IllegalArgumentException if {@code newPortionSize} is less than or equal to 0.
    */
   public List<Grocery> scaleIngredients(int newPortionSize) {
+    checkPortionSize(newPortionSize);
+    return SCALINGS.get(this, newPortionSize, version, () -> {
+      List<Grocery> scaledIngredients = new ArrayList<>(ingredients.size());
+      for (Grocery ingredient : ingredients) {
+        double scaledQuantity = scale(ingredient.getQuantity(), newPortionSize, portionSize);
+        Grocery scaledIngredient = new Grocery(ingredient.getName(),
+            scaledQuantity, ingredient.getUnit(), null, 0);
+        scaledIngredient.setReadOnly();
+        scaledIngredients.add(scaledIngredient);
+      }
+      return Collections.unmodifiableList(scaledIngredients);
+    });
+  }
+
+  /**
+   * Retrieves a view of the ingredients scaled to a new portion size. Unlike
+   * {@link #scaleIngredients(int)}, nothing is copied: the scaled quantities are
+   * computed when they are read, and follow later changes to the recipe.
+   *
+   * @param newPortionSize the new portion size. Must be greater than 0.
+   * @return a read-only view of the scaled ingredients.
+   * @throws IllegalArgumentException if {@code newPortionSize} is less than or equal to 0.
+   */
+  public ScaledIngredients scaled(int newPortionSize) {
+    checkPortionSize(newPortionSize);
+    return new ScaledIngredients(this, newPortionSize);
+  }
+
+  /**
+   * Scales the quantity of one ingredient.
+   *
+   * @param quantity       the quantity for the recipe's portion size.
+   * @param newPortionSize the new portion size.
+   * @param portionSize    the recipe's portion size.
+   * @return the quantity for the new portion size.
+   */
+  static double scale(double quantity, int newPortionSize, int portionSize) {
+    return (quantity * newPortionSize) / portionSize;
+  }
+
+  private static void checkPortionSize(int newPortionSize) {
     if (newPortionSize <= 0) {
       throw new IllegalArgumentException("New portion size must be greater than zero.");
     }
-
-    List<Grocery> scaledIngredients = new ArrayList<>();
-    for (Grocery ingredient : ingredients) {
-      double scaledQuantity = (ingredient.getQuantity() * newPortionSize) / portionSize;
-      Grocery scaledIngredient = new Grocery(ingredient.getName(),
-          scaledQuantity, ingredient.getUnit(), null, 0);
-      scaledIngredients.add(scaledIngredient);
-    }
-    return scaledIngredients;
   }
 
   /**
@@ -175,4 +252,39 @@ public class Recipe {
     sb.append("Procedure:\n").append(procedure).append("\n");
     return sb.toString();
   }
+
+  /**
+   * Retrieves the cookbook this recipe is in.
+   *
+   * @return the owning {@code Cookbook}, or {@code null} if the recipe is not in a cookbook.
+   */
+  Cookbook getCookbook() {
+    return cookbook;
+  }
+
+  /**
+   * Sets the cookbook this recipe is in.
+   *
+   * @param cookbook the owning {@code Cookbook}.
+   */
+  void setCookbook(Cookbook cookbook) {
+    this.cookbook = cookbook;
+  }
+
+  /**
+   * Called by an ingredient right after one of its fields has changed.
+   */
+  void ingredientChanged() {
+    changed();
+  }
+
+  /**
+   * Records a change to the recipe and tells the cookbook about it.
+   */
+  private void changed() {
+    version++;
+    if (cookbook != null) {
+      cookbook.recipeChanged(this);
+    }
+  }
 }
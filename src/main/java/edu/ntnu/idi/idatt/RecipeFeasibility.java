@@ -0,0 +1,286 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The {@code RecipeFeasibility} class keeps track of which recipes in a {@code Cookbook}
+ * can be prepared with the groceries in a {@code FoodStorage}.
+ * It keeps an index from each ingredient to the recipes that use it, and a count of
+ * unmet ingredients per recipe. When the available quantity of a grocery changes, only
+ * the recipes using that grocery are re-evaluated, so reading the preparable recipes
+ * does not require checking the whole cookbook.
+ *
+ * <p>Instances are made with {@link #create(FoodStorage, Cookbook)}, which registers the
+ * new instance as a listener only once it is fully constructed, and {@link #close()}
+ * unregisters it again.
+ *
+ * <p>Changes are tracked by one thread at a time, as storages and cookbooks call their
+ * listeners one at a time. The preparable recipes may be read from any thread, for
+ * example by the requests of a {@code GroceryApiServer}.
+ */
+public final class RecipeFeasibility
+    implements FoodStorageListener, CookbookListener, AutoCloseable {
+  private final FoodStorage foodStorage;
+  private final Cookbook cookbook;
+
+  /**
+   * The slot of each ingredient name some tracked recipe uses, indexing
+   * {@link #requirementsByIngredient}.
+   */
+  private final NameSlots ingredientSlots;
+
+  /**
+   * The requirements of all tracked recipes, indexed by ingredient slot, or {@code null}
+   * for free slots.
+   */
+  private final List<List<Requirement>> requirementsByIngredient;
+
+  /**
+   * The state of each tracked recipe.
+   */
+  private final Map<Recipe, RecipeState> states;
+
+  /**
+   * The recipes that currently have no unmet ingredients. Guarded by its own lock, which
+   * is never held while reading the storage, and which also guards
+   * {@link #preparableInOrder}.
+   */
+  private final Set<Recipe> preparable;
+
+  /**
+   * The recipes in {@link #preparable}, keyed by their position in the cookbook.
+   */
+  private final NavigableMap<Integer, Recipe> preparableInOrder;
+
+  /**
+   * The position the next recipe added to the cookbook gets.
+   */
+  private int nextPosition;
+
+  /**
+   * Constructs a {@code RecipeFeasibility} that tracks no recipes yet.
+   *
+   * @param foodStorage the {@code FoodStorage} to check ingredients against.
+   * @param cookbook    the {@code Cookbook} with the recipes to track.
+   */
+  private RecipeFeasibility(FoodStorage foodStorage, Cookbook cookbook) {
+    this.foodStorage = foodStorage;
+    this.cookbook = cookbook;
+    this.ingredientSlots = new NameSlots();
+    this.requirementsByIngredient = new ArrayList<>();
+    this.states = new IdentityHashMap<>();
+    this.preparable = Collections.newSetFromMap(new IdentityHashMap<>());
+    this.preparableInOrder = new TreeMap<>();
+  }
+
+  /**
+   * Creates a {@code RecipeFeasibility} that tracks the recipes in the given cookbook
+   * against the given food storage, and registers it as a listener on both. The listeners
+   * are registered before the recipes are tracked, so no change made in between is missed.
+   *
+   * @param foodStorage the {@code FoodStorage} to check ingredients against.
+   * @param cookbook    the {@code Cookbook} with the recipes to track.
+   * @return the new {@code RecipeFeasibility}.
+   */
+  public static RecipeFeasibility create(FoodStorage foodStorage, Cookbook cookbook) {
+    RecipeFeasibility feasibility = new RecipeFeasibility(foodStorage, cookbook);
+    foodStorage.addListener(feasibility);
+    cookbook.addListener(feasibility);
+    for (Recipe recipe : List.copyOf(cookbook.getRecipes())) {
+      feasibility.track(recipe, feasibility.nextPosition++);
+    }
+    return feasibility;
+  }
+
+  /**
+   * Unregisters this instance from the food storage and cookbook, so it stops tracking
+   * them and can be garbage collected while they are still in use.
+   */
+  @Override
+  public void close() {
+    foodStorage.removeListener(this);
+    cookbook.removeListener(this);
+  }
+
+  /**
+   * Retrieves the recipes that can currently be prepared, in the order they were added
+   * to the cookbook.
+   *
+   * @return a new list of the preparable recipes.
+   */
+  public List<Recipe> getPreparableRecipes() {
+    synchronized (preparable) {
+      return new ArrayList<>(preparableInOrder.values());
+    }
+  }
+
+  /**
+   * Checks if a tracked recipe can currently be prepared.
+   *
+   * @param recipe the recipe to check.
+   * @return {@code true} if the recipe is tracked and has no unmet ingredients.
+   */
+  public boolean canPrepare(Recipe recipe) {
+    synchronized (preparable) {
+      return preparable.contains(recipe);
+    }
+  }
+
+  @Override
+  public void recipeAdded(Recipe recipe) {
+    track(recipe, nextPosition++);
+  }
+
+  @Override
+  public void recipeChanged(Recipe recipe) {
+    RecipeState state = untrack(recipe);
+    if (state != null) {
+      track(recipe, state.position);
+    }
+  }
+
+  @Override
+  public void availabilityChanged(int nameId) {
+    int slot = ingredientSlots.get(nameId);
+    if (slot == NameSlots.NONE) {
+      return;
+    }
+    List<Requirement> requirements = requirementsByIngredient.get(slot);
+    for (Requirement requirement : requirements) {
+      boolean met = requirement.isMetBy(foodStorage);
+      if (met != requirement.met) {
+        requirement.met = met;
+        requirement.state.unmet += met ? -1 : 1;
+        updatePreparable(requirement.state);
+      }
+    }
+  }
+
+  /**
+   * Starts tracking a recipe by indexing its ingredients and counting the unmet ones.
+   *
+   * @param recipe   the recipe to track.
+   * @param position the position of the recipe in the cookbook.
+   */
+  private void track(Recipe recipe, int position) {
+    if (states.containsKey(recipe)) {
+      return; // Added to the cookbook while the existing recipes were being tracked
+    }
+    RecipeState state = new RecipeState(recipe, position);
+    for (Grocery ingredient : recipe.getIngredients()) {
+      int nameId = ingredient.getNameId();
+      Unit unit = ingredient.getMeasurementUnit();
+      Requirement requirement = new Requirement(state, ingredient.getSymbol(),
+          unit.getDimension(), unit.toBase(ingredient.getQuantity()));
+      requirement.met = requirement.isMetBy(foodStorage);
+      if (!requirement.met) {
+        state.unmet++;
+      }
+      state.requirements.add(requirement);
+      int slot = ingredientSlots.add(nameId);
+      if (slot == requirementsByIngredient.size()) {
+        requirementsByIngredient.add(null);
+      }
+      if (requirementsByIngredient.get(slot) == null) {
+        requirementsByIngredient.set(slot, new ArrayList<>());
+      }
+      requirementsByIngredient.get(slot).add(requirement);
+    }
+    states.put(recipe, state);
+    updatePreparable(state);
+  }
+
+  /**
+   * Stops tracking a recipe and removes its ingredients from the index.
+   *
+   * @param recipe the recipe to stop tracking.
+   * @return the state the recipe had, or {@code null} if it was not tracked.
+   */
+  private RecipeState untrack(Recipe recipe) {
+    RecipeState state = states.remove(recipe);
+    if (state == null) {
+      return null;
+    }
+    for (Requirement requirement : state.requirements) {
+      int slot = ingredientSlots.get(requirement.ingredient);
+      List<Requirement> requirements = requirementsByIngredient.get(slot);
+      requirements.remove(requirement);
+      if (requirements.isEmpty()) {
+        requirementsByIngredient.set(slot, null);
+        ingredientSlots.remove(requirement.ingredient);
+      }
+    }
+    synchronized (preparable) {
+      preparable.remove(recipe);
+      preparableInOrder.remove(state.position);
+    }
+    return state;
+  }
+
+  /**
+   * Adds a recipe to or removes it from the preparable set based on its unmet count.
+   *
+   * @param state the state of the recipe.
+   */
+  private void updatePreparable(RecipeState state) {
+    synchronized (preparable) {
+      if (state.unmet == 0) {
+        preparable.add(state.recipe);
+        preparableInOrder.put(state.position, state.recipe);
+      } else {
+        preparable.remove(state.recipe);
+        preparableInOrder.remove(state.position);
+      }
+    }
+  }
+
+  /**
+   * The tracked state of a recipe.
+   */
+  private static final class RecipeState {
+    private final Recipe recipe;
+    private final int position;
+    private final List<Requirement> requirements = new ArrayList<>();
+    private int unmet;
+
+    private RecipeState(Recipe recipe, int position) {
+      this.recipe = recipe;
+      this.position = position;
+    }
+  }
+
+  /**
+   * A quantity of an ingredient required by a recipe, in the base unit of its dimension,
+   * and whether the storage currently has enough of it. Holds the symbol of the
+   * ingredient's name, so its id stays in use while the requirement is indexed by it,
+   * even if the recipe has dropped the ingredient since.
+   */
+  private static final class Requirement {
+    private final RecipeState state;
+    private final IngredientSymbols.Symbol symbol;
+    private final int ingredient;
+    private final int dimension;
+    private final double baseQuantity;
+    private boolean met;
+
+    private Requirement(RecipeState state, IngredientSymbols.Symbol symbol, int dimension,
+        double baseQuantity) {
+      this.state = state;
+      this.symbol = symbol;
+      this.ingredient = symbol == null ? IngredientSymbols.NONE : symbol.getId();
+      this.dimension = dimension;
+      this.baseQuantity = baseQuantity;
+    }
+
+    private boolean isMetBy(FoodStorage foodStorage) {
+      return foodStorage.getAvailableBaseQuantity(ingredient, dimension) >= baseQuantity;
+    }
+  }
+}
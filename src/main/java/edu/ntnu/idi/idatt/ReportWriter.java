@@ -0,0 +1,133 @@
+package edu.ntnu.idi.idatt;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The {@code ReportWriter} class collects the lines of a report in one buffer and writes
+ * them to an {@code Appendable}, such as {@code System.out} or a file {@code Writer}, in
+ * large pieces. Values are appended to the buffer directly, so no string is built per line,
+ * and the destination is written to once per few kilobytes instead of once per line.
+ *
+ * <p>A {@code ReportWriter} is itself an {@code Appendable}, so one report can be written
+ * into another, for example a listing into the output of a batch of commands.
+ */
+final class ReportWriter implements Appendable {
+  /**
+   * The buffer size at which the buffered text is written to the destination.
+   */
+  private static final int FLUSH_SIZE = 8192;
+
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final Appendable out;
+  private final StringBuilder buffer;
+
+  /**
+   * Constructs a {@code ReportWriter} that writes to the given destination.
+   *
+   * @param out the destination of the report.
+   */
+  ReportWriter(Appendable out) {
+    this.out = out;
+    this.buffer = new StringBuilder(FLUSH_SIZE + 256);
+  }
+
+  ReportWriter append(String text) {
+    buffer.append(text);
+    return this;
+  }
+
+  ReportWriter append(long value) {
+    buffer.append(value);
+    return this;
+  }
+
+  ReportWriter append(double value) {
+    buffer.append(value);
+    return this;
+  }
+
+  ReportWriter append(Object value) {
+    buffer.append(value);
+    return this;
+  }
+
+  @Override
+  public ReportWriter append(CharSequence text) {
+    buffer.append(text);
+    if (buffer.length() >= FLUSH_SIZE) {
+      write();
+    }
+    return this;
+  }
+
+  @Override
+  public ReportWriter append(CharSequence text, int start, int end) {
+    buffer.append(text, start, end);
+    if (buffer.length() >= FLUSH_SIZE) {
+      write();
+    }
+    return this;
+  }
+
+  @Override
+  public ReportWriter append(char c) {
+    buffer.append(c);
+    return this;
+  }
+
+  /**
+   * Ends the current line, like {@code println}, and writes the buffer to the destination
+   * if it is full.
+   *
+   * @return this writer.
+   */
+  ReportWriter endLine() {
+    buffer.append(LINE_SEPARATOR);
+    if (buffer.length() >= FLUSH_SIZE) {
+      write();
+    }
+    return this;
+  }
+
+  /**
+   * Writes a whole line.
+   *
+   * @param line the line, without a line separator.
+   * @return this writer.
+   */
+  ReportWriter line(String line) {
+    return append(line).endLine();
+  }
+
+  /**
+   * Writes the buffered text to the destination, and flushes the destination if it can be
+   * flushed. Must be called when the report is done.
+   *
+   * @throws UncheckedIOException if writing to the destination fails.
+   */
+  void flush() {
+    write();
+    if (out instanceof Flushable flushable) {
+      try {
+        flushable.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Writes the buffered text to the destination and empties the buffer for reuse.
+   */
+  private void write() {
+    try {
+      out.append(buffer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    buffer.setLength(0);
+  }
+}
@@ -0,0 +1,83 @@
+package edu.ntnu.idi.idatt;
+
+/**
+ * The {@code ScaledIngredients} class is a read-only view of the ingredients of a
+ * {@code Recipe} scaled to a number of portions. Nothing is copied: each scaled quantity
+ * is computed from the recipe when it is read, so the view always follows the recipe.
+ * Get one with {@link Recipe#scaled(int)}.
+ *
+ * <pre>
+ * ScaledIngredients scaled = recipe.scaled(6);
+ * for (int i = 0; i &lt; scaled.size(); i++) {
+ *   System.out.println(scaled.getName(i) + ": " + scaled.getQuantity(i) + " "
+ *       + scaled.getUnit(i));
+ * }
+ * </pre>
+ */
+public final class ScaledIngredients {
+  private final Recipe recipe;
+  private final int portions;
+
+  /**
+   * Constructs a view of a recipe's ingredients scaled to a number of portions.
+   *
+   * @param recipe   the recipe.
+   * @param portions the number of portions. Must be greater than 0.
+   */
+  ScaledIngredients(Recipe recipe, int portions) {
+    this.recipe = recipe;
+    this.portions = portions;
+  }
+
+  /**
+   * Retrieves the number of portions the ingredients are scaled to.
+   *
+   * @return the number of portions.
+   */
+  public int getPortions() {
+    return portions;
+  }
+
+  /**
+   * Retrieves the number of ingredients.
+   *
+   * @return the number of ingredients in the recipe.
+   */
+  public int size() {
+    return recipe.getIngredients().size();
+  }
+
+  /**
+   * Retrieves the name of an ingredient.
+   *
+   * @param index the index of the ingredient, in the order of the recipe.
+   * @return the name of the ingredient.
+   * @throws IndexOutOfBoundsException if {@code index} is not a valid index.
+   */
+  public String getName(int index) {
+    return recipe.getIngredients().get(index).getName();
+  }
+
+  /**
+   * Retrieves the quantity of an ingredient scaled to the number of portions.
+   *
+   * @param index the index of the ingredient, in the order of the recipe.
+   * @return the scaled quantity.
+   * @throws IndexOutOfBoundsException if {@code index} is not a valid index.
+   */
+  public double getQuantity(int index) {
+    return Recipe.scale(recipe.getIngredients().get(index).getQuantity(), portions,
+        recipe.getPortionSize());
+  }
+
+  /**
+   * Retrieves the unit of an ingredient.
+   *
+   * @param index the index of the ingredient, in the order of the recipe.
+   * @return the unit of the ingredient.
+   * @throws IndexOutOfBoundsException if {@code index} is not a valid index.
+   */
+  public String getUnit(int index) {
+    return recipe.getIngredients().get(index).getUnit();
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The {@code ScalingCache} class keeps the most recently used scalings of recipes, keyed
+ * by recipe and number of portions, so scaling a recipe again to the same number of
+ * portions returns the same list instead of building a new one.
+ *
+ * <p>Each entry remembers the version of the recipe it was made from. A recipe changes
+ * its version whenever it changes, so entries made before the change are never returned
+ * again, and are dropped when they are next looked up or are the least recently used.
+ * The cache is safe to use from several threads.
+ */
+final class ScalingCache {
+  private final Map<Key, Entry> entries;
+
+  /**
+   * Constructs an empty {@code ScalingCache}.
+   *
+   * @param capacity the largest number of scalings kept. Must be greater than 0.
+   */
+  ScalingCache(int capacity) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Retrieves the scaling of a recipe, making and keeping it if it is not cached.
+   *
+   * @param recipe   the recipe.
+   * @param portions the number of portions.
+   * @param version  the recipe's current version.
+   * @param scaling  makes the scaling when it is not cached.
+   * @return the cached or new scaling.
+   */
+  List<Grocery> get(Recipe recipe, int portions, int version, Supplier<List<Grocery>> scaling) {
+    Key key = new Key(recipe, portions);
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null && entry.version == version) {
+        return entry.ingredients;
+      }
+    }
+    // Made outside the lock so other lookups are not held up
+    List<Grocery> ingredients = scaling.get();
+    synchronized (entries) {
+      entries.put(key, new Entry(version, ingredients));
+    }
+    return ingredients;
+  }
+
+  /**
+   * Retrieves the number of cached scalings, including outdated ones not yet dropped.
+   *
+   * @return the number of cached scalings.
+   */
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * A recipe, compared by identity, and a number of portions.
+   */
+  private static final class Key {
+    private final Recipe recipe;
+    private final int portions;
+
+    private Key(Recipe recipe, int portions) {
+      this.recipe = recipe;
+      this.portions = portions;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key key && key.recipe == recipe && key.portions == portions;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(recipe) + portions;
+    }
+  }
+
+  /**
+   * A cached scaling and the version of the recipe it was made from.
+   */
+  private static final class Entry {
+    private final int version;
+    private final List<Grocery> ingredients;
+
+    private Entry(int version, List<Grocery> ingredients) {
+      this.version = version;
+      this.ingredients = ingredients;
+    }
+  }
+}
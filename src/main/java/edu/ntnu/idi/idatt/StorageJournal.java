@@ -0,0 +1,756 @@
+package edu.ntnu.idi.idatt;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code StorageJournal} class makes a {@code FoodStorage} and a {@code Cookbook} durable.
+ * Every added grocery, removal and recipe change is appended to a write-ahead log, and the
+ * full state is written to a snapshot every {@link #DEFAULT_SNAPSHOT_INTERVAL} records, after
+ * which the log is emptied. On startup the state is recovered from the last snapshot plus
+ * the records logged after it.
+ *
+ * <p>Records are written with group commit: they are collected in memory and a background
+ * thread writes and forces them to disk every few milliseconds, so many changes share one
+ * disk sync. Call {@link #sync()} to wait until all changes so far are on disk.
+ *
+ * <p>Snapshots are written in the {@link StorageSnapshot} format. A snapshot that comes due
+ * is encoded in memory by the thread making the change, as the storage and cookbook are
+ * not safe to read from other threads, and the log is then moved aside to
+ * {@link #OLD_LOG_FILE} and a new log started. A background thread writes the snapshot to
+ * disk and deletes the old log, so the change does not wait for the disk. Until then, the
+ * old log is replayed on recovery before the new one.
+ * Each record holds a sequence number, its length and a checksum. A record that was only
+ * partly written when the program stopped is detected on recovery and cut off, and records
+ * already included in the snapshot are skipped.
+ *
+ * <p>Only the operations above are logged. Changes made directly on a stored
+ * {@code Grocery}, for example with {@code setQuantity}, are saved by the next snapshot.
+ * The journal expects changes to come from one thread at a time.
+ */
+public final class StorageJournal
+    implements FoodStorageListener, CookbookListener, AutoCloseable {
+  /**
+   * The name of the log file in the journal directory.
+   */
+  static final String LOG_FILE = "journal.log";
+
+  /**
+   * The name of the snapshot file in the journal directory.
+   */
+  static final String SNAPSHOT_FILE = "snapshot.dat";
+
+  /**
+   * The name of the log moved aside while a snapshot is written, in the journal directory.
+   */
+  static final String OLD_LOG_FILE = "journal.log.old";
+
+  /**
+   * The number of logged records after which a new snapshot is written.
+   */
+  public static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+
+  /**
+   * The longest time, in milliseconds, a record waits before it is written to disk.
+   */
+  private static final long COMMIT_INTERVAL_MILLIS = 5;
+
+  /**
+   * The number of pending bytes that makes the committer write right away.
+   */
+  private static final int COMMIT_BYTES = 64 * 1024;
+
+  private static final byte ADD_GROCERY = 1;
+  private static final byte REMOVE_GROCERIES = 2;
+  private static final byte REMOVE_GROCERY_COMPLETELY = 3;
+  private static final byte ADD_RECIPE = 4;
+  private static final byte CHANGE_RECIPE = 5;
+
+  private final Path directory;
+  private final FoodStorage foodStorage;
+  private final Cookbook cookbook;
+  private final int snapshotInterval;
+  private final ScheduledExecutorService committer;
+  private final ExecutorService snapshotWriter;
+
+  /**
+   * Serializes writes to the log file.
+   */
+  private final Object writeLock = new Object();
+
+  /**
+   * The log file records are written to. Guarded by {@code writeLock}.
+   */
+  private FileChannel log;
+
+  /**
+   * The snapshot being written in the background, or {@code null} if none has been.
+   */
+  private Future<?> snapshotInProgress;
+
+  /**
+   * Records that have been appended but not yet written. Guarded by {@code this}.
+   */
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+  /**
+   * The sequence number of the last appended record. Guarded by {@code this}.
+   */
+  private long lastSequence;
+
+  /**
+   * The sequence number of the last record forced to disk. Guarded by {@code this}.
+   */
+  private long durableSequence;
+
+  /**
+   * The error from the last failed write, reported on the next append or sync.
+   * Guarded by {@code this}.
+   */
+  private IOException failure;
+
+  private int recordsSinceSnapshot;
+  private boolean closed;
+
+  private StorageJournal(Path directory, FoodStorage foodStorage, Cookbook cookbook,
+      int snapshotInterval, FileChannel log, long lastSequence) {
+    this.directory = directory;
+    this.foodStorage = foodStorage;
+    this.cookbook = cookbook;
+    this.snapshotInterval = snapshotInterval;
+    this.log = log;
+    this.lastSequence = lastSequence;
+    this.durableSequence = lastSequence;
+    this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "storage-journal-commit");
+      thread.setDaemon(true);
+      return thread;
+    });
+    committer.scheduleWithFixedDelay(this::commit, COMMIT_INTERVAL_MILLIS,
+        COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    this.snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "storage-journal-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Opens the journal in a directory, using the default snapshot interval.
+   * See {@link #open(Path, FoodStorage, Cookbook, int)}.
+   *
+   * @param directory   the directory holding the log and snapshot. Created if missing.
+   * @param foodStorage the {@code FoodStorage} to recover into and log.
+   * @param cookbook    the {@code Cookbook} to recover into and log.
+   * @return the open journal.
+   * @throws IOException if the files cannot be read or created.
+   */
+  public static StorageJournal open(Path directory, FoodStorage foodStorage, Cookbook cookbook)
+      throws IOException {
+    return open(directory, foodStorage, cookbook, DEFAULT_SNAPSHOT_INTERVAL);
+  }
+
+  /**
+   * Opens the journal in a directory. The state saved in the directory is first recovered
+   * into the given storage and cookbook, which should be empty, and the journal then logs
+   * every later change to them.
+   *
+   * @param directory        the directory holding the log and snapshot. Created if missing.
+   * @param foodStorage      the {@code FoodStorage} to recover into and log.
+   * @param cookbook         the {@code Cookbook} to recover into and log.
+   * @param snapshotInterval the number of records after which a new snapshot is written.
+   * @return the open journal.
+   * @throws IOException if the files cannot be read or created.
+   */
+  public static StorageJournal open(Path directory, FoodStorage foodStorage, Cookbook cookbook,
+      int snapshotInterval) throws IOException {
+    if (snapshotInterval <= 0) {
+      throw new IllegalArgumentException("Snapshot interval must be greater than 0.");
+    }
+    Files.createDirectories(directory);
+
+    long lastSequence = 0;
+    Path snapshot = directory.resolve(SNAPSHOT_FILE);
+    if (Files.exists(snapshot)) {
+      StorageSnapshot saved = StorageSnapshot.open(snapshot);
+      saved.loadInto(foodStorage, cookbook);
+      lastSequence = saved.getSequence();
+    }
+
+    Path oldLog = directory.resolve(OLD_LOG_FILE);
+    if (Files.exists(oldLog)) {
+      // The snapshot that replaces it was not written, or its log was not deleted yet
+      try (FileChannel log = FileChannel.open(oldLog, StandardOpenOption.READ,
+          StandardOpenOption.WRITE)) {
+        lastSequence = replay(log, lastSequence, foodStorage, cookbook);
+      }
+    }
+    FileChannel log = FileChannel.open(directory.resolve(LOG_FILE),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      lastSequence = replay(log, lastSequence, foodStorage, cookbook);
+    } catch (IOException | RuntimeException e) {
+      log.close();
+      throw e;
+    }
+
+    StorageJournal journal = new StorageJournal(directory, foodStorage, cookbook,
+        snapshotInterval, log, lastSequence);
+    foodStorage.addListener(journal);
+    cookbook.addListener(journal);
+    return journal;
+  }
+
+  @Override
+  public void groceryAdded(Grocery grocery) {
+    append(ADD_GROCERY, out -> writeGrocery(out, grocery));
+  }
+
+  /**
+   * Logs groceries added in bulk. A batch at least as large as the snapshot interval is
+   * saved by writing a snapshot instead of logging every grocery.
+   *
+   * @param groceries the added groceries.
+   */
+  @Override
+  public void groceriesAdded(List<Grocery> groceries) {
+    if (groceries.size() >= snapshotInterval) {
+      snapshotInBackground();
+      return;
+    }
+    for (Grocery grocery : groceries) {
+      append(ADD_GROCERY, out -> writeGrocery(out, grocery), false);
+    }
+    snapshotIfDue();
+  }
+
+  @Override
+  public void groceriesRemoved(String name, double amount) {
+    append(REMOVE_GROCERIES, out -> {
+      writeString(out, name);
+      out.writeDouble(amount);
+    });
+  }
+
+  @Override
+  public void groceryRemovedCompletely(String name) {
+    append(REMOVE_GROCERY_COMPLETELY, out -> writeString(out, name));
+  }
+
+  @Override
+  public void recipeAdded(Recipe recipe) {
+    append(ADD_RECIPE, out -> writeRecipe(out, recipe));
+  }
+
+  @Override
+  public void recipeChanged(Recipe recipe) {
+    append(CHANGE_RECIPE, out -> writeRecipe(out, recipe));
+  }
+
+  /**
+   * Waits until every change logged so far has been forced to disk.
+   *
+   * @throws UncheckedIOException if writing the log failed.
+   */
+  public void sync() {
+    long target;
+    synchronized (this) {
+      target = lastSequence;
+    }
+    commit();
+    synchronized (this) {
+      while (durableSequence < target && failure == null) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      throwFailure();
+    }
+  }
+
+  /**
+   * Writes the full state to a new snapshot and empties the log, and waits until the
+   * snapshot is on disk. Snapshots are also written in the background every
+   * {@link #DEFAULT_SNAPSHOT_INTERVAL} records.
+   *
+   * @throws UncheckedIOException if the snapshot cannot be written.
+   */
+  public void snapshot() {
+    awaitSnapshot();
+    sync();
+    long sequence;
+    synchronized (this) {
+      sequence = lastSequence;
+    }
+    try {
+      writeSnapshot(StorageSnapshot.encode(foodStorage, cookbook, sequence));
+      synchronized (writeLock) {
+        log.truncate(0);
+        log.force(true);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    recordsSinceSnapshot = 0;
+  }
+
+  /**
+   * Encodes the full state to a new snapshot, moves the log aside and writes the snapshot
+   * in the background. If the old log of an earlier background snapshot is still there
+   * because writing it failed, the snapshot is written with {@link #snapshot()} instead,
+   * which also reports the error if it happens again.
+   *
+   * @throws UncheckedIOException if the snapshot cannot be encoded or the log cannot be
+   *                              moved aside.
+   */
+  private void snapshotInBackground() {
+    awaitSnapshot();
+    Path oldLog = directory.resolve(OLD_LOG_FILE);
+    if (Files.exists(oldLog)) {
+      snapshot();
+      return;
+    }
+    sync();
+    long sequence;
+    synchronized (this) {
+      sequence = lastSequence;
+    }
+    byte[] encoded;
+    try {
+      encoded = StorageSnapshot.encode(foodStorage, cookbook, sequence);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    synchronized (writeLock) {
+      try {
+        // Every record in the snapshot is in this log, and every later record in the next
+        log.close();
+        Files.move(directory.resolve(LOG_FILE), oldLog, StandardCopyOption.ATOMIC_MOVE);
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+      } catch (IOException e) {
+        synchronized (this) {
+          failure = e;
+          notifyAll();
+        }
+        throw new UncheckedIOException("Starting a new storage journal log failed", e);
+      }
+    }
+    recordsSinceSnapshot = 0;
+    snapshotInProgress = snapshotWriter.submit(() -> {
+      writeSnapshot(encoded);
+      return null;
+    });
+  }
+
+  /**
+   * Writes an encoded snapshot next to the snapshot file and moves it into place, then
+   * deletes the old log, whose records are all in the snapshot.
+   *
+   * @param encoded the encoded snapshot.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  private void writeSnapshot(byte[] encoded) throws IOException {
+    Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+    StorageSnapshot.write(temporary, encoded);
+    Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists(directory.resolve(OLD_LOG_FILE));
+  }
+
+  /**
+   * Waits until the snapshot being written in the background, if any, is done. An error
+   * writing it is not thrown here, as its old log is still replayed on recovery.
+   */
+  private void awaitSnapshot() {
+    if (snapshotInProgress == null) {
+      return;
+    }
+    try {
+      snapshotInProgress.get();
+    } catch (ExecutionException e) {
+      // The next snapshot finds the old log and is written with snapshot() instead
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    snapshotInProgress = null;
+  }
+
+  /**
+   * Writes all pending records to disk, stops the background committer and closes the log.
+   * The storage and cookbook are not logged after this.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    awaitSnapshot();
+    snapshotWriter.shutdown();
+    committer.shutdown();
+    try {
+      committer.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      sync();
+    } finally {
+      synchronized (writeLock) {
+        try {
+          log.close();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends a record to the pending records.
+   *
+   * @param type    the record type.
+   * @param payload writes the record's fields.
+   */
+  private void append(byte type, RecordWriter payload) {
+    append(type, payload, true);
+  }
+
+  /**
+   * Appends a record to the pending records.
+   *
+   * @param type          the record type.
+   * @param payload       writes the record's fields.
+   * @param checkSnapshot whether to write a snapshot if enough records have been logged.
+   */
+  private void append(byte type, RecordWriter payload, boolean checkSnapshot) {
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    boolean commitNow;
+    synchronized (this) {
+      throwFailure();
+      long sequence = lastSequence + 1;
+      try {
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeLong(sequence);
+        out.writeByte(type);
+        payload.write(out);
+        writeFrame(new DataOutputStream(pending), body.toByteArray());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      lastSequence = sequence;
+      commitNow = pending.size() >= COMMIT_BYTES;
+    }
+    if (commitNow) {
+      committer.execute(this::commit);
+    }
+    recordsSinceSnapshot++;
+    if (checkSnapshot) {
+      snapshotIfDue();
+    }
+  }
+
+  /**
+   * Writes a snapshot if enough records have been logged since the last one.
+   */
+  private void snapshotIfDue() {
+    if (recordsSinceSnapshot >= snapshotInterval) {
+      snapshotInBackground();
+    }
+  }
+
+  /**
+   * Writes the pending records to the log and forces them to disk. Does nothing once the
+   * log is closed.
+   */
+  private void commit() {
+    synchronized (writeLock) {
+      if (!log.isOpen()) {
+        return;
+      }
+      ByteArrayOutputStream batch;
+      long sequence;
+      synchronized (this) {
+        if (pending.size() == 0) {
+          return;
+        }
+        batch = pending;
+        sequence = lastSequence;
+        pending = new ByteArrayOutputStream();
+      }
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        log.position(log.size());
+        while (buffer.hasRemaining()) {
+          log.write(buffer);
+        }
+        log.force(false);
+        synchronized (this) {
+          durableSequence = sequence;
+          notifyAll();
+        }
+      } catch (IOException e) {
+        synchronized (this) {
+          failure = e;
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * Throws the error from the last failed write, if any. Must hold the lock on {@code this}.
+   */
+  private void throwFailure() {
+    if (failure != null) {
+      throw new UncheckedIOException("Writing the storage journal failed", failure);
+    }
+  }
+
+  /**
+   * Writes a record body with its length and checksum.
+   *
+   * @param out  the stream to write to.
+   * @param body the record body.
+   * @throws IOException if writing fails.
+   */
+  private static void writeFrame(DataOutputStream out, byte[] body) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    out.writeInt(body.length);
+    out.writeInt((int) crc.getValue());
+    out.write(body);
+  }
+
+  /**
+   * Replays the records in the log that come after the snapshot, and cuts off a record
+   * at the end of the log that was only partly written.
+   *
+   * @param log          the log file.
+   * @param lastSequence the sequence number of the last record in the snapshot.
+   * @param foodStorage  the storage to replay into.
+   * @param cookbook     the cookbook to replay into.
+   * @return the sequence number of the last record, logged or in the snapshot.
+   * @throws IOException if the log cannot be read.
+   */
+  private static long replay(FileChannel log, long lastSequence, FoodStorage foodStorage,
+      Cookbook cookbook) throws IOException {
+    long validEnd = 0;
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Channels.newInputStream(log.position(0))));
+    while (true) {
+      byte[] body;
+      try {
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length < 9 || length > log.size()) {
+          break;
+        }
+        body = in.readNBytes(length);
+        if (body.length < length) {
+          break;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != checksum) {
+          break;
+        }
+      } catch (EOFException e) {
+        break;
+      }
+
+      DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+      long sequence = record.readLong();
+      byte type = record.readByte();
+      if (sequence > lastSequence) {
+        apply(type, record, foodStorage, cookbook);
+        lastSequence = sequence;
+      }
+      validEnd += 8 + body.length;
+    }
+    if (validEnd < log.size()) {
+      log.truncate(validEnd);
+    }
+    log.position(validEnd);
+    return lastSequence;
+  }
+
+  /**
+   * Applies one logged record to the storage or cookbook.
+   *
+   * @param type        the record type.
+   * @param in          the record's fields.
+   * @param foodStorage the storage to apply to.
+   * @param cookbook    the cookbook to apply to.
+   * @throws IOException if the record cannot be read.
+   */
+  private static void apply(byte type, DataInputStream in, FoodStorage foodStorage,
+      Cookbook cookbook) throws IOException {
+    switch (type) {
+      case ADD_GROCERY:
+        foodStorage.addGrocery(readGrocery(in));
+        break;
+      case REMOVE_GROCERIES:
+        foodStorage.removeGroceries(readString(in), in.readDouble());
+        break;
+      case REMOVE_GROCERY_COMPLETELY:
+        foodStorage.removeGroceryCompletely(readString(in));
+        break;
+      case ADD_RECIPE:
+        cookbook.addRecipe(readRecipe(in));
+        break;
+      case CHANGE_RECIPE:
+        updateRecipe(cookbook, readRecipe(in));
+        break;
+      default:
+        throw new IOException("Unknown journal record type " + type);
+    }
+  }
+
+  /**
+   * Brings a recipe in the cookbook up to date with a logged copy of it.
+   * Ingredients can only be added to a recipe, so the ingredients missing from the
+   * recipe are the ones at the end of the logged copy. The ingredients the recipe has
+   * are given the logged quantity and unit, as they may have been changed.
+   *
+   * @param cookbook the cookbook holding the recipe.
+   * @param logged   the logged copy of the recipe.
+   */
+  private static void updateRecipe(Cookbook cookbook, Recipe logged) {
+    Recipe recipe = cookbook.findRecipe(logged.getName());
+    if (recipe == null) {
+      return;
+    }
+    recipe.setDescription(logged.getDescription());
+    recipe.setProcedure(logged.getProcedure());
+    recipe.setPortionSize(logged.getPortionSize());
+    List<Grocery> ingredients = logged.getIngredients();
+    int kept = Math.min(recipe.getIngredients().size(), ingredients.size());
+    for (int i = 0; i < kept; i++) {
+      Grocery ingredient = recipe.getIngredients().get(i);
+      Grocery loggedIngredient = ingredients.get(i);
+      if (!ingredient.getUnit().equals(loggedIngredient.getUnit())) {
+        ingredient.setUnit(loggedIngredient.getUnit());
+      }
+      if (ingredient.getQuantity() != loggedIngredient.getQuantity()) {
+        ingredient.setQuantity(loggedIngredient.getQuantity());
+      }
+    }
+    for (int i = kept; i < ingredients.size(); i++) {
+      Grocery ingredient = ingredients.get(i);
+      recipe.addIngredient(ingredient.getName(), ingredient.getQuantity(), ingredient.getUnit());
+    }
+  }
+
+  private static void writeGrocery(DataOutputStream out, Grocery grocery) throws IOException {
+    writeString(out, grocery.getName());
+    out.writeDouble(grocery.getQuantity());
+    writeString(out, grocery.getUnit());
+    out.writeLong(grocery.getExpirationDate().toEpochDay());
+    out.writeDouble(grocery.getPricePerUnit());
+  }
+
+  private static Grocery readGrocery(DataInputStream in) throws IOException {
+    return new Grocery(readString(in), in.readDouble(), readString(in),
+        LocalDate.ofEpochDay(in.readLong()), in.readDouble());
+  }
+
+  private static void writeRecipe(DataOutputStream out, Recipe recipe) throws IOException {
+    writeString(out, recipe.getName());
+    writeString(out, recipe.getDescription());
+    writeString(out, recipe.getProcedure());
+    out.writeInt(recipe.getPortionSize());
+    out.writeInt(recipe.getIngredients().size());
+    for (Grocery ingredient : recipe.getIngredients()) {
+      writeString(out, ingredient.getName());
+      out.writeDouble(ingredient.getQuantity());
+      writeString(out, ingredient.getUnit());
+    }
+  }
+
+  private static Recipe readRecipe(DataInputStream in) throws IOException {
+    Recipe recipe = new Recipe(readString(in));
+    recipe.setDescription(readString(in));
+    recipe.setProcedure(readString(in));
+    recipe.setPortionSize(in.readInt());
+    int ingredients = in.readInt();
+    for (int i = 0; i < ingredients; i++) {
+      recipe.addIngredient(readString(in), in.readDouble(), readString(in));
+    }
+    return recipe;
+  }
+
+  /**
+   * Writes a string that may be {@code null} or of any length: a flag telling if it is
+   * present, then the length of its UTF-8 bytes and the bytes. {@code writeUTF} is not
+   * used, as it fails on {@code null} and on strings over 64 KB, like a long procedure.
+   *
+   * @param out    the stream to write to.
+   * @param string the string, or {@code null}.
+   * @throws IOException if writing fails.
+   */
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    out.writeBoolean(string != null);
+    if (string != null) {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+   *
+   * @param in the record's fields.
+   * @return the string, or {@code null}.
+   * @throws IOException if the string cannot be read.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    int length = in.readInt();
+    if (length < 0 || length > in.available()) {
+      throw new IOException("Corrupt string in journal record");
+    }
+    return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes the fields of one record.
+   */
+  @FunctionalInterface
+  private interface RecordWriter {
+    void write(DataOutputStream out) throws IOException;
+  }
+}
@@ -0,0 +1,232 @@
+package edu.ntnu.idi.idatt;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * The {@code StorageRegistry} class holds the {@code FoodStorage} and {@code Cookbook} of
+ * many households. The households are spread over a fixed number of shards by their id,
+ * and each shard is owned by one thread: every task on a household runs on its shard's
+ * thread, one at a time, so the plain {@code FoodStorage} and {@code Cookbook} classes are
+ * used without any locking, while different shards work in parallel.
+ *
+ * <p>Queries over all households, like the total value, are sent to every shard at once.
+ * Each shard combines its own households, and the partial results are then merged.
+ *
+ * <p>The storages and cookbooks must only be used from inside the tasks given to the
+ * registry, and must not be kept and used after a task ends.
+ */
+public class StorageRegistry implements AutoCloseable {
+  private final Shard[] shards;
+
+  /**
+   * Constructs a {@code StorageRegistry} with one shard per processor.
+   */
+  public StorageRegistry() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a {@code StorageRegistry}.
+   *
+   * @param shardCount the number of shards. Must be greater than 0.
+   * @throws IllegalArgumentException if {@code shardCount} is not greater than 0.
+   */
+  public StorageRegistry(int shardCount) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("Shard count must be greater than 0.");
+    }
+    this.shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(i);
+    }
+  }
+
+  /**
+   * Retrieves the number of shards.
+   *
+   * @return the number of shards.
+   */
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  /**
+   * Runs a task on a household's storage and cookbook, on the household's shard.
+   * A household is created, with an empty storage and cookbook, the first time it is used.
+   *
+   * @param household the id of the household. Must not be {@code null}.
+   * @param task      the task, given the household's storage and cookbook.
+   * @param <T>       the type of the result.
+   * @return the result of the task, when it has run. Completes exceptionally if the task
+   *     throws.
+   * @throws IllegalArgumentException if {@code household} is {@code null}.
+   */
+  public <T> CompletableFuture<T> submit(String household,
+      BiFunction<FoodStorage, Cookbook, T> task) {
+    if (household == null) {
+      throw new IllegalArgumentException("Household cannot be null");
+    }
+    Shard shard = shardOf(household);
+    return CompletableFuture.supplyAsync(() -> {
+      Household state = shard.households.computeIfAbsent(household, id -> new Household());
+      return task.apply(state.foodStorage, state.cookbook);
+    }, shard.executor);
+  }
+
+  /**
+   * Runs a task on a household, like {@link #submit(String, BiFunction)}, and waits for
+   * its result.
+   *
+   * @param household the id of the household. Must not be {@code null}.
+   * @param task      the task, given the household's storage and cookbook.
+   * @param <T>       the type of the result.
+   * @return the result of the task.
+   * @throws IllegalArgumentException if {@code household} is {@code null}.
+   * @throws RuntimeException         the exception thrown by the task, if any.
+   */
+  public <T> T call(String household, BiFunction<FoodStorage, Cookbook, T> task) {
+    return join(submit(household, task));
+  }
+
+  /**
+   * Computes a value over all households. Every shard reduces its own households in
+   * parallel with the others, and the shard results are merged.
+   *
+   * @param identity the result when there are no households, which must not change a
+   *                 result it is merged with.
+   * @param mapper   computes the value of one household from its storage and cookbook.
+   * @param merge    merges two values. Must be associative.
+   * @param <T>      the type of the value.
+   * @return the merged value of all households.
+   * @throws RuntimeException the exception thrown by {@code mapper} or {@code merge}, if any.
+   */
+  public <T> T aggregate(T identity, BiFunction<FoodStorage, Cookbook, T> mapper,
+      BinaryOperator<T> merge) {
+    List<CompletableFuture<T>> parts = new ArrayList<>(shards.length);
+    for (Shard shard : shards) {
+      parts.add(CompletableFuture.supplyAsync(() -> {
+        T result = identity;
+        for (Household household : shard.households.values()) {
+          result = merge.apply(result, mapper.apply(household.foodStorage, household.cookbook));
+        }
+        return result;
+      }, shard.executor));
+    }
+    T result = identity;
+    for (CompletableFuture<T> part : parts) {
+      result = merge.apply(result, join(part));
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the total value of the non-expired groceries of all households.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @return the total value.
+   */
+  public double getTotalValue(LocalDate currentDate) {
+    return aggregate(0.0, (foodStorage, cookbook) -> foodStorage.getTotalValue(currentDate),
+        Double::sum);
+  }
+
+  /**
+   * Calculates the total value of the expired groceries of all households.
+   *
+   * @param currentDate the current date to check for expiration.
+   * @return the total expired value.
+   */
+  public double getExpiredValue(LocalDate currentDate) {
+    return aggregate(0.0, (foodStorage, cookbook) -> foodStorage.getExpiredValue(currentDate),
+        Double::sum);
+  }
+
+  /**
+   * Counts the households in the registry.
+   *
+   * @return the number of households.
+   */
+  public int getHouseholdCount() {
+    return aggregate(0, (foodStorage, cookbook) -> 1, Integer::sum);
+  }
+
+  /**
+   * Lets the tasks already given to the registry finish, and stops the shard threads.
+   * No tasks can be given after this.
+   */
+  @Override
+  public void close() {
+    for (Shard shard : shards) {
+      shard.executor.shutdown();
+    }
+  }
+
+  /**
+   * Finds the shard owning a household.
+   *
+   * @param household the id of the household.
+   * @return the shard.
+   */
+  private Shard shardOf(String household) {
+    return shards[Math.floorMod(household.hashCode(), shards.length)];
+  }
+
+  /**
+   * Waits for a task and returns its result, rethrowing the task's own exception.
+   *
+   * @param future the task.
+   * @param <T>    the type of the result.
+   * @return the result.
+   */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * The households of one shard and the thread that owns them.
+   */
+  private static final class Shard {
+    private final ExecutorService executor;
+
+    /**
+     * The households of the shard, keyed by id. Only used by the shard's thread.
+     */
+    private final Map<String, Household> households = new HashMap<>();
+
+    private Shard(int index) {
+      this.executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-shard-" + index);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * The storage and cookbook of one household.
+   */
+  private static final class Household {
+    private final FoodStorage foodStorage = new FoodStorage();
+    private final Cookbook cookbook = new Cookbook();
+  }
+}
@@ -0,0 +1,435 @@
+package edu.ntnu.idi.idatt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code StorageSnapshot} class reads and writes the groceries of a {@code FoodStorage}
+ * and the recipes of a {@code Cookbook} in a compact binary file.
+ *
+ * <p>The file is laid out in columns rather than records. Every string (grocery and
+ * ingredient names, units, recipe texts) is stored once in a dictionary and referred to by
+ * number. The groceries are stored as fixed-width columns of quantities, prices, name
+ * numbers, unit numbers and expiration dates, where each date is stored as the number of
+ * days after the earliest date in the file. Recipes are stored after the groceries with a
+ * table of their positions.
+ *
+ * <p>{@link #open(Path)} maps the file into memory and only reads its header, so opening is
+ * fast no matter how large the file is. A grocery, recipe or dictionary string is decoded
+ * when it is asked for, and {@link #loadInto(FoodStorage, Cookbook)} decodes everything.
+ *
+ * <p>A file can be at most 2 GB, the largest region that can be mapped at once.
+ */
+public final class StorageSnapshot {
+  private static final int MAGIC = 0x46574D53;
+  private static final int VERSION = 2;
+
+  /**
+   * The size of the header in bytes.
+   */
+  private static final int HEADER_SIZE = 48;
+
+  /**
+   * The size of a recipe before its ingredients.
+   */
+  private static final int RECIPE_SIZE = 5 * 4;
+
+  /**
+   * The size of one recipe ingredient.
+   */
+  private static final int INGREDIENT_SIZE = 4 + 4 + 8;
+
+  /**
+   * The dictionary number written for a {@code null} string.
+   */
+  private static final int NO_STRING = -1;
+
+  private final ByteBuffer buffer;
+  private final long sequence;
+  private final int groceryCount;
+  private final int recipeCount;
+  private final int stringCount;
+  private final long firstDay;
+  private final int dayWidth;
+
+  private final int quantities;
+  private final int prices;
+  private final int nameIds;
+  private final int unitIds;
+  private final int days;
+  private final int stringOffsets;
+  private final int stringBytes;
+  private final int recipeOffsets;
+
+  /**
+   * The dictionary strings decoded so far.
+   */
+  private final String[] strings;
+
+  private StorageSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a storage snapshot");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported storage snapshot version " + buffer.getInt(4));
+    }
+    this.sequence = buffer.getLong(8);
+    this.groceryCount = buffer.getInt(16);
+    this.recipeCount = buffer.getInt(20);
+    this.stringCount = buffer.getInt(24);
+    this.firstDay = buffer.getLong(28);
+    this.dayWidth = buffer.getInt(36);
+    int stringBytesLength = buffer.getInt(40);
+    if (groceryCount < 0 || recipeCount < 0 || stringCount < 0 || stringBytesLength < 0
+        || (dayWidth != Short.BYTES && dayWidth != Integer.BYTES)) {
+      throw new IOException("Corrupt storage snapshot header");
+    }
+
+    long position = HEADER_SIZE;
+    this.quantities = (int) position;
+    position += (long) groceryCount * Double.BYTES;
+    this.prices = (int) position;
+    position += (long) groceryCount * Double.BYTES;
+    this.nameIds = (int) position;
+    position += (long) groceryCount * Integer.BYTES;
+    this.unitIds = (int) position;
+    position += (long) groceryCount * Integer.BYTES;
+    this.days = (int) position;
+    position += (long) groceryCount * dayWidth;
+    this.stringOffsets = (int) position;
+    position += (long) (stringCount + 1) * Integer.BYTES;
+    this.stringBytes = (int) position;
+    position += stringBytesLength;
+    this.recipeOffsets = (int) position;
+    position += (long) recipeCount * Integer.BYTES;
+    if (position > buffer.capacity()) {
+      throw new IOException("Storage snapshot is truncated");
+    }
+    this.strings = new String[stringCount];
+  }
+
+  /**
+   * Opens a snapshot file by mapping it into memory. Only the header is read; the
+   * groceries and recipes are decoded when they are asked for.
+   *
+   * @param file the snapshot file.
+   * @return the opened snapshot.
+   * @throws IOException if the file cannot be read or is not a valid snapshot.
+   */
+  public static StorageSnapshot open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Storage snapshot is too large to map: " + file);
+      }
+      return new StorageSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes the groceries of a storage and the recipes of a cookbook to a snapshot file.
+   * The groceries are written in the order of {@code FoodStorage.forEachGrocery}, so lots of
+   * the same grocery keep their order when the snapshot is loaded.
+   *
+   * @param file        the file to write. Replaced if it exists.
+   * @param foodStorage the {@code FoodStorage} to write.
+   * @param cookbook    the {@code Cookbook} to write.
+   * @param sequence    a sequence number stored with the snapshot, for example the number
+   *                    of the last journal record it includes.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void write(Path file, FoodStorage foodStorage, Cookbook cookbook,
+      long sequence) throws IOException {
+    write(file, encode(foodStorage, cookbook, sequence));
+  }
+
+  /**
+   * Writes an encoded snapshot to a file and forces it to disk.
+   *
+   * @param file     the file to write. Replaced if it exists.
+   * @param snapshot the snapshot, as returned by {@link #encode(FoodStorage, Cookbook, long)}.
+   * @throws IOException if the file cannot be written.
+   */
+  static void write(Path file, byte[] snapshot) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Encodes the groceries of a storage and the recipes of a cookbook as a snapshot in
+   * memory, so it can be written to a file later while the storage and cookbook change.
+   * See {@link #write(Path, FoodStorage, Cookbook, long)}.
+   *
+   * @param foodStorage the {@code FoodStorage} to encode.
+   * @param cookbook    the {@code Cookbook} to encode.
+   * @param sequence    the sequence number stored with the snapshot.
+   * @return the encoded snapshot.
+   * @throws IOException if the snapshot would be too large.
+   */
+  static byte[] encode(FoodStorage foodStorage, Cookbook cookbook, long sequence)
+      throws IOException {
+    List<Grocery> groceries = new ArrayList<>();
+    foodStorage.forEachGrocery(groceries::add);
+    List<Recipe> recipes = cookbook.getRecipes();
+
+    Dictionary dictionary = new Dictionary();
+    long firstDay = Long.MAX_VALUE;
+    long lastDay = Long.MIN_VALUE;
+    int[] groceryNames = new int[groceries.size()];
+    int[] groceryUnits = new int[groceries.size()];
+    for (int i = 0; i < groceries.size(); i++) {
+      Grocery grocery = groceries.get(i);
+      groceryNames[i] = dictionary.id(grocery.getName());
+      groceryUnits[i] = dictionary.id(grocery.getUnit());
+      long day = grocery.getExpirationDate().toEpochDay();
+      firstDay = Math.min(firstDay, day);
+      lastDay = Math.max(lastDay, day);
+    }
+    if (groceries.isEmpty()) {
+      firstDay = 0;
+      lastDay = 0;
+    }
+    if (lastDay - firstDay > Integer.MAX_VALUE) {
+      throw new IOException("Expiration dates are too far apart to store");
+    }
+    int dayWidth = lastDay - firstDay <= Character.MAX_VALUE ? Short.BYTES : Integer.BYTES;
+
+    int[][] recipeStrings = new int[recipes.size()][];
+    for (int i = 0; i < recipes.size(); i++) {
+      Recipe recipe = recipes.get(i);
+      List<Grocery> ingredients = recipe.getIngredients();
+      int[] ids = new int[3 + 2 * ingredients.size()];
+      ids[0] = dictionary.id(recipe.getName());
+      ids[1] = dictionary.id(recipe.getDescription());
+      ids[2] = dictionary.id(recipe.getProcedure());
+      for (int j = 0; j < ingredients.size(); j++) {
+        ids[3 + 2 * j] = dictionary.id(ingredients.get(j).getName());
+        ids[4 + 2 * j] = dictionary.id(ingredients.get(j).getUnit());
+      }
+      recipeStrings[i] = ids;
+    }
+
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream(1 << 16);
+    try (DataOutputStream out = new DataOutputStream(encoded)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(sequence);
+      out.writeInt(groceries.size());
+      out.writeInt(recipes.size());
+      out.writeInt(dictionary.strings.size());
+      out.writeLong(firstDay);
+      out.writeInt(dayWidth);
+      out.writeInt(dictionary.size);
+      out.writeInt(0);
+
+      for (Grocery grocery : groceries) {
+        out.writeDouble(grocery.getQuantity());
+      }
+      for (Grocery grocery : groceries) {
+        out.writeDouble(grocery.getPricePerUnit());
+      }
+      for (int name : groceryNames) {
+        out.writeInt(name);
+      }
+      for (int unit : groceryUnits) {
+        out.writeInt(unit);
+      }
+      for (Grocery grocery : groceries) {
+        int delta = (int) (grocery.getExpirationDate().toEpochDay() - firstDay);
+        if (dayWidth == Short.BYTES) {
+          out.writeShort(delta);
+        } else {
+          out.writeInt(delta);
+        }
+      }
+
+      int offset = 0;
+      for (byte[] bytes : dictionary.strings) {
+        out.writeInt(offset);
+        offset += bytes.length;
+      }
+      out.writeInt(offset);
+      for (byte[] bytes : dictionary.strings) {
+        out.write(bytes);
+      }
+
+      long recipeOffset = out.size() + (long) recipes.size() * Integer.BYTES;
+      for (Recipe recipe : recipes) {
+        if (recipeOffset > Integer.MAX_VALUE) {
+          throw new IOException("Storage snapshot would be too large to map");
+        }
+        out.writeInt((int) recipeOffset);
+        recipeOffset += RECIPE_SIZE + (long) recipe.getIngredients().size() * INGREDIENT_SIZE;
+      }
+      for (int i = 0; i < recipes.size(); i++) {
+        Recipe recipe = recipes.get(i);
+        int[] ids = recipeStrings[i];
+        out.writeInt(ids[0]);
+        out.writeInt(ids[1]);
+        out.writeInt(ids[2]);
+        out.writeInt(recipe.getPortionSize());
+        out.writeInt(recipe.getIngredients().size());
+        for (int j = 0; j < recipe.getIngredients().size(); j++) {
+          out.writeInt(ids[3 + 2 * j]);
+          out.writeInt(ids[4 + 2 * j]);
+          out.writeDouble(recipe.getIngredients().get(j).getQuantity());
+        }
+      }
+    }
+    return encoded.toByteArray();
+  }
+
+  /**
+   * Retrieves the sequence number stored with the snapshot.
+   *
+   * @return the sequence number.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Retrieves the number of groceries in the snapshot.
+   *
+   * @return the number of groceries.
+   */
+  public int getGroceryCount() {
+    return groceryCount;
+  }
+
+  /**
+   * Retrieves the number of recipes in the snapshot.
+   *
+   * @return the number of recipes.
+   */
+  public int getRecipeCount() {
+    return recipeCount;
+  }
+
+  /**
+   * Decodes one grocery from the snapshot.
+   *
+   * @param index the index of the grocery, from 0 to {@link #getGroceryCount()} - 1.
+   * @return a new {@code Grocery} that is not stored in any food storage.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public Grocery getGrocery(int index) {
+    if (index < 0 || index >= groceryCount) {
+      throw new IndexOutOfBoundsException("Grocery " + index + " out of range");
+    }
+    long delta = dayWidth == Short.BYTES
+        ? buffer.getChar(days + index * Short.BYTES)
+        : buffer.getInt(days + index * Integer.BYTES);
+    return new Grocery(string(buffer.getInt(nameIds + index * Integer.BYTES)),
+        buffer.getDouble(quantities + index * Double.BYTES),
+        string(buffer.getInt(unitIds + index * Integer.BYTES)),
+        LocalDate.ofEpochDay(firstDay + delta),
+        buffer.getDouble(prices + index * Double.BYTES));
+  }
+
+  /**
+   * Decodes one recipe from the snapshot.
+   *
+   * @param index the index of the recipe, from 0 to {@link #getRecipeCount()} - 1.
+   * @return a new {@code Recipe} that is not in any cookbook.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public Recipe getRecipe(int index) {
+    if (index < 0 || index >= recipeCount) {
+      throw new IndexOutOfBoundsException("Recipe " + index + " out of range");
+    }
+    int position = buffer.getInt(recipeOffsets + index * Integer.BYTES);
+    Recipe recipe = new Recipe(string(buffer.getInt(position)));
+    recipe.setDescription(string(buffer.getInt(position + 4)));
+    recipe.setProcedure(string(buffer.getInt(position + 8)));
+    recipe.setPortionSize(buffer.getInt(position + 12));
+    int ingredients = buffer.getInt(position + 16);
+    position += RECIPE_SIZE;
+    for (int i = 0; i < ingredients; i++, position += INGREDIENT_SIZE) {
+      recipe.addIngredient(string(buffer.getInt(position)), buffer.getDouble(position + 8),
+          string(buffer.getInt(position + 4)));
+    }
+    return recipe;
+  }
+
+  /**
+   * Decodes all groceries and recipes in the snapshot and adds them to a storage and
+   * a cookbook.
+   *
+   * @param foodStorage the {@code FoodStorage} to add the groceries to.
+   * @param cookbook    the {@code Cookbook} to add the recipes to.
+   */
+  public void loadInto(FoodStorage foodStorage, Cookbook cookbook) {
+    List<Grocery> groceries = new ArrayList<>(groceryCount);
+    for (int i = 0; i < groceryCount; i++) {
+      groceries.add(getGrocery(i));
+    }
+    foodStorage.addGroceries(groceries);
+    for (int i = 0; i < recipeCount; i++) {
+      cookbook.addRecipe(getRecipe(i));
+    }
+  }
+
+  /**
+   * Decodes a dictionary string, or returns it from the strings decoded before.
+   *
+   * @param id the number of the string in the dictionary.
+   * @return the string, or {@code null} for {@link #NO_STRING}.
+   */
+  private String string(int id) {
+    if (id == NO_STRING) {
+      return null;
+    }
+    String string = strings[id];
+    if (string == null) {
+      int start = buffer.getInt(stringOffsets + id * Integer.BYTES);
+      int end = buffer.getInt(stringOffsets + (id + 1) * Integer.BYTES);
+      byte[] bytes = new byte[end - start];
+      buffer.get(stringBytes + start, bytes);
+      string = new String(bytes, StandardCharsets.UTF_8);
+      strings[id] = string;
+    }
+    return string;
+  }
+
+  /**
+   * The strings of a snapshot being written, each stored once.
+   */
+  private static final class Dictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private int size;
+
+    private int id(String string) {
+      if (string == null) {
+        return NO_STRING;
+      }
+      Integer id = ids.get(string);
+      if (id == null) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        id = strings.size();
+        ids.put(string, id);
+        strings.add(bytes);
+        size += bytes.length;
+      }
+      return id;
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package edu.ntnu.idi.idatt;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Locale;
 import java.util.Scanner;
@@ -11,15 +14,23 @@ import java.util.Scanner;
  * allowing users to perform various operations.
  */
 public class TextUserInterface {
+  /**
+   * The system property naming the directory where groceries and recipes are saved.
+   */
+  public static final String DATA_DIRECTORY_PROPERTY = "foodwaste.dataDir";
+
   private FoodStorage foodStorage;
   private Cookbook cookbook;
   private LocalDate currentDate;
   private Scanner scanner;
+  private StorageJournal journal;
 
   /**
    * Initializes the application by setting up the {@code Scanner},
    * {@code FoodStorage}, and {@code Cookbook}.
    * The {@code Locale.US} is used to ensure consistent parsing of decimal values.
+   * Groceries and recipes saved by an earlier run are loaded from the data directory.
+   * The operation metrics are published as JMX MBeans, see {@code MetricsRegistry}.
    */
   public void init() {
     this.scanner = new Scanner(System.in);
@@ -27,6 +38,27 @@ public class TextUserInterface {
     this.foodStorage = new FoodStorage();
     this.cookbook = new Cookbook();
     this.scanner.useLocale(Locale.US);
+    openJournal();
+    MetricsRegistry.getDefault().watch(foodStorage, cookbook);
+    MetricsRegistry.getDefault().registerMBeans();
+  }
+
+  /**
+   * Loads the saved groceries and recipes and starts saving every change.
+   * The data directory is given by the {@value #DATA_DIRECTORY_PROPERTY} system property,
+   * and defaults to {@code foodwaste-data}. If the data cannot be loaded, the application
+   * starts empty and changes are not saved.
+   */
+  private void openJournal() {
+    Path directory = Path.of(System.getProperty(DATA_DIRECTORY_PROPERTY, "foodwaste-data"));
+    try {
+      this.journal = StorageJournal.open(directory, foodStorage, cookbook);
+    } catch (IOException | RuntimeException e) {
+      this.foodStorage = new FoodStorage();
+      this.cookbook = new Cookbook();
+      System.out.println("Could not load saved data from " + directory + ": "
+          + e.getMessage() + "\nChanges will not be saved.\n");
+    }
   }
 
   /**
@@ -49,6 +81,10 @@ public class TextUserInterface {
     System.out.println("13. Add demo data");
     System.out.println("14. Show recipe");
     System.out.println("15. Open the cookbook");
+    System.out.println("16. Import groceries from a CSV file");
+    System.out.println("17. Save the list of non-expired groceries to a file");
+    System.out.println("18. Plan meals that use the soonest expiring groceries");
+    System.out.println("19. Show operation metrics");
     System.out.println("0. Exit \n");
     System.out.println("Current date: " + currentDate + "\n");
   }
@@ -58,72 +94,105 @@ public class TextUserInterface {
    * This method loops through the menu options, allowing the user to select actions.
    * It creates an instance of {@code MenuCases} to handle menu-specific logic.
    */
+  @SuppressWarnings("try") // The resources are only closed, the body uses the fields
   public void start() {
-    MenuCases menuCases = new MenuCases(foodStorage, cookbook, currentDate, scanner);
-    int choice = -1;
-    do {
-      showMenu();
-      System.out.print("Enter your choice: ");
-      try {
-        choice = Integer.parseInt(scanner.nextLine());
-      } catch (NumberFormatException e) {
-        System.out.println("Invalid choice, please try again");
-        continue;
-      }
+    // The journal is closed even if an operation fails with an exception
+    try (StorageJournal openJournal = journal; Scanner input = scanner) {
+      MenuCases menuCases = new MenuCases(foodStorage, cookbook, currentDate, scanner);
+      int choice = -1;
+      do {
+        showMenu();
+        System.out.print("Enter your choice: ");
+        try {
+          choice = Integer.parseInt(scanner.nextLine());
+        } catch (NumberFormatException e) {
+          System.out.println("Invalid choice, please try again");
+          continue;
+        }
+
+        switch (choice) {
+          case 1:
+            menuCases.addGroceries(scanner);
+            break;
+          case 2:
+            menuCases.removeGroceries(scanner);
+            break;
+          case 3:
+            menuCases.removeGroceryCompletely(scanner);
+            break;
+          case 4:
+            menuCases.listGroceries(currentDate);
+            break;
+          case 5:
+            menuCases.listExpiredGroceries(currentDate);
+            break;
+          case 6:
+            menuCases.getTotalValue();
+            break;
+          case 7:
+            currentDate = menuCases.changeCurrentDate(scanner);
+            break;
+          case 8:
+            menuCases.searchGroceryByName();
+            break;
+          case 9:
+            menuCases.createNewRecipe();
+            break;
+          case 10:
+            menuCases.checkIfRecipeCanBePrepared();
+            break;
+          case 11:
+            menuCases.suggestRecipes();
+            break;
+          case 12:
+            menuCases.pickAndScaleRecipe();
+            break;
+          case 13:
+            menuCases.addDummyData();
+            break;
+          case 14:
+            menuCases.showRecipe();
+            break;
+          case 15:
+            menuCases.showCookbook();
+            break;
+          case 16:
+            menuCases.importGroceries(scanner);
+            break;
+          case 17:
+            menuCases.exportGroceries(scanner);
+            break;
+          case 18:
+            menuCases.planMeals();
+            break;
+          case 19:
+            menuCases.showMetrics();
+            break;
+          case 0:
+            System.out.println("Exiting...");
+            break;
+          default:
+            System.out.println("Invalid choice. Please try again.\n");
+        }
+      } while (choice != 0);
+    }
+  }
 
-      switch (choice) {
-        case 1:
-          menuCases.addGroceries(scanner);
-          break;
-        case 2:
-          menuCases.removeGroceries(scanner);
-          break;
-        case 3:
-          menuCases.removeGroceryCompletely(scanner);
-          break;
-        case 4:
-          menuCases.listGroceries(currentDate);
-          break;
-        case 5:
-          menuCases.listExpiredGroceries(currentDate);
-          break;
-        case 6:
-          menuCases.getTotalValue();
-          break;
-        case 7:
-          currentDate = menuCases.changeCurrentDate(scanner);
-          break;
-        case 8:
-          menuCases.searchGroceryByName();
-          break;
-        case 9:
-          menuCases.createNewRecipe();
-          break;
-        case 10:
-          menuCases.checkIfRecipeCanBePrepared();
-          break;
-        case 11:
-          menuCases.suggestRecipes();
-          break;
-        case 12:
-          menuCases.pickAndScaleRecipe();
-          break;
-        case 13:
-          menuCases.addDummyData();
-          break;
-        case 14:
-          menuCases.showRecipe();
-          break;
-        case 15:
-          menuCases.showCookbook();
-          break;
-        case 0:
-          System.out.println("Exiting...");
-          break;
-        default:
-          System.out.println("Invalid choice. Please try again.\n");
-      }
-    } while (choice != 0);
-    scanner.close();
+  /**
+   * Runs commands from a script or pipe instead of the menu, without prompts.
+   * See {@code BatchCommandRunner} for the commands. Must be called after {@link #init()},
+   * instead of {@link #start()}.
+   *
+   * @param in  the reader to read commands from.
+   * @param out the destination of the output.
+   * @return the result of the run.
+   * @throws IOException if reading the commands fails.
+   */
+  @SuppressWarnings("try") // The journal is only closed, the runner logs through listeners
+  public BatchCommandRunner.Result runBatch(BufferedReader in, Appendable out)
+      throws IOException {
+    try (StorageJournal openJournal = journal) {
+      return new BatchCommandRunner(foodStorage, cookbook, currentDate).run(in, out);
+    }
   }
 }
@@ -0,0 +1,205 @@
+package edu.ntnu.idi.idatt;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code Unit} class represents a unit of measurement, such as "kg", "liters" or "amount".
+ * Units are shared: {@link #of(String)} returns the same {@code Unit} object every time it is
+ * given the same spelling, so groceries do not each keep their own copy of the unit string.
+ *
+ * <p>Every unit belongs to a dimension (mass, volume, count, or a dimension of its own for
+ * units that are not known) and has a precomputed factor that converts a quantity to the
+ * base unit of that dimension. Quantities in different spellings of the same unit, like
+ * "liter" and "liters", or in related units, like "g" and "kg", can therefore be added and
+ * compared as plain numbers.
+ */
+public final class Unit {
+  /**
+   * The dimension of mass. The base unit is the kilogram.
+   */
+  public static final int MASS = 0;
+
+  /**
+   * The dimension of volume. The base unit is the liter.
+   */
+  public static final int VOLUME = 1;
+
+  /**
+   * The dimension of counted items. The base unit is one item.
+   */
+  public static final int COUNT = 2;
+
+  /**
+   * The known unit names, after folding, with their dimension and factor to the base unit.
+   */
+  private static final Map<String, double[]> KNOWN = Map.ofEntries(
+      Map.entry("kg", new double[] {MASS, 1.0}),
+      Map.entry("kilo", new double[] {MASS, 1.0}),
+      Map.entry("kilogram", new double[] {MASS, 1.0}),
+      Map.entry("hg", new double[] {MASS, 0.1}),
+      Map.entry("g", new double[] {MASS, 0.001}),
+      Map.entry("gram", new double[] {MASS, 0.001}),
+      Map.entry("mg", new double[] {MASS, 0.000001}),
+      Map.entry("l", new double[] {VOLUME, 1.0}),
+      Map.entry("liter", new double[] {VOLUME, 1.0}),
+      Map.entry("litre", new double[] {VOLUME, 1.0}),
+      Map.entry("dl", new double[] {VOLUME, 0.1}),
+      Map.entry("cl", new double[] {VOLUME, 0.01}),
+      Map.entry("ml", new double[] {VOLUME, 0.001}),
+      Map.entry("cup", new double[] {VOLUME, 0.25}),
+      Map.entry("tbsp", new double[] {VOLUME, 0.015}),
+      Map.entry("tsp", new double[] {VOLUME, 0.005}),
+      Map.entry("amount", new double[] {COUNT, 1.0}),
+      Map.entry("piece", new double[] {COUNT, 1.0}),
+      Map.entry("pcs", new double[] {COUNT, 1.0}),
+      Map.entry("pc", new double[] {COUNT, 1.0}),
+      Map.entry("stk", new double[] {COUNT, 1.0}));
+
+  /**
+   * All units created so far, keyed by their exact spelling.
+   */
+  private static final Map<String, Unit> BY_SPELLING = new ConcurrentHashMap<>();
+
+  /**
+   * The dimensions given to units that are not known, keyed by folded name.
+   */
+  private static final Map<String, Integer> OTHER_DIMENSIONS = new ConcurrentHashMap<>();
+
+  /**
+   * The next free dimension for units that are not known.
+   */
+  private static final AtomicInteger NEXT_DIMENSION = new AtomicInteger(COUNT + 1);
+
+  /**
+   * The unit as it was written, for example "liters".
+   */
+  private final String name;
+
+  /**
+   * The dimension of the unit.
+   */
+  private final int dimension;
+
+  /**
+   * The factor that converts a quantity in this unit to the base unit of its dimension.
+   */
+  private final double factor;
+
+  /**
+   * Constructs a {@code Unit}. Use {@link #of(String)} to get a shared instance.
+   *
+   * @param name      the unit as it was written.
+   * @param dimension the dimension of the unit.
+   * @param factor    the factor to the base unit of the dimension.
+   */
+  private Unit(String name, int dimension, double factor) {
+    this.name = name;
+    this.dimension = dimension;
+    this.factor = factor;
+  }
+
+  /**
+   * Retrieves the shared {@code Unit} for a unit name.
+   *
+   * @param name the unit as written, for example "kg" or "liters".
+   * @return the shared {@code Unit}, or {@code null} if {@code name} is {@code null}.
+   */
+  public static Unit of(String name) {
+    if (name == null) {
+      return null;
+    }
+    Unit unit = BY_SPELLING.get(name);
+    if (unit != null) {
+      return unit;
+    }
+    return BY_SPELLING.computeIfAbsent(name, Unit::create);
+  }
+
+  /**
+   * Creates the unit for a spelling that has not been seen before.
+   *
+   * @param name the unit as written.
+   * @return the new {@code Unit}.
+   */
+  private static Unit create(String name) {
+    String folded = name.trim().toLowerCase(Locale.ROOT);
+    double[] known = KNOWN.get(folded);
+    if (known == null && folded.length() > 1 && folded.endsWith("s")) {
+      folded = folded.substring(0, folded.length() - 1);
+      known = KNOWN.get(folded);
+    }
+    if (known != null) {
+      return new Unit(name, (int) known[0], known[1]);
+    }
+    int dimension = OTHER_DIMENSIONS.computeIfAbsent(folded,
+        key -> NEXT_DIMENSION.getAndIncrement());
+    return new Unit(name, dimension, 1.0);
+  }
+
+  /**
+   * Retrieves the number of dimensions in use, which is one more than the largest
+   * dimension of any unit created so far.
+   *
+   * @return the number of dimensions.
+   */
+  static int dimensionCount() {
+    return NEXT_DIMENSION.get();
+  }
+
+  /**
+   * Retrieves the unit as it was written.
+   *
+   * @return the name of the unit.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Retrieves the dimension of the unit.
+   *
+   * @return {@link #MASS}, {@link #VOLUME}, {@link #COUNT}, or a dimension of its own
+   *     for a unit that is not known.
+   */
+  public int getDimension() {
+    return dimension;
+  }
+
+  /**
+   * Checks if quantities in this unit can be converted to another unit.
+   *
+   * @param other the other unit.
+   * @return {@code true} if both units have the same dimension.
+   */
+  public boolean isCompatibleWith(Unit other) {
+    return dimension == other.dimension;
+  }
+
+  /**
+   * Converts a quantity in this unit to the base unit of its dimension.
+   *
+   * @param quantity the quantity in this unit.
+   * @return the quantity in the base unit.
+   */
+  public double toBase(double quantity) {
+    return quantity * factor;
+  }
+
+  /**
+   * Converts a quantity in the base unit of this unit's dimension to this unit.
+   *
+   * @param baseQuantity the quantity in the base unit.
+   * @return the quantity in this unit.
+   */
+  public double fromBase(double baseQuantity) {
+    return baseQuantity / factor;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,143 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code BatchCommandRunner} class.
+ * These tests verify that commands are run in order and that failures are reported.
+ */
+public class BatchCommandRunnerTest {
+
+  /**
+   * Tests that a script of commands changes the storage and cookbook and writes output.
+   */
+  @Test
+  public void testRunCommands() throws Exception {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    BatchCommandRunner runner = new BatchCommandRunner(foodStorage, cookbook,
+        LocalDate.of(2030, 1, 1));
+    String script = """
+        # Stock the fridge
+        add Milk 1 liters 2030-02-01 10
+        add "Sliced cheese" 0.4 kg 2030-03-01 120
+        remove Milk 0.25
+        recipe Pancakes 2 Milk 0.5 liters
+        suggest
+        """;
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    BatchCommandRunner.Result result = runner.run(
+        new BufferedReader(new StringReader(script)), out);
+
+    // Assert
+    assertEquals(5, result.getCommands(), "Comments should not count as commands.");
+    assertEquals(0, result.getFailedCommands(), "No command should fail.");
+    assertEquals(0.75, foodStorage.getGrocery("Milk").getQuantity(), 1e-9,
+        "The removal should be applied.");
+    assertNotNull(foodStorage.getGrocery("Sliced cheese"), "Quoted names should be kept whole.");
+    assertNotNull(cookbook.findRecipe("Pancakes"), "The recipe should be added.");
+    assertTrue(out.toString().contains("You can prepare the following recipes:"
+        + System.lineSeparator() + "Pancakes"), "The recipe should be suggested.");
+  }
+
+  /**
+   * Tests that failing commands are reported with their line number without stopping the run.
+   */
+  @Test
+  public void testFailedCommands() throws Exception {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    BatchCommandRunner runner = new BatchCommandRunner(foodStorage, new Cookbook(),
+        LocalDate.of(2030, 1, 1));
+    String script = "fly away\nadd Milk -1 liters 2030-02-01 10\nremove Bread 1\n"
+        + "add Milk 1 liters 2030-02-01 10\n";
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    BatchCommandRunner.Result result = runner.run(
+        new BufferedReader(new StringReader(script)), out);
+
+    // Assert
+    assertEquals(4, result.getCommands(), "Every line should be a command.");
+    assertEquals(3, result.getFailedCommands(), "Three commands should fail.");
+    assertTrue(out.toString().contains("Line 1: Unknown command: fly"),
+        "An unknown command should be reported.");
+    assertTrue(out.toString().contains("Line 2: Quantity must be greater than 0."),
+        "An invalid grocery should be reported.");
+    assertNotNull(foodStorage.getGrocery("Milk"), "The last command should still run.");
+  }
+
+  /**
+   * Tests that a command failing with an exception other than an invalid argument is
+   * reported with its line number, and the remaining commands still run.
+   */
+  @Test
+  public void testCommandFailingWithDateOverflow() throws Exception {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    BatchCommandRunner runner = new BatchCommandRunner(foodStorage, new Cookbook(),
+        LocalDate.of(2030, 1, 1));
+    String script = "date +999999999-12-31\nplan 2 1\nvalue\n";
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    BatchCommandRunner.Result result = runner.run(
+        new BufferedReader(new StringReader(script)), out);
+
+    // Assert
+    assertEquals(1, result.getFailedCommands(), "Only the plan past the last date should fail.");
+    assertTrue(out.toString().contains("Line 2: "),
+        "The failed plan should be reported with its line number.");
+    assertTrue(out.toString().contains("Total value of groceries in storage"),
+        "The command after the failed plan should still run.");
+  }
+
+  /**
+   * Tests that a removal spans lots and is reported in the unit of the lot expiring first.
+   */
+  @Test
+  public void testRemoveAcrossLots() throws Exception {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    BatchCommandRunner runner = new BatchCommandRunner(foodStorage, new Cookbook(),
+        LocalDate.of(2030, 1, 1));
+    String script = "add Milk 1 liters 2030-03-01 10\nadd Milk 5 dl 2030-02-01 1\n"
+        + "remove Milk 8\nremove Milk 10\n";
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    BatchCommandRunner.Result result = runner.run(
+        new BufferedReader(new StringReader(script)), out);
+
+    // Assert
+    assertEquals(1, result.getFailedCommands(), "Only the last removal should fail.");
+    assertTrue(out.toString().contains("Removed: 8.0 dl of Milk"),
+        "The amount should be in the unit of the milk expiring first.");
+    assertTrue(out.toString().contains("Line 4: Amount must not be more than the stored total"),
+        "Removing more than the 7 dl left should be refused.");
+    assertEquals(0.7, foodStorage.getAvailableQuantity("Milk", Unit.of("liters")), 1e-9,
+        "Only the first removal should be applied.");
+  }
+
+  /**
+   * Tests splitting a command line into words.
+   */
+  @Test
+  public void testTokenize() {
+    // Act
+    List<String> words = BatchCommandRunner.tokenize("add  \"Oat \"\"milk\"\"\" 1\t\"\"");
+
+    // Assert
+    assertEquals(List.of("add", "Oat \"milk\"", "1", ""), words,
+        "Quoted words and empty quotes should be kept.");
+  }
+}
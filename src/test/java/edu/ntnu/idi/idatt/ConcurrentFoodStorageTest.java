@@ -0,0 +1,270 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code ConcurrentFoodStorage} class.
+ * These tests verify that the storage stays consistent when used from many threads.
+ */
+public class ConcurrentFoodStorageTest {
+
+  /**
+   * Tests that concurrent writers and readers leave the storage with the expected content.
+   */
+  @Test
+  public void testConcurrentAddAndRemove() throws Exception {
+    // Arrange
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    LocalDate date = LocalDate.of(2030, 1, 1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> tasks = new ArrayList<>();
+
+    // Act
+    for (int writer = 0; writer < 4; writer++) {
+      String name = "Item" + writer;
+      tasks.add(executor.submit(() -> {
+        for (int i = 0; i < 1000; i++) {
+          foodStorage.addGrocery(new Grocery(name, 2.0, "kg", date.plusDays(i % 30), 1.0));
+          foodStorage.removeGroceries(name, 1.0);
+        }
+      }));
+    }
+    for (int reader = 0; reader < 4; reader++) {
+      tasks.add(executor.submit(() -> {
+        for (int i = 0; i < 1000; i++) {
+          double value = foodStorage.getTotalValue(date);
+          assertTrue(value >= 0.0, "The total value should never be negative.");
+          foodStorage.getGroceries().forEach(Grocery::getName);
+        }
+      }));
+    }
+    for (Future<?> task : tasks) {
+      task.get();
+    }
+    executor.shutdown();
+
+    // Assert
+    for (int writer = 0; writer < 4; writer++) {
+      assertEquals(1000.0, foodStorage.getAvailableQuantity("Item" + writer, Unit.of("kg")),
+          1e-9, "Half of every added lot should remain.");
+    }
+    assertEquals(4000.0, foodStorage.getTotalValue(date), 1e-6,
+        "The value should match the remaining quantity.");
+  }
+
+  /**
+   * Tests that a listener can read from the storage while a change is being made.
+   */
+  @Test
+  public void testListenerCanReadDuringChange() {
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    List<Double> seen = new ArrayList<>();
+    foodStorage.addListener(new FoodStorageListener() {
+      @Override
+      public void availabilityChanged(int nameId) {
+        seen.add(foodStorage.getAvailableQuantity("Milk", Unit.of("liter")));
+      }
+    });
+
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      Grocery milk = new Grocery("Milk", 2.0, "liters", LocalDate.of(2030, 1, 1), 10.0);
+      foodStorage.addGrocery(milk);
+      milk.setQuantity(1.5);
+    });
+
+    assertEquals(List.of(2.0, 1.5), seen, "The listener should see each new quantity.");
+  }
+
+  /**
+   * Tests that a grocery change that started before another thread removed the grocery
+   * does not change or block the storage.
+   */
+  @Test
+  public void testSetterAfterRemoval() {
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    Grocery milk = new Grocery("Milk", 2.0, "liters", LocalDate.of(2030, 1, 1), 10.0);
+    foodStorage.addGrocery(milk);
+    foodStorage.removeGroceryCompletely("Milk");
+
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      // A setter that read the storage before the removal calls both hooks
+      foodStorage.beforeGroceryChange(milk);
+      foodStorage.afterGroceryChange(milk);
+      foodStorage.addGrocery(new Grocery("Eggs", 6.0, "amount", LocalDate.of(2030, 1, 1), 3.0));
+    });
+    assertEquals(18.0, foodStorage.getTotalValue(LocalDate.of(2029, 1, 1)),
+        "Only 'Eggs' should be counted.");
+  }
+
+  /**
+   * Tests that parallel removals from one lot never take more than the lot holds, and that
+   * a lot used up in parallel is no longer found.
+   */
+  @Test
+  public void testConcurrentRemovalFromOneLot() throws Exception {
+    // Arrange
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    LocalDate date = LocalDate.of(2030, 1, 1);
+    foodStorage.addGrocery(new Grocery("Rice", 100.0, "kg", date, 2.0));
+    foodStorage.addGrocery(new Grocery("Pasta", 5.0, "kg", date, 3.0));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<Integer>> tasks = new ArrayList<>();
+
+    // Act
+    for (int thread = 0; thread < 8; thread++) {
+      tasks.add(executor.submit(() -> {
+        int removed = 0;
+        for (int i = 0; i < 50; i++) {
+          if (foodStorage.removeGroceries("Rice", 1.0)) {
+            removed++;
+          }
+        }
+        return removed;
+      }));
+    }
+    int removed = 0;
+    for (Future<Integer> task : tasks) {
+      removed += task.get();
+    }
+    executor.shutdown();
+
+    // Assert
+    assertEquals(100, removed, "Exactly the quantity of the lot should be removed.");
+    assertNull(foodStorage.getGrocery("Rice"), "A used-up lot should not be found.");
+    assertEquals(0.0, foodStorage.getAvailableQuantity("Rice", Unit.of("kg")), 1e-9,
+        "No rice should be available.");
+    assertEquals(1, foodStorage.getGroceries().size(), "Only the pasta should remain.");
+    assertEquals(15.0, foodStorage.getTotalValue(date), 1e-9,
+        "Only the value of the pasta should remain.");
+  }
+
+  /**
+   * Tests that a removal larger than the lot is refused without changes.
+   */
+  @Test
+  public void testRemovalRefused() {
+    // Arrange
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", LocalDate.of(2030, 1, 1), 10.0));
+
+    // Act
+    boolean removed = foodStorage.removeGroceries("Milk", 3.0);
+    boolean missing = foodStorage.removeGroceries("Bread", 1.0);
+
+    // Assert
+    assertFalse(removed, "A removal larger than the lot should be refused.");
+    assertFalse(missing, "A removal of a missing grocery should be refused.");
+    assertEquals(2.0, foodStorage.getGrocery("Milk").getQuantity(), 1e-9,
+        "The lot should be unchanged.");
+  }
+
+  /**
+   * Tests that a removal larger than the first lot is taken from the next lots as well.
+   */
+  @Test
+  public void testRemovalAcrossLots() {
+    // Arrange
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    LocalDate date = LocalDate.of(2030, 1, 1);
+    foodStorage.addGrocery(new Grocery("Rice", 1.0, "kg", date.plusDays(2), 20.0));
+    foodStorage.addGrocery(new Grocery("Rice", 2.0, "kg", date.plusDays(1), 20.0));
+
+    // Act
+    boolean removed = foodStorage.removeGroceries("Rice", 2.5);
+
+    // Assert
+    assertTrue(removed, "The two lots together hold enough rice.");
+    assertEquals(1, foodStorage.getGroceries().size(), "The first lot should be used up.");
+    assertEquals(0.5, foodStorage.getGrocery("Rice").getQuantity(), 1e-9,
+        "The rest should be taken from the later lot.");
+    assertEquals(10.0, foodStorage.getTotalValue(date), 1e-9,
+        "Only the value of the remaining rice should be left.");
+  }
+
+  /**
+   * Tests that every removal made in parallel is reported to the listeners once, without
+   * the removals waiting for each other.
+   */
+  @Test
+  public void testParallelRemovalsAreAllReported() throws Exception {
+    // Arrange
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    foodStorage.addGrocery(new Grocery("Rice", 1000.0, "kg", LocalDate.of(2030, 1, 1), 2.0));
+    AtomicInteger reported = new AtomicInteger();
+    foodStorage.addListener(new FoodStorageListener() {
+      @Override
+      public void groceriesRemoved(String name, double amount) {
+        reported.incrementAndGet();
+      }
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> tasks = new ArrayList<>();
+
+    // Act
+    for (int thread = 0; thread < 8; thread++) {
+      tasks.add(executor.submit(() -> {
+        for (int i = 0; i < 100; i++) {
+          foodStorage.removeGroceries("Rice", 1.0);
+        }
+      }));
+    }
+    for (Future<?> task : tasks) {
+      task.get();
+    }
+    executor.shutdown();
+
+    // Assert
+    assertEquals(800, reported.get(), "Every removal should be reported once.");
+  }
+
+  /**
+   * Tests that a valuation never sees a removal made under the read lock half applied.
+   * The lot is expired, so each removal lowers both the total value and the expired value,
+   * and the value of the non-expired groceries must stay exactly 0.
+   */
+  @Test
+  public void testValuationDuringParallelRemovals() throws Exception {
+    // Arrange
+    ConcurrentFoodStorage foodStorage = new ConcurrentFoodStorage();
+    LocalDate today = LocalDate.of(2030, 1, 10);
+    foodStorage.addGrocery(new Grocery("Rice", 4000.0, "kg", LocalDate.of(2030, 1, 1), 2.0));
+    foodStorage.setCurrentDate(today);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> tasks = new ArrayList<>();
+
+    // Act
+    for (int thread = 0; thread < 4; thread++) {
+      tasks.add(executor.submit(() -> {
+        for (int i = 0; i < 1000; i++) {
+          foodStorage.removeGroceries("Rice", 1.0);
+        }
+      }));
+    }
+    for (int thread = 0; thread < 4; thread++) {
+      tasks.add(executor.submit(() -> {
+        for (int i = 0; i < 5000; i++) {
+          assertEquals(0.0, foodStorage.getTotalValue(today),
+              "No removal should be seen half applied.");
+        }
+      }));
+    }
+    for (Future<?> task : tasks) {
+      task.get();
+    }
+    executor.shutdown();
+
+    // Assert
+    assertEquals(0.0, foodStorage.getExpiredValue(today), 1e-9,
+        "All the rice should be removed.");
+  }
+}
@@ -0,0 +1,48 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code Cookbook} class.
+ * These tests verify adding recipes and finding them by name.
+ */
+public class CookbookTest {
+
+  /**
+   * Tests that a recipe can be found by its name regardless of case.
+   */
+  @Test
+  public void testFindRecipeIgnoresCase() {
+    // Arrange
+    Cookbook cookbook = new Cookbook();
+    Recipe pancakes = new Recipe("Pancakes");
+    cookbook.addRecipe(pancakes);
+
+    // Act
+    Recipe found = cookbook.findRecipe("PANCAKES");
+
+    // Assert
+    assertSame(pancakes, found, "The lookup should ignore case.");
+    assertNull(cookbook.findRecipe("Waffles"), "An unknown recipe should not be found.");
+  }
+
+  /**
+   * Tests that adding a second recipe with the same name throws an exception.
+   */
+  @Test
+  public void testAddRecipeDuplicateName() {
+    // Arrange
+    Cookbook cookbook = new Cookbook();
+    cookbook.addRecipe(new Recipe("Pancakes"));
+
+    // Act and Assert
+    Exception exception = assertThrows(IllegalArgumentException.class, () ->
+        cookbook.addRecipe(new Recipe("pancakes")));
+
+    assertEquals("A recipe named \"pancakes\" already exists in the cookbook",
+        exception.getMessage());
+    assertEquals(1, cookbook.getRecipes().size(), "The duplicate should not be added.");
+  }
+}
@@ -0,0 +1,69 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code ExpirationValueTree} class.
+ * These tests verify the sums over dates both inside and far outside the days the tree
+ * covers.
+ */
+public class ExpirationValueTreeTest {
+
+  /**
+   * Tests that sums over dates far from the others, which are kept outside the tree, match
+   * the sums of the values added.
+   */
+  @Test
+  public void testSumsOverFarDates() {
+    // Arrange
+    ExpirationValueTree tree = new ExpirationValueTree();
+    TreeMap<LocalDate, Double> expected = new TreeMap<>();
+    Random random = new Random(3);
+    LocalDate today = LocalDate.of(2026, 10, 17);
+
+    // Act
+    for (int i = 0; i < 2_000; i++) {
+      // Mostly near dates, with some centuries away on either side
+      long days = random.nextInt(4) == 0 ? random.nextLong(-3_000_000, 3_000_000)
+          : random.nextInt(400);
+      LocalDate date = today.plusDays(days);
+      double value = random.nextInt(100);
+      tree.add(date, value);
+      expected.merge(date, value, Double::sum);
+    }
+
+    // Assert
+    for (int i = 0; i < 200; i++) {
+      LocalDate date = today.plusDays(random.nextLong(-4_000_000, 4_000_000));
+      double before = expected.headMap(date).values().stream()
+          .mapToDouble(Double::doubleValue).sum();
+      assertEquals(before, tree.valueBefore(date), 1e-6,
+          "The value before " + date + " should be the sum of the earlier dates.");
+    }
+  }
+
+  /**
+   * Tests that the value up to the last possible date can be read.
+   */
+  @Test
+  public void testValueBetweenUpToMaxDate() {
+    // Arrange
+    ExpirationValueTree tree = new ExpirationValueTree();
+    tree.add(LocalDate.of(2026, 10, 17), 10.0);
+    tree.add(LocalDate.MAX, 5.0);
+    tree.add(LocalDate.MIN, 2.0);
+
+    // Act
+    double all = tree.valueBetween(LocalDate.MIN, LocalDate.MAX);
+    double last = tree.valueBetween(LocalDate.MAX, LocalDate.MAX);
+
+    // Assert
+    assertEquals(17.0, all, "Every date should be between the first and last date.");
+    assertEquals(5.0, last, "The last date should be included.");
+  }
+}
@@ -4,7 +4,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -145,4 +147,415 @@ public class FoodStorageTest {
     // Assert
     assertEquals(36.0, totalValue, "The total value of non-expired groceries should be 36.0 NOK.");
   }
+
+  /**
+   * Tests that name lookups ignore case and that removing a grocery completely
+   * removes every lot with that name.
+   */
+  @Test
+  public void testRemoveGroceryCompletelyAllLots() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", LocalDate.of(2024, 12, 31), 10.0));
+    foodStorage.addGrocery(new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2024, 12, 31), 3.0));
+    foodStorage.addGrocery(new Grocery("milk", 1.0, "liters", LocalDate.of(2025, 1, 5), 12.0));
+
+    // Act
+    Grocery found = foodStorage.getGrocery("MILK");
+    foodStorage.removeGroceryCompletely("Milk");
+
+    // Assert
+    assertNotNull(found, "The lookup should ignore case.");
+    assertEquals(1, foodStorage.getGroceries().size(), "Only 'Eggs' should remain.");
+    assertNull(foodStorage.getGrocery("milk"), "No lot named 'milk' should remain.");
+  }
+
+  /**
+   * Tests that groceries expiring far in the future are stored quickly and counted in
+   * the values, also after their expiration date changes.
+   */
+  @Test
+  public void testFarFutureExpirationDates() {
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      // Arrange
+      FoodStorage foodStorage = new FoodStorage();
+      LocalDate today = LocalDate.of(2030, 1, 1);
+      foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", today.plusDays(1), 10.0));
+      Grocery salt = new Grocery("Salt", 1.0, "kg", LocalDate.of(3000, 1, 1), 20.0);
+      Grocery honey = new Grocery("Honey", 1.0, "kg", LocalDate.MAX, 40.0);
+
+      // Act
+      foodStorage.addGrocery(salt);
+      foodStorage.addGrocery(honey);
+      double total = foodStorage.getTotalValue(today);
+      double untilYear3000 = foodStorage.getValueExpiringBetween(today,
+          LocalDate.of(3000, 1, 1));
+      salt.setExpirationDate(today.plusDays(2));
+      double soon = foodStorage.getValueExpiringBetween(today, today.plusDays(2));
+      foodStorage.removeGroceryCompletely("Honey");
+
+      // Assert
+      assertEquals(70.0, total, 1e-9, "Every grocery should count in the total.");
+      assertEquals(30.0, untilYear3000, 1e-9, "Milk and salt expire by the year 3000.");
+      assertEquals(30.0, soon, 1e-9, "Salt now expires within two days.");
+      assertEquals(30.0, foodStorage.getTotalValue(today), 1e-9,
+          "The honey should no longer count.");
+    });
+  }
+
+  /**
+   * Tests that a name added again after being removed completely starts from the newly
+   * added quantity.
+   */
+  @Test
+  public void testAvailabilityAfterRemoveGroceryCompletely() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", LocalDate.of(2030, 1, 1), 10.0));
+    foodStorage.removeGroceryCompletely("Milk");
+
+    // Act
+    double afterRemoval = foodStorage.getAvailableQuantity("Milk", Unit.of("liters"));
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", LocalDate.of(2030, 1, 1), 10.0));
+    double afterAdding = foodStorage.getAvailableQuantity("Milk", Unit.of("liters"));
+    boolean removed = foodStorage.removeGroceries("Milk", 1.0);
+
+    // Assert
+    assertEquals(0.0, afterRemoval, 1e-9, "No milk should be available after removal.");
+    assertEquals(1.0, afterAdding, 1e-9, "Only the newly added milk should be available.");
+    assertTrue(removed, "The newly added milk should be removable.");
+  }
+
+  /**
+   * Tests that changing the expiration date of a stored grocery is reflected
+   * in which groceries count as expired.
+   */
+  @Test
+  public void testGetTotalValueAfterExpirationDateChange() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Grocery milk = new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0);
+    foodStorage.addGrocery(milk);
+    foodStorage.addGrocery(new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2025, 1, 20), 3.0));
+    LocalDate currentDate = LocalDate.of(2025, 1, 15);
+
+    // Act
+    double before = foodStorage.getTotalValue(currentDate);
+    milk.setExpirationDate(LocalDate.of(2025, 1, 15));
+    double after = foodStorage.getTotalValue(currentDate);
+
+    // Assert
+    assertEquals(36.0, before, "Only 'Eggs' should count before the change.");
+    assertEquals(56.0, after, "'Milk' expiring on the current date is not expired.");
+  }
+
+  /**
+   * Tests that value queries by expiration date follow quantity and price changes.
+   */
+  @Test
+  public void testValueExpiringBetweenAfterQuantityAndPriceChange() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Grocery milk = new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0);
+    foodStorage.addGrocery(milk);
+    foodStorage.addGrocery(new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2025, 3, 1), 3.0));
+
+    // Act
+    milk.setQuantity(3.0);
+    milk.setPricePerUnit(20.0);
+    foodStorage.removeGroceries("Eggs", 2.0);
+
+    // Assert
+    assertEquals(60.0, foodStorage.getValueExpiringBetween(LocalDate.of(2025, 1, 1),
+        LocalDate.of(2025, 1, 31)), "Only 'Milk' expires in January.");
+    assertEquals(60.0, foodStorage.getExpiredValue(LocalDate.of(2025, 2, 1)),
+        "'Milk' is expired in February.");
+    assertEquals(30.0, foodStorage.getTotalValue(LocalDate.of(2025, 2, 1)),
+        "The remaining 10 eggs are worth 30 NOK.");
+  }
+
+  /**
+   * Tests that removing a lot keeps the remaining lots in the storage, and that the list
+   * returned by {@code getGroceries()} cannot be used to change the storage.
+   */
+  @Test
+  public void testGetGroceriesAfterRemoval() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Grocery milk = new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0);
+    Grocery eggs = new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2025, 1, 20), 3.0);
+    Grocery flour = new Grocery("Flour", 1.0, "kg", LocalDate.of(2025, 8, 22), 10.0);
+    foodStorage.addGrocery(milk);
+    foodStorage.addGrocery(eggs);
+    foodStorage.addGrocery(flour);
+
+    // Act
+    foodStorage.removeGroceries("Milk", 2.0);
+
+    // Assert
+    assertEquals(2, foodStorage.getGroceries().size(), "Two lots should remain.");
+    assertTrue(foodStorage.getGroceries().contains(eggs), "'Eggs' should remain.");
+    assertTrue(foodStorage.getGroceries().contains(flour), "'Flour' should remain.");
+    assertThrows(UnsupportedOperationException.class, () ->
+        foodStorage.getGroceries().add(milk));
+  }
+
+  /**
+   * Tests that groceries added in bulk are indexed like groceries added one at a time,
+   * and that nothing is added if one of them is invalid.
+   */
+  @Test
+  public void testAddGroceries() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", LocalDate.of(2025, 1, 5), 10.0));
+    Grocery milk = new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0);
+    Grocery eggs = new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2025, 1, 10), 3.0);
+    Grocery stored = new Grocery("Flour", 1.0, "kg", LocalDate.of(2025, 8, 22), 10.0);
+    new FoodStorage().addGrocery(stored);
+
+    // Act
+    assertThrows(IllegalArgumentException.class, () ->
+        foodStorage.addGroceries(List.of(milk, stored)));
+    foodStorage.addGroceries(List.of(milk, eggs));
+
+    // Assert
+    assertEquals(3, foodStorage.getGroceries().size(), "Both groceries should be added once.");
+    assertEquals(3.0, foodStorage.getAvailableQuantity("milk", Unit.of("liter")),
+        "The lots of 'Milk' should be summed.");
+    assertEquals(56.0, foodStorage.getTotalValue(LocalDate.of(2025, 1, 10)),
+        "The new lots expiring on 2025-01-10 are worth 56 NOK.");
+    foodStorage.removeGroceries("Milk", 1.0);
+    assertEquals(milk, foodStorage.getGrocery("Milk"),
+        "The bulk-added lot should come after the earlier lot.");
+  }
+
+  /**
+   * Tests that a page of the non-expired groceries is written to the given destination,
+   * soonest expiring first.
+   */
+  @Test
+  public void testListGroceriesPage() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0));
+    foodStorage.addGrocery(new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2025, 1, 20), 3.0));
+    foodStorage.addGrocery(new Grocery("Flour", 1.0, "kg", LocalDate.of(2025, 8, 22), 10.0));
+    foodStorage.addGrocery(new Grocery("Salt", 1.0, "kg", LocalDate.of(2025, 1, 1), 5.0));
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    foodStorage.listGroceries(LocalDate.of(2025, 1, 5), out, 1, 1);
+
+    // Assert
+    String report = out.toString();
+    assertTrue(report.startsWith("Eggs: 12.0 amounts, Expiration Date: 2025-01-20"),
+        "The second non-expired grocery should be listed first.");
+    assertFalse(report.contains("Milk"), "'Milk' is before the page.");
+    assertFalse(report.contains("Flour"), "'Flour' is after the page.");
+    assertTrue(report.contains("Warning: There are expired food items"),
+        "The warning should be written after the page.");
+  }
+
+  /**
+   * Tests that used-up lots still waiting to be removed are not counted when a page of
+   * the non-expired groceries is skipped to.
+   */
+  @Test
+  public void testListGroceriesPageSkipsOnlyLiveLots() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Grocery usedUp = new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0);
+    foodStorage.addGrocery(usedUp);
+    foodStorage.addGrocery(new Grocery("Cream", 1.0, "liters", LocalDate.of(2025, 1, 10), 30.0));
+    foodStorage.addGrocery(new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2025, 1, 20), 3.0));
+    // Taken without telling the storage, like a lock-free removal not yet cleaned up
+    usedUp.consume(2.0);
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    foodStorage.listGroceries(LocalDate.of(2025, 1, 5), out, 1, 1);
+
+    // Assert
+    String report = out.toString();
+    assertTrue(report.startsWith("Eggs: 12.0 amounts"),
+        "The second live grocery should be on the page.");
+    assertFalse(report.contains("Cream"), "'Cream' is the first live grocery.");
+    assertFalse(report.contains("Milk"), "Used-up lots should not be listed.");
+  }
+
+  /**
+   * Tests that a page of the expired groceries is written with the value of all of them.
+   */
+  @Test
+  public void testListExpiredGroceriesPage() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0));
+    foodStorage.addGrocery(new Grocery("Eggs", 12.0, "amounts", LocalDate.of(2025, 1, 20), 3.0));
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    foodStorage.listExpiredGroceries(LocalDate.of(2025, 2, 1), out, 0, 1);
+
+    // Assert
+    String report = out.toString();
+    assertTrue(report.contains("Milk: 2.0 liters, Expired on: 2025-01-10"),
+        "'Milk' should be on the page.");
+    assertFalse(report.contains("Eggs"), "'Eggs' is after the page.");
+    assertTrue(report.contains("Total value of expired groceries: 56.0 NOK"),
+        "The total should include all expired groceries.");
+    assertThrows(IllegalArgumentException.class, () ->
+        foodStorage.listExpiredGroceries(LocalDate.of(2025, 2, 1), out, -1, 1));
+  }
+
+  /**
+   * Tests that the expired value followed for the current date stays correct when the
+   * date moves and groceries change.
+   */
+  @Test
+  public void testSetCurrentDate() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    LocalDate start = LocalDate.of(2030, 1, 1);
+    foodStorage.setCurrentDate(start);
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", start.plusDays(1), 10.0));
+    foodStorage.addGrocery(new Grocery("Bread", 1.0, "amounts", start.plusDays(3), 30.0));
+    foodStorage.addGrocery(new Grocery("Rice", 1.0, "kg", start.plusDays(400), 50.0));
+
+    // Act
+    foodStorage.setCurrentDate(start.plusDays(3));
+    double afterThreeDays = foodStorage.getExpiredValue(start.plusDays(3));
+    foodStorage.addGrocery(new Grocery("Eggs", 2.0, "amounts", start.plusDays(2), 3.0));
+    double afterAdding = foodStorage.getExpiredValue(start.plusDays(3));
+    foodStorage.setCurrentDate(start.plusDays(2));
+    double afterGoingBack = foodStorage.getExpiredValue(start.plusDays(2));
+    foodStorage.setCurrentDate(start.plusDays(500));
+    double afterLongJump = foodStorage.getExpiredValue(start.plusDays(500));
+
+    // Assert
+    assertEquals(10.0, afterThreeDays, 1e-9, "Only the milk should be expired.");
+    assertEquals(16.0, afterAdding, 1e-9, "The eggs added after the date moved count.");
+    assertEquals(10.0, afterGoingBack, 1e-9, "The eggs are not expired on their own date.");
+    assertEquals(96.0, afterLongJump, 1e-9, "Everything should be expired.");
+    assertEquals(0.0, foodStorage.getTotalValue(start.plusDays(500)), 1e-9,
+        "Nothing should be left unexpired.");
+    assertEquals(86.0, foodStorage.getTotalValue(start.plusDays(2)), 1e-9,
+        "Other dates should still be answered.");
+  }
+
+  /**
+   * Tests that searching by part of a name finds prefixes, substrings and misspellings,
+   * best match first, and follows groceries being removed.
+   */
+  @Test
+  public void testSearchGroceries() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    LocalDate date = LocalDate.of(2030, 1, 1);
+    foodStorage.addGrocery(new Grocery("Pepper", 1.0, "kg", date, 10.0));
+    foodStorage.addGrocery(new Grocery("Bell Pepper", 3.0, "amounts", date, 5.0));
+    foodStorage.addGrocery(new Grocery("Flour", 2.0, "kg", date, 20.0));
+    foodStorage.addGrocery(new Grocery("Pepperoni", 1.0, "kg", date, 90.0));
+
+    // Act
+    List<Grocery> prefix = foodStorage.searchGroceries("pep", 10);
+    List<Grocery> misspelled = foodStorage.searchGroceries("fluor", 10);
+    List<Grocery> limited = foodStorage.searchGroceries("pepper", 1);
+    foodStorage.removeGroceryCompletely("Pepper");
+    List<Grocery> afterRemoval = foodStorage.searchGroceries("pep", 10);
+
+    // Assert
+    assertEquals(List.of("Pepper", "Pepperoni", "Bell Pepper"),
+        prefix.stream().map(Grocery::getName).toList(),
+        "Prefix matches should come before substring matches, shortest first.");
+    assertEquals("Flour", misspelled.get(0).getName(), "A misspelling should be found.");
+    assertEquals(List.of("Pepper"), limited.stream().map(Grocery::getName).toList(),
+        "The exact match should be the best one.");
+    assertEquals(List.of("Pepperoni", "Bell Pepper"),
+        afterRemoval.stream().map(Grocery::getName).toList(),
+        "A removed grocery should no longer be found.");
+  }
+
+  /**
+   * Tests that a removal takes from the lots expiring soonest first, across as many lots
+   * as needed, converting between units of the same kind.
+   */
+  @Test
+  public void testRemoveGroceriesFirstExpiredFirstOut() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    LocalDate date = LocalDate.of(2030, 1, 1);
+    Grocery late = new Grocery("Milk", 1.0, "liters", date.plusDays(10), 10.0);
+    Grocery soon = new Grocery("Milk", 2.0, "liters", date.plusDays(5), 10.0);
+    Grocery middle = new Grocery("Milk", 5.0, "dl", date.plusDays(7), 1.0);
+    foodStorage.addGrocery(late);
+    foodStorage.addGrocery(soon);
+    foodStorage.addGrocery(middle);
+
+    // Act
+    boolean removed = foodStorage.removeGroceries("Milk", 2.25);
+    boolean refused = foodStorage.removeGroceries("Milk", 13.0);
+
+    // Assert
+    assertTrue(removed, "The lots together hold enough milk.");
+    assertFalse(refused, "Only 12.5 dl, in the unit of the next lot, should be left.");
+    assertNull(soon.getStorage(), "The lot expiring soonest should be used up first.");
+    assertEquals(2.5, middle.getQuantity(), 1e-9, "The next lot should give the rest.");
+    assertEquals(1.0, late.getQuantity(), 1e-9, "The last lot should be untouched.");
+    assertEquals(1.25, foodStorage.getAvailableQuantity("Milk", Unit.of("liters")), 1e-9,
+        "The available quantity should follow the removal.");
+  }
+
+  /**
+   * Tests that a refused removal tells why it was refused, and that used-up lots are
+   * removed without changing the order of the other lots with the name.
+   */
+  @Test
+  public void testTryRemoveGroceriesReasons() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    LocalDate date = LocalDate.of(2030, 1, 1);
+    Grocery first = new Grocery("Milk", 1.0, "liters", date.plusDays(10), 10.0);
+    Grocery soon = new Grocery("Milk", 1.0, "liters", date.plusDays(5), 10.0);
+    Grocery last = new Grocery("Milk", 1.0, "liters", date.plusDays(20), 10.0);
+    foodStorage.addGrocery(first);
+    foodStorage.addGrocery(soon);
+    foodStorage.addGrocery(last);
+
+    // Act
+    FoodStorage.Removal missing = foodStorage.tryRemoveGroceries("Bread", 1.0);
+    FoodStorage.Removal tooMuch = foodStorage.tryRemoveGroceries("Milk", 4.0);
+    FoodStorage.Removal removed = foodStorage.tryRemoveGroceries("Milk", 1.0);
+
+    // Assert
+    assertEquals(FoodStorage.Removal.NOT_FOUND, missing, "No bread is stored.");
+    assertEquals(FoodStorage.Removal.NOT_ENOUGH, tooMuch, "Only 3 liters are stored.");
+    assertEquals(FoodStorage.Removal.REMOVED, removed, "1 liter should be removed.");
+    assertNull(soon.getStorage(), "The lot expiring soonest should be used up.");
+    assertEquals(first, foodStorage.getGrocery("Milk"),
+        "The other lots should keep the order they were added in.");
+  }
+
+  /**
+   * Tests that changing the expiration date of a lot changes the order it is removed in.
+   */
+  @Test
+  public void testRemoveGroceriesAfterExpirationChange() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    LocalDate date = LocalDate.of(2030, 1, 1);
+    Grocery first = new Grocery("Eggs", 6.0, "amounts", date.plusDays(3), 3.0);
+    Grocery second = new Grocery("Eggs", 6.0, "amounts", date.plusDays(4), 3.0);
+    foodStorage.addGrocery(first);
+    foodStorage.addGrocery(second);
+
+    // Act
+    second.setExpirationDate(date.plusDays(1));
+    foodStorage.removeGroceries("Eggs", 2.0);
+
+    // Assert
+    assertEquals(4.0, second.getQuantity(), 1e-9, "The lot now expiring first is used.");
+    assertEquals(6.0, first.getQuantity(), 1e-9, "The other lot should be untouched.");
+  }
 }
@@ -0,0 +1,149 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code GroceryApiServer} class.
+ * These tests send requests to a server on a free local port.
+ */
+public class GroceryApiServerTest {
+  private static final String DATE = "date=2030-01-01";
+
+  private ConcurrentFoodStorage foodStorage;
+  private Cookbook cookbook;
+  private GroceryApiServer server;
+  private HttpClient client;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    foodStorage = new ConcurrentFoodStorage();
+    cookbook = new Cookbook();
+    server = new GroceryApiServer(foodStorage, cookbook,
+        new InetSocketAddress("localhost", 0));
+    server.start();
+    client = HttpClient.newHttpClient();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    server.stop();
+  }
+
+  private HttpResponse<String> send(String method, String path, String body)
+      throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.getPort() + path))
+        .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(body))
+        .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  /**
+   * Tests adding, listing, removing and valuing groceries.
+   */
+  @Test
+  public void testGroceries() throws Exception {
+    // Act
+    HttpResponse<String> added = send("POST", "/groceries?" + DATE,
+        "{\"name\": \"Milk\", \"quantity\": 2, \"unit\": \"liters\","
+            + " \"expirationDate\": \"2030-02-01\", \"pricePerUnit\": 10}");
+    HttpResponse<String> removed = send("POST", "/groceries/remove",
+        "{\"name\": \"milk\", \"quantity\": 0.5}");
+    HttpResponse<String> refused = send("POST", "/groceries/remove",
+        "{\"name\": \"Milk\", \"quantity\": 5}");
+    HttpResponse<String> listed = send("GET", "/groceries?" + DATE, null);
+    HttpResponse<String> value = send("GET", "/value?" + DATE, null);
+
+    // Assert
+    assertEquals(201, added.statusCode(), "Adding a grocery should answer 201.");
+    assertEquals(200, removed.statusCode(), "Removing a quantity should succeed.");
+    assertEquals(409, refused.statusCode(), "Removing too much should be refused.");
+    Map<String, Object> list = JsonReader.parseObject(listed.body());
+    List<?> groceries = (List<?>) list.get("groceries");
+    assertEquals(1, groceries.size(), "The grocery should be listed.");
+    assertEquals(1.5, ((Map<?, ?>) groceries.get(0)).get("quantity"),
+        "The listed quantity should be reduced.");
+    assertEquals(15.0, JsonReader.parseObject(value.body()).get("totalValue"),
+        "The total value should match the remaining quantity.");
+  }
+
+  /**
+   * Tests that invalid requests are answered with an error.
+   */
+  @Test
+  public void testInvalidRequests() throws Exception {
+    // Act
+    HttpResponse<String> badJson = send("POST", "/groceries", "{\"name\": ");
+    HttpResponse<String> badQuantity = send("POST", "/groceries?" + DATE,
+        "{\"name\": \"Milk\", \"quantity\": -1, \"unit\": \"liters\","
+            + " \"expirationDate\": \"2030-02-01\", \"pricePerUnit\": 10}");
+    HttpResponse<String> expired = send("POST", "/groceries?date=2000-01-01",
+        "{\"name\": \"Milk\", \"quantity\": 1, \"unit\": \"liters\","
+            + " \"expirationDate\": \"2001-01-01\", \"pricePerUnit\": 10}");
+    HttpResponse<String> badMethod = send("PUT", "/value", "{}");
+    HttpResponse<String> unknown = send("GET", "/groceries/unknown", null);
+    HttpResponse<String> notStored = send("DELETE", "/groceries?name=Milk", null);
+    HttpResponse<String> partPortion = send("POST", "/recipes",
+        "{\"name\": \"Toast\", \"portionSize\": 2.7, \"ingredients\": []}");
+
+    // Assert
+    assertEquals(400, badJson.statusCode(), "Invalid JSON should answer 400.");
+    assertEquals(400, badQuantity.statusCode(), "An invalid grocery should answer 400.");
+    assertEquals("Quantity must be greater than 0.",
+        JsonReader.parseObject(badQuantity.body()).get("error"),
+        "The error should explain what is wrong.");
+    assertEquals(400, expired.statusCode(),
+        "An expired grocery should be refused whatever date the client sends.");
+    assertNull(foodStorage.getGrocery("Milk"), "No grocery should be added.");
+    assertEquals(405, badMethod.statusCode(), "An unsupported method should answer 405.");
+    assertEquals(404, unknown.statusCode(), "An unknown path should answer 404.");
+    assertEquals(404, notStored.statusCode(), "Deleting a missing grocery should answer 404.");
+    assertEquals(400, partPortion.statusCode(),
+        "A portion size that is not a whole number should answer 400.");
+    assertNull(cookbook.findRecipe("Toast"), "No recipe should be added.");
+  }
+
+  /**
+   * Tests adding a recipe and getting it suggested once its ingredients are stored.
+   */
+  @Test
+  public void testRecipes() throws Exception {
+    // Arrange
+    String recipe = "{\"name\": \"Pancakes\", \"portionSize\": 2, \"ingredients\": ["
+        + "{\"name\": \"Milk\", \"quantity\": 0.5, \"unit\": \"liters\"}]}";
+
+    // Act
+    HttpResponse<String> added = send("POST", "/recipes", recipe);
+    HttpResponse<String> duplicate = send("POST", "/recipes", recipe);
+    Map<String, Object> before = JsonReader.parseObject(
+        send("GET", "/recipes/suggestions", null).body());
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters",
+        LocalDate.of(2030, 2, 1), 10.0));
+    Map<String, Object> after = JsonReader.parseObject(
+        send("GET", "/recipes/suggestions", null).body());
+    Map<String, Object> scaled = JsonReader.parseObject(
+        send("GET", "/recipes?name=pancakes&portions=4", null).body());
+
+    // Assert
+    assertEquals(201, added.statusCode(), "Adding a recipe should answer 201.");
+    assertEquals(409, duplicate.statusCode(), "A second recipe with the name should conflict.");
+    assertEquals(List.of(), before.get("recipes"), "Nothing should be suggested without milk.");
+    assertEquals(List.of("Pancakes"), after.get("recipes"), "The recipe should be suggested.");
+    List<?> ingredients = (List<?>) scaled.get("ingredients");
+    assertEquals(1.0, ((Map<?, ?>) ingredients.get(0)).get("quantity"),
+        "The ingredients should be scaled to 4 portions.");
+  }
+}
@@ -0,0 +1,91 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code GroceryImporter} class.
+ * These tests verify that valid lines are imported and invalid lines are reported.
+ */
+public class GroceryImporterTest {
+
+  /**
+   * Imports the given CSV text into a storage, parsing two lines per chunk.
+   */
+  private static GroceryImporter.Result importText(FoodStorage foodStorage, String text)
+      throws IOException {
+    GroceryImporter importer = new GroceryImporter(foodStorage, LocalDate.of(2026, 1, 1), 2);
+    return importer.importFrom(new BufferedReader(new StringReader(text)));
+  }
+
+  /**
+   * Tests that valid lines, including quoted names, are added to the storage in order.
+   */
+  @Test
+  public void testImportValidLines() throws IOException {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    String csv = "name,quantity,unit,expirationDate,pricePerUnit\n"
+        + "Milk,1.0,liters,2026-11-01,10.0\n"
+        + "\n"
+        + "\"Cheese, sliced\",0.4,kg,2026-12-15,120.0\n"
+        + "Milk,2.0,liters,2026-11-05,11.0\n";
+
+    // Act
+    GroceryImporter.Result result = importText(foodStorage, csv);
+
+    // Assert
+    assertEquals(3, result.getRows(), "Three rows should be read.");
+    assertEquals(3, result.getImportedRows(), "All rows should be imported.");
+    assertEquals(0, result.getRejectedRows(), "No rows should be rejected.");
+    assertEquals(3.0, foodStorage.getAvailableQuantity("Milk", Unit.of("liters")),
+        "Both lots of 'Milk' should be imported.");
+    assertEquals(LocalDate.of(2026, 11, 1), foodStorage.getGrocery("Milk").getExpirationDate(),
+        "The lots should be added in file order.");
+    assertNotNull(foodStorage.getGrocery("Cheese, sliced"), "The quoted name should be read.");
+  }
+
+  /**
+   * Tests that invalid lines are rejected with their line number and reason,
+   * while the valid lines are still imported.
+   */
+  @Test
+  public void testImportRejectsInvalidLines() throws IOException {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    String csv = "Milk,1.0,liters,2026-11-01,10.0\n"
+        + "Eggs,twelve,amount,2026-11-01,3.0\n"
+        + "Bread,1,loaf,2025-12-31,30.0\n"
+        + "Butter,0.5,kg,2026-11-20\n"
+        + "Flour,1.0,kg,2027-01-01,-5\n"
+        + "Sugar,1.0,kg,2027-02-01,20.0\n"
+        + "Salt,NaN,kg,2027-03-01,15.0\n"
+        + "Pepper,0.1,kg,2027-03-01,Infinity\n";
+
+    // Act
+    GroceryImporter.Result result = importText(foodStorage, csv);
+
+    // Assert
+    assertEquals(8, result.getRows(), "Eight rows should be read.");
+    assertEquals(2, result.getImportedRows(), "'Milk' and 'Sugar' should be imported.");
+    assertEquals(2, foodStorage.getGroceries().size(), "Only valid rows should be stored.");
+    List<GroceryImporter.Reject> rejects = result.getRejects();
+    assertEquals(6, rejects.size(), "Six rows should be rejected.");
+    assertEquals(2, rejects.get(0).getLineNumber(), "The bad quantity is on line 2.");
+    assertEquals("Invalid quantity: twelve", rejects.get(0).getReason());
+    assertEquals("Expiration date must not be null or in the past.",
+        rejects.get(1).getReason(), "Past dates should use the MenuCases rule.");
+    assertEquals(4, rejects.get(2).getLineNumber(), "The missing field is on line 4.");
+    assertEquals("Price per unit must be 0 or greater.", rejects.get(3).getReason());
+    assertEquals("Invalid quantity: NaN", rejects.get(4).getReason(),
+        "Quantities that are not numbers should be rejected.");
+    assertEquals("Invalid price per unit: Infinity", rejects.get(5).getReason(),
+        "Infinite prices should be rejected.");
+  }
+}
@@ -0,0 +1,42 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code GroceryNameIndex} class.
+ * These tests verify the bounded edit distance used for misspelled searches.
+ */
+public class GroceryNameIndexTest {
+
+  /**
+   * Tests that the edit distance counts insertions, deletions, substitutions and swaps.
+   */
+  @Test
+  public void testDistance() {
+    // Act
+    int substitution = GroceryNameIndex.distance("flour", "floor", 2);
+    int swap = GroceryNameIndex.distance("flour", "fluor", 2);
+    int insertion = GroceryNameIndex.distance("peper", "pepper", 2);
+
+    // Assert
+    assertEquals(1, substitution, "One letter differs.");
+    assertEquals(1, swap, "Swapping two neighbouring letters is one mistake.");
+    assertEquals(1, insertion, "One letter is missing.");
+  }
+
+  /**
+   * Tests that the edit distance gives up once it exceeds the bound.
+   */
+  @Test
+  public void testDistanceBound() {
+    // Act
+    int far = GroceryNameIndex.distance("milk", "butter", 1);
+    int lengths = GroceryNameIndex.distance("egg", "eggplant", 2);
+
+    // Assert
+    assertEquals(2, far, "Distances above the bound are reported as bound plus one.");
+    assertEquals(3, lengths, "Lengths differing by more than the bound are rejected.");
+  }
+}
@@ -158,4 +158,27 @@ public class GroceryTest {
 
     assertEquals("Price per unit must be greater than zero", exception.getMessage());
   }
+
+  /**
+   * Verifies that the setters refuse quantities and prices that are not finite numbers,
+   * and leave the grocery unchanged.
+   */
+  @Test
+  public void testNegativeGrocerySettersNotFinite() {
+    Grocery grocery = new Grocery("Flour", 5, "kg", LocalDate.of(2024, 12, 20), 10.0);
+
+    Exception nan = assertThrows(IllegalArgumentException.class,
+        () -> grocery.setQuantity(Double.NaN));
+    Exception infiniteQuantity = assertThrows(IllegalArgumentException.class,
+        () -> grocery.setQuantity(Double.POSITIVE_INFINITY));
+    Exception infinitePrice = assertThrows(IllegalArgumentException.class,
+        () -> grocery.setPricePerUnit(Double.POSITIVE_INFINITY));
+    assertThrows(IllegalArgumentException.class, () -> grocery.setPricePerUnit(Double.NaN));
+
+    assertEquals("Quantity must be greater than zero", nan.getMessage());
+    assertEquals("Quantity must be a finite number", infiniteQuantity.getMessage());
+    assertEquals("Price per unit must be a finite number", infinitePrice.getMessage());
+    assertEquals(5, grocery.getQuantity());
+    assertEquals(10.0, grocery.getPricePerUnit());
+  }
 }
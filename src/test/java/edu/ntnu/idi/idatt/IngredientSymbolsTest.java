@@ -0,0 +1,114 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code IngredientSymbols} class.
+ * These tests verify that names differing only in case share one id.
+ */
+public class IngredientSymbolsTest {
+
+  /**
+   * Tests that names differing only in case get the same id and folded name.
+   */
+  @Test
+  public void testSameIdIgnoringCase() {
+    // Arrange
+    IngredientSymbols.Symbol symbol = IngredientSymbols.symbol("Symbol Test Flour");
+
+    // Act
+    IngredientSymbols.Symbol lowerCase = IngredientSymbols.symbol("symbol test flour");
+    int found = IngredientSymbols.find("SYMBOL TEST FLOUR");
+
+    // Assert
+    assertSame(symbol, lowerCase, "Names differing in case should share a symbol.");
+    assertEquals(symbol.getId(), found, "Finding a name should ignore case.");
+    assertEquals("symbol test flour", symbol.getKey(),
+        "The symbol should hold the folded name.");
+  }
+
+  /**
+   * Tests that names fold to the same key exactly when they are equal ignoring case.
+   */
+  @Test
+  public void testFoldMatchesEqualsIgnoreCase() {
+    // Arrange
+    String[][] pairs = {{"MILK", "milk"}, {"\u0130", "i"}, {"\u0130", "\u0131"},
+        {"\u00df", "SS"}, {"\u03a3", "\u03c2"}, {"K", "\u212a"}, {"\ud801\udc00", "\ud801\udc28"}};
+
+    // Act and assert
+    for (String[] pair : pairs) {
+      assertEquals(pair[0].equalsIgnoreCase(pair[1]),
+          IngredientSymbols.fold(pair[0]).equals(IngredientSymbols.fold(pair[1])),
+          "Folding should agree with equalsIgnoreCase for " + pair[0] + " and " + pair[1]);
+    }
+  }
+
+  /**
+   * Tests that a name is forgotten once nothing with it is left, so names that were only
+   * passed through do not stay in memory.
+   */
+  @Test
+  public void testUnusedNameIsForgotten() throws InterruptedException {
+    // Arrange
+    new Grocery("Symbol Test Passing Through", 1.0, "kg", LocalDate.of(2030, 1, 1), 1.0);
+    Grocery kept = new Grocery("Symbol Test Kept", 1.0, "kg", LocalDate.of(2030, 1, 1), 1.0);
+
+    // Act
+    for (int i = 0; i < 50
+        && IngredientSymbols.find("Symbol Test Passing Through") != IngredientSymbols.NONE;
+        i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    // Assert
+    assertEquals(IngredientSymbols.NONE, IngredientSymbols.find("Symbol Test Passing Through"),
+        "A name nothing uses should be forgotten.");
+    assertEquals(kept.getNameId(), IngredientSymbols.find("symbol test kept"),
+        "A name in use should keep its id.");
+  }
+
+  /**
+   * Tests that finding an unknown name does not give it an id.
+   */
+  @Test
+  public void testFindUnknownName() {
+    // Arrange
+    int count = IngredientSymbols.count();
+
+    // Act
+    int found = IngredientSymbols.find("Symbol Test Never Stored");
+
+    // Assert
+    assertEquals(IngredientSymbols.NONE, found, "An unknown name should have no id.");
+    assertEquals(count, IngredientSymbols.count(), "Finding should not add ids.");
+    assertEquals(IngredientSymbols.NONE, IngredientSymbols.find(null),
+        "A null name should have no id.");
+  }
+
+  /**
+   * Tests that groceries and recipe ingredients with the same name share an id, so a
+   * recipe can be checked against a storage by id.
+   */
+  @Test
+  public void testGroceryAndIngredientShareId() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("MILK", 2.0, "liters", LocalDate.of(2030, 1, 1), 20.0));
+    Recipe recipe = new Recipe("Pudding");
+    recipe.addIngredient("milk", 1.0, "liters");
+
+    // Act
+    Grocery ingredient = recipe.getIngredients().get(0);
+    boolean canPrepare = MenuCases.canPrepare(foodStorage, recipe);
+
+    // Assert
+    assertEquals(foodStorage.getGrocery("Milk").getNameId(), ingredient.getNameId(),
+        "The grocery and the ingredient should have the same name id.");
+    assertTrue(canPrepare, "The recipe should be preparable with the stored milk.");
+  }
+}
@@ -0,0 +1,92 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code MealPlanner} class.
+ * These tests verify that plans use the groceries that expire soonest and stay feasible.
+ */
+public class MealPlannerTest {
+  private static final LocalDate TODAY = LocalDate.of(2030, 1, 1);
+
+  /**
+   * Tests that the planner picks the recipe using groceries that would otherwise expire,
+   * and leaves the storage unchanged.
+   */
+  @Test
+  public void testUsesExpiringGroceriesFirst() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", TODAY.plusDays(1), 20.0));
+    foodStorage.addGrocery(new Grocery("Rice", 5.0, "kg", TODAY.plusDays(300), 30.0));
+    Cookbook cookbook = new Cookbook();
+    Recipe rice = new Recipe("Fried rice");
+    rice.addIngredient("Rice", 0.5, "kg");
+    cookbook.addRecipe(rice);
+    Recipe pudding = new Recipe("Milk pudding");
+    pudding.addIngredient("Milk", 0.5, "liters");
+    cookbook.addRecipe(pudding);
+
+    // Act
+    MealPlanner.Plan plan = new MealPlanner(foodStorage, cookbook).plan(TODAY, 2, 1);
+
+    // Assert
+    assertEquals("Milk pudding", plan.getMeals(0).get(0).getRecipe().getName(),
+        "The milk expires tomorrow, so it should be used first.");
+    assertEquals("Milk pudding", plan.getMeals(1).get(0).getRecipe().getName(),
+        "The rest of the milk should be used before it expires.");
+    assertEquals(20.0, plan.getExpiringValue(), 1e-9, "The milk expires during the plan.");
+    assertEquals(0.0, plan.getWastedValue(), 1e-9, "All the milk should be used.");
+    assertEquals(0, plan.getUnplannedServings(), "Every portion should be planned.");
+    assertEquals(1.0, foodStorage.getGrocery("Milk").getQuantity(), 1e-9,
+        "Planning should not change the storage.");
+  }
+
+  /**
+   * Tests that a day is split over several recipes when no single recipe has enough
+   * ingredients, and that portions left unplanned are counted.
+   */
+  @Test
+  public void testSplitsAndCountsUnplannedPortions() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Eggs", 2.0, "amounts", TODAY.plusDays(1), 3.0));
+    foodStorage.addGrocery(new Grocery("Bread", 1.0, "amounts", TODAY.plusDays(1), 30.0));
+    Cookbook cookbook = new Cookbook();
+    Recipe omelette = new Recipe("Omelette");
+    omelette.addIngredient("Eggs", 1.0, "amounts");
+    cookbook.addRecipe(omelette);
+    Recipe toast = new Recipe("Toast");
+    toast.addIngredient("Bread", 1.0, "amounts");
+    cookbook.addRecipe(toast);
+
+    // Act
+    MealPlanner.Plan plan = new MealPlanner(foodStorage, cookbook).plan(TODAY, 2, 2);
+
+    // Assert
+    int firstDay = plan.getMeals(0).stream().mapToInt(MealPlanner.Meal::getPortions).sum();
+    assertEquals(2, firstDay, "The first day should be fully planned.");
+    assertEquals(1, plan.getUnplannedServings(),
+        "Three portions can be made, so one of four is unplanned.");
+    assertTrue(plan.getWastedValue() < plan.getExpiringValue(),
+        "The plan should save some of the expiring value.");
+  }
+
+  /**
+   * Tests that invalid plans are rejected.
+   */
+  @Test
+  public void testInvalidPlan() {
+    // Arrange
+    MealPlanner planner = new MealPlanner(new FoodStorage(), new Cookbook());
+
+    // Act and Assert
+    assertThrows(IllegalArgumentException.class, () -> planner.plan(TODAY, 0, 1),
+        "A plan must cover at least one day.");
+    assertThrows(IllegalArgumentException.class, () -> planner.plan(TODAY, 1, 0),
+        "A plan must serve at least one portion per day.");
+  }
+}
@@ -224,4 +224,74 @@ public class MenuCasesTest {
     assertEquals("Quantity to remove must be greater than 0.", exception.getMessage(),
         "The exception message should indicate that the quantity must be greater than 0.");
   }
+
+  /**
+   * Tests that a recipe can be prepared when the quantities of several lots add up,
+   * and not after one of them has been removed.
+   */
+  @Test
+  public void testCanPrepareRecipeSumsLots() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    MenuCases menuCases = new MenuCases(foodStorage, cookbook, LocalDate.of(2025, 1, 1), null);
+    foodStorage.addGrocery(new Grocery("Eggs", 2.0, "amount", LocalDate.of(2025, 1, 10), 3.0));
+    foodStorage.addGrocery(new Grocery("eggs", 2.0, "amount", LocalDate.of(2025, 1, 20), 3.0));
+    Recipe omelette = new Recipe("Omelette");
+    omelette.addIngredient("Eggs", 3.0, "amount");
+
+    // Act
+    boolean withBothLots = menuCases.canPrepareRecipe(omelette);
+    foodStorage.removeGroceries("Eggs", 2.0);
+    boolean withOneLot = menuCases.canPrepareRecipe(omelette);
+
+    // Assert
+    assertTrue(withBothLots, "Two lots of 2 eggs should cover 3 eggs.");
+    assertFalse(withOneLot, "One lot of 2 eggs should not cover 3 eggs.");
+  }
+
+  /**
+   * Tests that quantities in different spellings and sizes of a unit are added up,
+   * and that groceries in a unit of another kind are not counted.
+   */
+  @Test
+  public void testCanPrepareRecipeConvertsUnits() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    MenuCases menuCases = new MenuCases(foodStorage, cookbook, LocalDate.of(2025, 1, 1), null);
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", LocalDate.of(2025, 1, 10), 10.0));
+    foodStorage.addGrocery(new Grocery("Milk", 5.0, "dl", LocalDate.of(2025, 1, 20), 2.0));
+    foodStorage.addGrocery(new Grocery("Milk", 3.0, "kg", LocalDate.of(2025, 1, 20), 2.0));
+    Recipe smallBatch = new Recipe("Small batch");
+    smallBatch.addIngredient("Milk", 1.5, "liter");
+    Recipe largeBatch = new Recipe("Large batch");
+    largeBatch.addIngredient("Milk", 2.0, "liter");
+
+    // Act and Assert
+    assertTrue(menuCases.canPrepareRecipe(smallBatch), "1 liter and 5 dl make 1.5 liter.");
+    assertFalse(menuCases.canPrepareRecipe(largeBatch), "Milk in kg should not be counted.");
+  }
+
+  /**
+   * Tests that quantities and prices that are not finite numbers are rejected.
+   */
+  @Test
+  public void testCreateGroceryRejectsNonFiniteNumbers() {
+    // Arrange
+    LocalDate today = LocalDate.of(2025, 1, 1);
+    LocalDate expirationDate = LocalDate.of(2025, 1, 10);
+
+    // Act and Assert
+    assertThrows(IllegalArgumentException.class, () -> MenuCases.createGrocery("Milk",
+        Double.NaN, "liters", expirationDate, 10.0, today), "NaN quantities should fail.");
+    assertThrows(IllegalArgumentException.class, () -> MenuCases.createGrocery("Milk",
+        Double.POSITIVE_INFINITY, "liters", expirationDate, 10.0, today),
+        "Infinite quantities should fail.");
+    assertThrows(IllegalArgumentException.class, () -> MenuCases.createGrocery("Milk",
+        1.0, "liters", expirationDate, Double.NaN, today), "NaN prices should fail.");
+    assertThrows(IllegalArgumentException.class, () -> MenuCases.createGrocery("Milk",
+        1.0, "liters", expirationDate, Double.POSITIVE_INFINITY, today),
+        "Infinite prices should fail.");
+  }
 }
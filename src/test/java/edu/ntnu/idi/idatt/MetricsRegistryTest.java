@@ -0,0 +1,117 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import javax.management.MBeanServer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code MetricsRegistry} and {@code LatencyHistogram} classes.
+ * These tests verify the percentiles, the text dump, the MBeans and the measured
+ * storage operations.
+ */
+public class MetricsRegistryTest {
+
+  /**
+   * Tests that percentiles are within the bucket precision and that every duration falls
+   * in a bucket whose bounds contain it.
+   */
+  @Test
+  public void testPercentiles() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram("test");
+
+    // Act
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1000);
+    }
+
+    // Assert
+    assertEquals(1000, histogram.getCount(), "Every run should be counted.");
+    assertEquals(500.0, histogram.getP50Micros(), 500.0 * 0.07,
+        "The median should be within the bucket precision.");
+    assertEquals(990.0, histogram.getP99Micros(), 990.0 * 0.07,
+        "The 99th percentile should be within the bucket precision.");
+    assertEquals(1000.0, histogram.getP999Micros(), 1e-9,
+        "The top percentile should be capped by the longest run.");
+    assertEquals(500.5, histogram.getMeanMicros(), 1e-9, "The mean should be exact.");
+    for (long nanos : new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123456789,
+        Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucket(nanos);
+      assertTrue(LatencyHistogram.lowerBound(bucket) <= nanos
+          && nanos <= LatencyHistogram.upperBound(bucket),
+          "The bucket of " + nanos + " should contain it.");
+    }
+  }
+
+  /**
+   * Tests that counters, gauges and histograms are written as text and published as
+   * MBeans.
+   */
+  @Test
+  public void testWriteAndPublish() throws Exception {
+    // Arrange
+    MetricsRegistry metrics = new MetricsRegistry();
+    metrics.histogram("MetricsRegistryTest.operation").record(2000);
+    metrics.counter("MetricsRegistryTest.events").increment();
+    metrics.gauge("MetricsRegistryTest.size", () -> 7);
+    StringBuilder out = new StringBuilder();
+
+    // Act
+    metrics.write(out);
+    metrics.registerMBeans();
+    metrics.counter("MetricsRegistryTest.later").increment();
+
+    // Assert
+    String text = out.toString();
+    assertTrue(text.contains("MetricsRegistryTest.operation"), "The histogram is listed.");
+    assertTrue(text.contains("MetricsRegistryTest.events: 1"), "The counter is listed.");
+    assertTrue(text.contains("MetricsRegistryTest.size: 7"), "The gauge is listed.");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    assertEquals(7L, server.getAttribute(
+        MetricsRegistry.objectName("Gauge", "MetricsRegistryTest.size"), "Value"),
+        "The gauge should be readable over JMX.");
+    assertEquals(1L, server.getAttribute(
+        MetricsRegistry.objectName("Histogram", "MetricsRegistryTest.operation"), "Count"),
+        "The histogram should be readable over JMX.");
+    assertEquals(1L, server.getAttribute(
+        MetricsRegistry.objectName("Counter", "MetricsRegistryTest.later"), "Count"),
+        "Metrics made after publishing should be published too.");
+  }
+
+  /**
+   * Tests that storage changes are measured, that refused removals are counted, and that
+   * the storage gauges follow the storage.
+   */
+  @Test
+  public void testStorageMetrics() {
+    // Arrange
+    MetricsRegistry metrics = MetricsRegistry.getDefault();
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    metrics.watch(foodStorage, cookbook);
+    long removals = metrics.histogram("FoodStorage.removeGroceries").getCount();
+    long refused = metrics.counter("FoodStorage.removeGroceries.refused").getCount();
+    LocalDate expiration = LocalDate.of(2030, 1, 1);
+
+    // Act
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", expiration, 20.0));
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", expiration, 20.0));
+    foodStorage.addGrocery(new Grocery("Rice", 1.0, "kg", expiration, 30.0));
+    foodStorage.removeGroceries("Milk", 0.5);
+    foodStorage.removeGroceries("Milk", 5.0);
+
+    // Assert
+    StringBuilder out = new StringBuilder();
+    metrics.write(out);
+    assertTrue(out.toString().contains("FoodStorage.lots: 3"), "Three lots are stored.");
+    assertTrue(out.toString().contains("FoodStorage.names: 2"), "Two names are stored.");
+    assertTrue(out.toString().contains("Cookbook.recipes: 0"), "The cookbook is empty.");
+    assertTrue(metrics.histogram("FoodStorage.removeGroceries").getCount() >= removals + 2,
+        "Both removals should be measured.");
+    assertTrue(metrics.counter("FoodStorage.removeGroceries.refused").getCount()
+        >= refused + 1, "The removal of too much milk should be counted as refused.");
+  }
+}
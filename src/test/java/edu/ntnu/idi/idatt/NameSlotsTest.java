@@ -0,0 +1,79 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code NameSlots} class.
+ * These tests verify that names get dense slots that are reused after removal.
+ */
+public class NameSlotsTest {
+
+  /**
+   * Tests that slots are dense whatever the name ids, and are reused after removal.
+   */
+  @Test
+  public void testSlotsAreDenseAndReused() {
+    // Arrange
+    NameSlots slots = new NameSlots();
+
+    // Act
+    int first = slots.add(1_000_000);
+    int second = slots.add(7);
+    slots.remove(1_000_000);
+    int third = slots.add(42);
+
+    // Assert
+    assertEquals(0, first, "The first name should get the first slot.");
+    assertEquals(1, second, "The second name should get the next slot.");
+    assertEquals(0, third, "The freed slot should be reused.");
+    assertEquals(2, slots.slotCount(), "No more slots than names held at once are needed.");
+    assertEquals(NameSlots.NONE, slots.get(1_000_000), "A removed name should have no slot.");
+    assertEquals(1, slots.get(7), "Other names should keep their slots.");
+    assertEquals(NameSlots.NONE, slots.get(IngredientSymbols.NONE),
+        "Unknown names should have no slot.");
+  }
+
+  /**
+   * Tests that many adds and removals give the same slots as a map would keep.
+   */
+  @Test
+  public void testManyAddsAndRemovals() {
+    // Arrange
+    NameSlots slots = new NameSlots();
+    Map<Integer, Integer> expected = new HashMap<>();
+    Random random = new Random(21);
+
+    // Act
+    for (int i = 0; i < 20_000; i++) {
+      int nameId = random.nextInt(500);
+      if (random.nextBoolean()) {
+        int slot = slots.add(nameId);
+        assertEquals(expected.getOrDefault(nameId, slot), slot,
+            "Adding a name twice should keep its slot.");
+        expected.put(nameId, slot);
+      } else {
+        slots.remove(nameId);
+        expected.remove(nameId);
+      }
+    }
+
+    // Assert
+    Set<Integer> used = new HashSet<>();
+    for (int nameId = 0; nameId < 500; nameId++) {
+      int slot = slots.get(nameId);
+      assertEquals(expected.getOrDefault(nameId, NameSlots.NONE), slot,
+          "Every name should have the slot it was given.");
+      if (slot != NameSlots.NONE) {
+        assertTrue(used.add(slot), "No two names should share a slot.");
+      }
+    }
+    assertTrue(slots.slotCount() <= 500, "Slots should not outnumber the names.");
+  }
+}
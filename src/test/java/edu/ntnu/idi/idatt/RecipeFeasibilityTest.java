@@ -0,0 +1,137 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code RecipeFeasibility} class.
+ * These tests verify that the set of preparable recipes follows changes to the
+ * food storage and the cookbook.
+ */
+public class RecipeFeasibilityTest {
+
+  /**
+   * Tests that a recipe becomes preparable when its last missing ingredient is added,
+   * and stops being preparable when an ingredient is removed.
+   */
+  @Test
+  public void testPreparableFollowsStorageChanges() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    Recipe omelette = new Recipe("Omelette");
+    omelette.addIngredient("Eggs", 2.0, "amount");
+    omelette.addIngredient("Butter", 0.01, "kg");
+    cookbook.addRecipe(omelette);
+    RecipeFeasibility feasibility = RecipeFeasibility.create(foodStorage, cookbook);
+    foodStorage.addGrocery(new Grocery("Eggs", 6.0, "amount", LocalDate.of(2025, 1, 10), 3.0));
+
+    // Act and Assert
+    assertFalse(feasibility.canPrepare(omelette), "Butter is still missing.");
+
+    foodStorage.addGrocery(new Grocery("Butter", 0.5, "kg", LocalDate.of(2025, 1, 10), 50.0));
+    assertTrue(feasibility.canPrepare(omelette), "All ingredients are available.");
+
+    foodStorage.removeGroceries("Eggs", 5.0);
+    assertFalse(feasibility.canPrepare(omelette), "Only one egg is left.");
+    assertTrue(feasibility.getPreparableRecipes().isEmpty(), "No recipe can be prepared.");
+  }
+
+  /**
+   * Tests that recipes added to the cookbook, or changed after being added, are tracked.
+   */
+  @Test
+  public void testPreparableFollowsCookbookChanges() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    RecipeFeasibility feasibility = RecipeFeasibility.create(foodStorage, cookbook);
+    foodStorage.addGrocery(new Grocery("Eggs", 6.0, "amount", LocalDate.of(2025, 1, 10), 3.0));
+    Recipe boiledEggs = new Recipe("Boiled eggs");
+    boiledEggs.addIngredient("Eggs", 2.0, "amount");
+
+    // Act and Assert
+    cookbook.addRecipe(boiledEggs);
+    assertTrue(feasibility.canPrepare(boiledEggs), "The added recipe should be preparable.");
+
+    boiledEggs.addIngredient("Salt", 0.001, "kg");
+    assertFalse(feasibility.canPrepare(boiledEggs), "Salt is not in the storage.");
+  }
+
+  /**
+   * Tests that changing the quantity of an ingredient re-evaluates the recipe.
+   */
+  @Test
+  public void testPreparableFollowsIngredientChanges() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    Recipe boiledEggs = new Recipe("Boiled eggs");
+    boiledEggs.addIngredient("Eggs", 2.0, "amount");
+    cookbook.addRecipe(boiledEggs);
+    RecipeFeasibility feasibility = RecipeFeasibility.create(foodStorage, cookbook);
+    foodStorage.addGrocery(new Grocery("Eggs", 6.0, "amount", LocalDate.of(2025, 1, 10), 3.0));
+
+    // Act
+    boiledEggs.getIngredients().get(0).setQuantity(8.0);
+
+    // Assert
+    assertFalse(feasibility.canPrepare(boiledEggs), "Only six eggs are in the storage.");
+  }
+
+  /**
+   * Tests that the preparable recipes are listed in cookbook order, not in the order
+   * they became preparable, also after a recipe is changed.
+   */
+  @Test
+  public void testPreparableInCookbookOrder() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    Recipe toast = new Recipe("Toast");
+    toast.addIngredient("Bread", 2.0, "amount");
+    Recipe boiledEggs = new Recipe("Boiled eggs");
+    boiledEggs.addIngredient("Eggs", 2.0, "amount");
+    cookbook.addRecipe(toast);
+    cookbook.addRecipe(boiledEggs);
+    RecipeFeasibility feasibility = RecipeFeasibility.create(foodStorage, cookbook);
+    Recipe omelette = new Recipe("Omelette");
+    omelette.addIngredient("Eggs", 3.0, "amount");
+
+    // Act
+    cookbook.addRecipe(omelette);
+    foodStorage.addGrocery(new Grocery("Eggs", 6.0, "amount", LocalDate.of(2025, 1, 10), 3.0));
+    foodStorage.addGrocery(new Grocery("Bread", 8.0, "amount", LocalDate.of(2025, 1, 10), 5.0));
+    boiledEggs.setPortionSize(2);
+
+    // Assert
+    assertEquals(List.of(toast, boiledEggs, omelette), feasibility.getPreparableRecipes(),
+        "The recipes should be listed in the order they were added to the cookbook.");
+  }
+
+  /**
+   * Tests that a closed instance no longer follows the storage or the cookbook.
+   */
+  @Test
+  public void testCloseStopsTracking() {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    RecipeFeasibility feasibility = RecipeFeasibility.create(foodStorage, cookbook);
+    Recipe boiledEggs = new Recipe("Boiled eggs");
+    boiledEggs.addIngredient("Eggs", 2.0, "amount");
+    cookbook.addRecipe(boiledEggs);
+
+    // Act
+    feasibility.close();
+    foodStorage.addGrocery(new Grocery("Eggs", 6.0, "amount", LocalDate.of(2025, 1, 10), 3.0));
+    cookbook.addRecipe(new Recipe("Water"));
+
+    // Assert
+    assertTrue(feasibility.getPreparableRecipes().isEmpty(),
+        "Changes made after closing should not be tracked.");
+  }
+}
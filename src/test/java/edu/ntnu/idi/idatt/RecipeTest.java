@@ -196,4 +196,81 @@ public class RecipeTest {
     // Assert
     assertEquals(expected, actual, "The formatted recipe string should match the expected output.");
   }
+
+  /**
+   * Tests that a scaled view computes quantities from the recipe as it is now.
+   */
+  @Test
+  public void testScaledView() {
+    // Arrange
+    Recipe recipe = new Recipe("View Recipe");
+    recipe.setPortionSize(4);
+    recipe.addIngredient("Sugar", 2.0, "kg");
+
+    // Act
+    ScaledIngredients scaled = recipe.scaled(6);
+    double before = scaled.getQuantity(0);
+    recipe.addIngredient("Flour", 1.0, "kg");
+
+    // Assert
+    assertEquals(3.0, before, 1e-9, "Sugar should be scaled to 6 portions.");
+    assertEquals(2, scaled.size(), "The view should follow the recipe.");
+    assertEquals("Flour", scaled.getName(1), "The new ingredient should be in the view.");
+    assertEquals(1.5, scaled.getQuantity(1), 1e-9, "Flour should be scaled to 6 portions.");
+    assertEquals("kg", scaled.getUnit(1), "The unit should be kept.");
+    assertThrows(IllegalArgumentException.class, () -> recipe.scaled(0));
+  }
+
+  /**
+   * Tests that scalings are cached until the recipe changes.
+   */
+  @Test
+  public void testScaleIngredientsCached() {
+    // Arrange
+    Recipe recipe = new Recipe("Cached Recipe");
+    recipe.setPortionSize(2);
+    recipe.addIngredient("Milk", 1.0, "liters");
+
+    // Act
+    List<Grocery> first = recipe.scaleIngredients(4);
+    List<Grocery> second = recipe.scaleIngredients(4);
+    recipe.setPortionSize(1);
+    List<Grocery> afterChange = recipe.scaleIngredients(4);
+
+    // Assert
+    assertSame(first, second, "The same scaling should be returned from the cache.");
+    assertNotSame(first, afterChange, "A change to the recipe should invalidate the cache.");
+    assertEquals(4.0, afterChange.get(0).getQuantity(), 1e-9,
+        "The new scaling should use the new portion size.");
+    assertThrows(UnsupportedOperationException.class, () -> first.remove(0),
+        "The cached scaling should not be modifiable.");
+  }
+
+  /**
+   * Tests that changing an ingredient drops the cached scalings, and that the ingredient
+   * list and the scaled ingredients cannot be changed.
+   */
+  @Test
+  public void testIngredientChangeInvalidatesScaling() {
+    // Arrange
+    Recipe recipe = new Recipe("Edited Recipe");
+    recipe.setPortionSize(2);
+    recipe.addIngredient("Milk", 1.0, "liters");
+    List<Grocery> before = recipe.scaleIngredients(4);
+
+    // Act
+    recipe.getIngredients().get(0).setQuantity(1.5);
+    List<Grocery> after = recipe.scaleIngredients(4);
+
+    // Assert
+    assertEquals(2.0, before.get(0).getQuantity(), 1e-9,
+        "The earlier scaling should be left as it was.");
+    assertEquals(3.0, after.get(0).getQuantity(), 1e-9,
+        "The new scaling should use the changed quantity.");
+    assertThrows(UnsupportedOperationException.class, () -> after.get(0).setQuantity(1.0),
+        "Scaled ingredients should not be modifiable.");
+    assertThrows(UnsupportedOperationException.class,
+        () -> recipe.getIngredients().add(new Grocery("Salt", 1.0, "kg", null, 0)),
+        "Ingredients should only be added through the recipe.");
+  }
 }
@@ -0,0 +1,151 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@code StorageJournal} class.
+ * These tests verify that groceries and recipes are recovered after the journal is reopened.
+ */
+public class StorageJournalTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Makes changes through a journal with the given snapshot interval and closes it.
+   */
+  private void makeChanges(int snapshotInterval) throws IOException {
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    try (StorageJournal journal = StorageJournal.open(directory, foodStorage, cookbook,
+        snapshotInterval)) {
+      foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0));
+      foodStorage.addGrocery(new Grocery("Eggs", 12.0, "amount", LocalDate.of(2025, 1, 20), 3.0));
+      foodStorage.addGrocery(new Grocery("Salt", 1.0, "kg", LocalDate.of(2026, 6, 14), 25.0));
+      foodStorage.removeGroceries("Eggs", 4.0);
+      foodStorage.removeGroceryCompletely("Salt");
+      Recipe omelette = new Recipe("Omelette");
+      omelette.setPortionSize(2);
+      omelette.addIngredient("Eggs", 2.0, "amount");
+      cookbook.addRecipe(omelette);
+      omelette.addIngredient("Milk", 0.03, "liter");
+    }
+  }
+
+  /**
+   * Opens a journal on the test directory and checks the recovered state.
+   */
+  private void assertRecovered() throws IOException {
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+    try (StorageJournal journal = StorageJournal.open(directory, foodStorage, cookbook)) {
+      assertEquals(2, foodStorage.getGroceries().size(), "'Milk' and 'Eggs' should remain.");
+      assertEquals(8.0, foodStorage.getGrocery("Eggs").getQuantity(), "4 eggs were removed.");
+      assertNull(foodStorage.getGrocery("Salt"), "'Salt' was removed completely.");
+      Recipe omelette = cookbook.findRecipe("Omelette");
+      assertNotNull(omelette, "The recipe should be recovered.");
+      assertEquals(2, omelette.getPortionSize(), "The portion size should be recovered.");
+      assertEquals(2, omelette.getIngredients().size(),
+          "The ingredient added after the recipe should be recovered.");
+    }
+  }
+
+  /**
+   * Tests that changes are recovered from the log alone.
+   */
+  @Test
+  public void testRecoverFromLog() throws IOException {
+    makeChanges(StorageJournal.DEFAULT_SNAPSHOT_INTERVAL);
+
+    assertFalse(Files.exists(directory.resolve(StorageJournal.SNAPSHOT_FILE)),
+        "No snapshot should have been written.");
+    assertRecovered();
+  }
+
+  /**
+   * Tests that changes are recovered from snapshots plus the records logged after them.
+   */
+  @Test
+  public void testRecoverFromSnapshotAndLog() throws IOException {
+    makeChanges(3);
+
+    assertTrue(Files.exists(directory.resolve(StorageJournal.SNAPSHOT_FILE)),
+        "A snapshot should have been written.");
+    assertRecovered();
+  }
+
+  /**
+   * Tests that records in a log moved aside for a snapshot that was never written are
+   * recovered, and that the next snapshot replaces the old log.
+   */
+  @Test
+  public void testRecoverFromOldLog() throws IOException {
+    makeChanges(StorageJournal.DEFAULT_SNAPSHOT_INTERVAL);
+    Files.move(directory.resolve(StorageJournal.LOG_FILE),
+        directory.resolve(StorageJournal.OLD_LOG_FILE));
+
+    assertRecovered();
+    try (StorageJournal journal = StorageJournal.open(directory, new FoodStorage(),
+        new Cookbook())) {
+      journal.snapshot();
+    }
+
+    assertFalse(Files.exists(directory.resolve(StorageJournal.OLD_LOG_FILE)),
+        "The old log should be deleted once a snapshot includes it.");
+    assertRecovered();
+  }
+
+  /**
+   * Tests that a recipe without a description and with a procedure longer than 64 KB is
+   * logged and recovered.
+   */
+  @Test
+  public void testRecoverRecipeWithMissingAndLongTexts() throws IOException {
+    // Arrange
+    String procedure = "Stir. ".repeat(20_000);
+    FoodStorage foodStorage = new FoodStorage();
+    Cookbook cookbook = new Cookbook();
+
+    // Act
+    try (StorageJournal journal = StorageJournal.open(directory, foodStorage, cookbook)) {
+      Recipe porridge = new Recipe("Porridge");
+      porridge.setDescription(null);
+      porridge.setProcedure(procedure);
+      porridge.addIngredient("Oats", 1.0, "dl");
+      cookbook.addRecipe(porridge);
+      porridge.setPortionSize(3);
+    }
+
+    // Assert
+    Cookbook recovered = new Cookbook();
+    try (StorageJournal journal = StorageJournal.open(directory, new FoodStorage(),
+        recovered)) {
+      Recipe porridge = recovered.findRecipe("Porridge");
+      assertNotNull(porridge, "The recipe should be recovered.");
+      assertNull(porridge.getDescription(), "The missing description should stay missing.");
+      assertEquals(procedure, porridge.getProcedure(), "The long procedure should be kept.");
+      assertEquals(3, porridge.getPortionSize(), "The change after adding should be logged.");
+    }
+  }
+
+  /**
+   * Tests that a partly written record at the end of the log is ignored.
+   */
+  @Test
+  public void testRecoverIgnoresTornRecord() throws IOException {
+    makeChanges(StorageJournal.DEFAULT_SNAPSHOT_INTERVAL);
+    Files.write(directory.resolve(StorageJournal.LOG_FILE), new byte[] {0, 0, 0, 40, 1, 2},
+        StandardOpenOption.APPEND);
+
+    assertRecovered();
+    assertRecovered();
+  }
+}
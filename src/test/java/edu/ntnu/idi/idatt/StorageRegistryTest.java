@@ -0,0 +1,89 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code StorageRegistry} class.
+ * These tests verify that households are kept apart and that aggregates cover all shards.
+ */
+public class StorageRegistryTest {
+
+  /**
+   * Tests that the total and expired values are summed over all households.
+   */
+  @Test
+  public void testAggregateValues() {
+    // Arrange
+    LocalDate today = LocalDate.of(2030, 1, 1);
+    try (StorageRegistry registry = new StorageRegistry(4)) {
+      List<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        tasks.add(registry.submit("household-" + i, (foodStorage, cookbook) -> {
+          foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", today.plusDays(5), 10.0));
+          foodStorage.addGrocery(new Grocery("Bread", 1.0, "amounts", today.minusDays(1), 30.0));
+          return true;
+        }));
+      }
+      tasks.forEach(CompletableFuture::join);
+
+      // Act
+      double totalValue = registry.getTotalValue(today);
+      double expiredValue = registry.getExpiredValue(today);
+      int households = registry.getHouseholdCount();
+
+      // Assert
+      assertEquals(2000.0, totalValue, 1e-9, "The non-expired milk of every household counts.");
+      assertEquals(3000.0, expiredValue, 1e-9, "The expired bread of every household counts.");
+      assertEquals(100, households, "Every household should be registered.");
+    }
+  }
+
+  /**
+   * Tests that a household always runs on the same shard thread and keeps its own state.
+   */
+  @Test
+  public void testHouseholdsAreSeparate() {
+    // Arrange
+    try (StorageRegistry registry = new StorageRegistry(2)) {
+      registry.call("a", (foodStorage, cookbook) -> {
+        cookbook.addRecipe(new Recipe("Pancakes"));
+        return null;
+      });
+
+      // Act
+      String firstThread = registry.call("a", (foodStorage, cookbook) ->
+          Thread.currentThread().getName());
+      String secondThread = registry.call("a", (foodStorage, cookbook) ->
+          Thread.currentThread().getName());
+      boolean inA = registry.call("a", (foodStorage, cookbook) ->
+          cookbook.findRecipe("Pancakes") != null);
+      boolean inB = registry.call("b", (foodStorage, cookbook) ->
+          cookbook.findRecipe("Pancakes") != null);
+
+      // Assert
+      assertEquals(firstThread, secondThread, "A household should stay on one shard.");
+      assertTrue(inA, "The recipe should be in the household it was added to.");
+      assertFalse(inB, "Other households should not see the recipe.");
+    }
+  }
+
+  /**
+   * Tests that an exception thrown by a task reaches the caller.
+   */
+  @Test
+  public void testTaskException() {
+    // Arrange
+    try (StorageRegistry registry = new StorageRegistry(1)) {
+      // Act and Assert
+      assertThrows(IllegalArgumentException.class, () -> registry.call("a",
+          (foodStorage, cookbook) -> foodStorage.removeGroceries("Milk", -1.0)),
+          "The task's own exception should be thrown.");
+    }
+  }
+}
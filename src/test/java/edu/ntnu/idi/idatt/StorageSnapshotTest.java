@@ -0,0 +1,111 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@code StorageSnapshot} class.
+ * These tests verify that groceries and recipes are written and read back unchanged.
+ */
+public class StorageSnapshotTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Tests that groceries and recipes are loaded back with the same fields and lot order.
+   */
+  @Test
+  public void testWriteAndLoad() throws IOException {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Milk", 2.0, "liters", LocalDate.of(2025, 1, 10), 10.0));
+    foodStorage.addGrocery(new Grocery("Milk", 1.0, "liters", LocalDate.of(2025, 1, 3), 12.0));
+    foodStorage.addGrocery(new Grocery("Rice", 0.5, "kg", LocalDate.of(2030, 5, 1), 40.0));
+    Cookbook cookbook = new Cookbook();
+    Recipe pancakes = new Recipe("Pancakes");
+    pancakes.setDescription("Thin pancakes");
+    pancakes.setProcedure("Mix and fry.");
+    pancakes.setPortionSize(4);
+    pancakes.addIngredient("Milk", 0.5, "liters");
+    pancakes.addIngredient("Eggs", 3.0, "amount");
+    cookbook.addRecipe(pancakes);
+    Path file = directory.resolve("snapshot.dat");
+
+    // Act
+    StorageSnapshot.write(file, foodStorage, cookbook, 42);
+    FoodStorage loadedStorage = new FoodStorage();
+    Cookbook loadedCookbook = new Cookbook();
+    StorageSnapshot snapshot = StorageSnapshot.open(file);
+    snapshot.loadInto(loadedStorage, loadedCookbook);
+
+    // Assert
+    assertEquals(42, snapshot.getSequence(), "The sequence number should be stored.");
+    List<Grocery> milk = new ArrayList<>();
+    loadedStorage.forEachGrocery(grocery -> {
+      if (grocery.getName().equals("Milk")) {
+        milk.add(grocery);
+      }
+    });
+    assertEquals(2, milk.size(), "Both lots of 'Milk' should be loaded.");
+    assertEquals(LocalDate.of(2025, 1, 10), milk.get(0).getExpirationDate(),
+        "Lots should keep their order.");
+    Grocery rice = loadedStorage.getGrocery("Rice");
+    assertEquals(0.5, rice.getQuantity(), "The quantity should be stored.");
+    assertEquals("kg", rice.getUnit(), "The unit should be stored.");
+    assertEquals(LocalDate.of(2030, 5, 1), rice.getExpirationDate(),
+        "The expiration date should be stored.");
+    assertEquals(40.0, rice.getPricePerUnit(), "The price should be stored.");
+
+    Recipe loaded = loadedCookbook.findRecipe("Pancakes");
+    assertEquals("Thin pancakes", loaded.getDescription(), "The description should be stored.");
+    assertEquals("Mix and fry.", loaded.getProcedure(), "The procedure should be stored.");
+    assertEquals(4, loaded.getPortionSize(), "The portion size should be stored.");
+    assertEquals(2, loaded.getIngredients().size(), "The ingredients should be stored.");
+    assertEquals(3.0, loaded.getIngredients().get(1).getQuantity(),
+        "The ingredient quantity should be stored.");
+  }
+
+  /**
+   * Tests that single groceries can be read without loading the whole snapshot,
+   * also when the expiration dates are too far apart for the short date column.
+   */
+  @Test
+  public void testGetGroceryWithWideDateRange() throws IOException {
+    // Arrange
+    FoodStorage foodStorage = new FoodStorage();
+    foodStorage.addGrocery(new Grocery("Salt", 1.0, "kg", LocalDate.of(1900, 1, 1), 20.0));
+    foodStorage.addGrocery(new Grocery("Honey", 1.0, "kg", LocalDate.of(2400, 1, 1), 90.0));
+    Path file = directory.resolve("snapshot.dat");
+    StorageSnapshot.write(file, foodStorage, new Cookbook(), 0);
+
+    // Act
+    StorageSnapshot snapshot = StorageSnapshot.open(file);
+
+    // Assert
+    assertEquals(2, snapshot.getGroceryCount(), "The snapshot should hold two groceries.");
+    assertEquals(LocalDate.of(2400, 1, 1), snapshot.getGrocery(1).getExpirationDate(),
+        "The expiration date should be stored.");
+    assertEquals("Salt", snapshot.getGrocery(0).getName(), "The name should be stored.");
+    assertThrows(IndexOutOfBoundsException.class, () -> snapshot.getGrocery(2));
+  }
+
+  /**
+   * Tests that a file that is not a snapshot is rejected.
+   */
+  @Test
+  public void testOpenRejectsOtherFiles() throws IOException {
+    Path file = directory.resolve("notes.txt");
+    Files.writeString(file, "This is not a storage snapshot at all.");
+
+    assertThrows(IOException.class, () -> StorageSnapshot.open(file));
+  }
+}
@@ -0,0 +1,53 @@
+package edu.ntnu.idi.idatt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@code Unit} class.
+ * These tests verify that unit spellings are shared and converted correctly.
+ */
+public class UnitTest {
+
+  /**
+   * Tests that the same spelling always gives the same shared unit.
+   */
+  @Test
+  public void testOfReturnsSharedUnit() {
+    assertSame(Unit.of("liters"), Unit.of("liters"), "The same spelling should be shared.");
+    assertEquals("liters", Unit.of("liters").getName(), "The spelling should be kept.");
+    assertNull(Unit.of(null), "No unit should be created for null.");
+  }
+
+  /**
+   * Tests that singular, plural and related units share a dimension and convert correctly.
+   */
+  @Test
+  public void testConversions() {
+    Unit liter = Unit.of("liter");
+    Unit liters = Unit.of("Liters");
+    Unit deciliter = Unit.of("dl");
+    Unit grams = Unit.of("grams");
+
+    assertTrue(liter.isCompatibleWith(liters), "'liter' and 'Liters' are the same unit.");
+    assertTrue(liter.isCompatibleWith(deciliter), "'liter' and 'dl' are both volumes.");
+    assertFalse(liter.isCompatibleWith(grams), "A volume is not a mass.");
+    assertEquals(0.5, deciliter.toBase(5.0), 1e-12, "5 dl is 0.5 liter.");
+    assertEquals(250.0, grams.fromBase(0.25), 1e-9, "0.25 kg is 250 grams.");
+  }
+
+  /**
+   * Tests that units that are not known only match other spellings of themselves.
+   */
+  @Test
+  public void testUnknownUnits() {
+    Unit handful = Unit.of("handful");
+    Unit handfuls = Unit.of("handfuls");
+    Unit pinch = Unit.of("pinch");
+
+    assertTrue(handful.isCompatibleWith(handfuls), "Plural spelling should match.");
+    assertFalse(handful.isCompatibleWith(pinch), "Different unknown units should not match.");
+    assertFalse(handful.isCompatibleWith(Unit.of("kg")), "An unknown unit is not a mass.");
+  }
+}